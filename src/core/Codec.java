@@ -0,0 +1,46 @@
+package core;
+
+import java.io.IOException;
+import java.util.function.BiConsumer;
+
+// How to write values of one type to a ModelWriter and read them back, for
+// the labels, features and symbols that generic models hold.
+public class Codec<T> {
+    public final static Codec<String> STRING = new Codec<>(ModelWriter::writeString, ModelReader::readString);
+    public final static Codec<Integer> INTEGER = new Codec<>(ModelWriter::writeInt, ModelReader::readInt);
+    public final static Codec<Long> LONG = new Codec<>(ModelWriter::writeLong, ModelReader::readLong);
+    public final static Codec<Float> FLOAT = new Codec<>(ModelWriter::writeFloat, ModelReader::readFloat);
+    public final static Codec<Double> DOUBLE = new Codec<>(ModelWriter::writeDouble, ModelReader::readDouble);
+    public final static Codec<Character> CHARACTER =
+            new Codec<>((out, c) -> out.writeInt(c), in -> (char)in.readInt());
+
+    private BiConsumer<ModelWriter, T> writer;
+    private Reader<T> reader;
+
+    // Like Function<ModelReader, T>, but allowed to throw IOException
+    public interface Reader<T> {
+        T read(ModelReader in) throws IOException;
+    }
+
+    public Codec(BiConsumer<ModelWriter, T> writer, Reader<T> reader) {
+        this.writer = writer;
+        this.reader = reader;
+    }
+
+    // Enum constants are written by ordinal, so reordering them breaks
+    // files written before.
+    public static <E extends Enum<E>> Codec<E> ofEnum(Class<E> type) {
+        E[] constants = type.getEnumConstants();
+        return new Codec<>((out, e) -> out.writeInt(e.ordinal()), in -> {
+            int ordinal = in.readInt();
+            if (ordinal < 0 || ordinal >= constants.length) {
+                throw new IOException("No " + type.getSimpleName() + " with ordinal " + ordinal);
+            }
+            return constants[ordinal];
+        });
+    }
+
+    public void write(ModelWriter out, T value) {writer.accept(out, value);}
+
+    public T read(ModelReader in) throws IOException {return reader.read(in);}
+}
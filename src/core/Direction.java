@@ -27,6 +27,21 @@ public enum Direction {
 	};
 	
 	abstract public Pos successor(Pos location);
+
+	public boolean isHorizontal() {return this == E || this == W;}
+
+	public Direction opposite() {
+		return switch (this) {
+			case N -> S;
+			case S -> N;
+			case E -> W;
+			case W -> E;
+		};
+	}
+
+	public Direction[] perpendicular() {
+		return isHorizontal() ? new Direction[]{N, S} : new Direction[]{E, W};
+	}
 	
 	public static Direction between(Pos start, Pos end) {
 		int xDiff = start.getX() - end.getX();
@@ -0,0 +1,143 @@
+package core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Reads a file written by ModelWriter through a read-only memory map, so
+// arrays are copied straight from the page cache with bulk gets instead of
+// being parsed a value at a time. Every read checks that the bytes it needs
+// are there first, so a truncated or corrupt file, with a length that runs
+// past its end, throws IOException rather than an unchecked exception.
+public class ModelReader implements Closeable {
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    public ModelReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != ModelWriter.MAGIC) {
+                throw new IOException(file + " is not a model file");
+            }
+            int layout = buffer.getInt();
+            if (layout > ModelWriter.LAYOUT_VERSION) {
+                throw new IOException(file + " has layout version " + layout + "; this reader knows up to "
+                        + ModelWriter.LAYOUT_VERSION);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Post: Reads a section header and returns its version
+    //       Throws IOException if the section is not of kind or is newer
+    //       than latestVersion
+    public int readSection(String kind, int latestVersion) throws IOException {
+        String found;
+        int version;
+        try {
+            found = readString();
+            version = readInt();
+        } catch (IOException e) {
+            throw new IOException("Expected a " + kind + " section", e);
+        }
+        if (!found.equals(kind)) {
+            throw new IOException("Expected a " + kind + " section, found " + found);
+        }
+        if (version > latestVersion) {
+            throw new IOException(kind + " version " + version + " is newer than " + latestVersion);
+        }
+        return version;
+    }
+
+    public boolean readBoolean() throws IOException {
+        need(1);
+        return buffer.get() != 0;
+    }
+
+    public int readInt() throws IOException {
+        need(4);
+        return buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        need(8);
+        return buffer.getLong();
+    }
+
+    public float readFloat() throws IOException {
+        need(4);
+        return buffer.getFloat();
+    }
+
+    public double readDouble() throws IOException {
+        need(8);
+        return buffer.getDouble();
+    }
+
+    public String readString() throws IOException {
+        byte[] bytes = new byte[readLength(1)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int[] readInts() throws IOException {
+        int[] result = new int[readLength(4)];
+        buffer.asIntBuffer().get(result);
+        buffer.position(buffer.position() + 4 * result.length);
+        return result;
+    }
+
+    public long[] readLongs() throws IOException {
+        long[] result = new long[readLength(8)];
+        buffer.asLongBuffer().get(result);
+        buffer.position(buffer.position() + 8 * result.length);
+        return result;
+    }
+
+    public float[] readFloats() throws IOException {
+        float[] result = new float[readLength(4)];
+        buffer.asFloatBuffer().get(result);
+        buffer.position(buffer.position() + 4 * result.length);
+        return result;
+    }
+
+    public double[] readDoubles() throws IOException {
+        double[] result = new double[readLength(8)];
+        buffer.asDoubleBuffer().get(result);
+        buffer.position(buffer.position() + 8 * result.length);
+        return result;
+    }
+
+    // Post: Returns the number of bytes not yet read
+    public long remaining() {return buffer.remaining();}
+
+    // Post: Reads an array length and checks that that many elements of
+    //       elementSize bytes each are left to read
+    private int readLength(int elementSize) throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            throw new IOException("Bad length " + length);
+        }
+        need((long)length * elementSize);
+        return length;
+    }
+
+    private void need(long numBytes) throws IOException {
+        if (numBytes > buffer.remaining()) {
+            throw new IOException("Needed " + numBytes + " bytes with " + buffer.remaining() + " left");
+        }
+    }
+
+    // The mapping itself stays valid until it is garbage collected.
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,121 @@
+package core;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Writes a trained model to a binary file that ModelReader can map back in.
+// The file starts with a magic number and the version of this layout, and
+// each model writes a section header, its kind and version, before its
+// data, so a reader can reject a file it does not understand instead of
+// misreading it. Numbers are big-endian; arrays are preceded by their
+// lengths. Writing errors are thrown as UncheckedIOException, so codecs
+// can be plain lambdas.
+public class ModelWriter implements Closeable {
+    public final static int MAGIC = 0x43533335; // "CS35"
+    public final static int LAYOUT_VERSION = 1;
+
+    private DataOutputStream out;
+
+    public ModelWriter(Path file) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(LAYOUT_VERSION);
+    }
+
+    public void writeSection(String kind, int version) {
+        writeString(kind);
+        writeInt(version);
+    }
+
+    public void writeBoolean(boolean b) {
+        try {
+            out.writeBoolean(b);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void writeInt(int i) {
+        try {
+            out.writeInt(i);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void writeLong(long l) {
+        try {
+            out.writeLong(l);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void writeFloat(float f) {
+        try {
+            out.writeFloat(f);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void writeDouble(double d) {
+        try {
+            out.writeDouble(d);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Strings are written as UTF-8, so they may be of any length.
+    public void writeString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        try {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void writeInts(int[] values, int from, int to) {
+        writeInt(to - from);
+        for (int i = from; i < to; i++) {
+            writeInt(values[i]);
+        }
+    }
+
+    public void writeInts(int[] values) {writeInts(values, 0, values.length);}
+
+    public void writeLongs(long[] values, int from, int to) {
+        writeInt(to - from);
+        for (int i = from; i < to; i++) {
+            writeLong(values[i]);
+        }
+    }
+
+    public void writeFloats(float[] values) {
+        writeInt(values.length);
+        for (float f: values) {
+            writeFloat(f);
+        }
+    }
+
+    public void writeDoubles(double[] values) {
+        writeInt(values.length);
+        for (double d: values) {
+            writeDouble(d);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -1,34 +1,108 @@
 package learning.classifiers;
 
+import core.Codec;
 import core.Duple;
-import learning.core.Classifier;
+import core.ModelReader;
+import core.ModelWriter;
 import learning.core.Histogram;
+import learning.core.OnlineClassifier;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.function.Supplier;
 import java.util.function.ToDoubleBiFunction;
 
-// KnnTest.test() should pass once this is finished.
-public class Knn<V, L> implements Classifier<V, L> {
-    private ArrayList<Duple<V, L>> data = new ArrayList<>();
-    private ToDoubleBiFunction<V, V> distance;
+// Labels a value by a plurality vote of the labels of its k nearest
+// training values. Ties go to the label of the nearer neighbor. The
+// NeighborIndex finds the neighbors; by default it measures the distance
+// to every training value.
+public class Knn<V, L> implements OnlineClassifier<V, L> {
+    private final static int FORMAT_VERSION = 1;
+
+    private NeighborIndex<V> index;
+    private ArrayList<L> labels = new ArrayList<>();
     private int k;
 
-    public Knn(int k, ToDoubleBiFunction<V, V> distance) {
+    public Knn(int k, Supplier<NeighborIndex<V>> indexMaker) {
         this.k = k;
-        this.distance = distance;
+        this.index = indexMaker.get();
+    }
+
+    public Knn(int k, ToDoubleBiFunction<V, V> distance) {
+        this(k, () -> new LinearScanIndex<>(distance));
     }
 
     @Override
     public L classify(V value) {
-        // TODO: Find the distance from value to each element of data. Use Histogram.getPluralityWinner()
-        //  to find the most popular label.
-        return null;
+        Histogram<L> votes = new Histogram<>();
+        for (int neighbor: index.nearest(value, k)) {
+            votes.bump(labels.get(neighbor));
+        }
+        return votes.getPluralityWinner();
     }
 
     @Override
     public void train(ArrayList<Duple<V, L>> training) {
-        // TODO: Add all elements of training to data.
+        partialTrain(training);
+    }
+
+    // Post: Adds data and builds the index, so classify() can run on
+    //       several threads
+    @Override
+    public void partialTrain(Iterable<Duple<V, L>> data) {
+        for (Duple<V, L> datum: data) {
+            add(datum.getFirst(), datum.getSecond());
+        }
+        index.build();
+    }
+
+    // The index is built again each time its size doubles, so building
+    // costs a Knn trained one value at a time no more than a constant
+    // factor over building once at the end.
+    @Override
+    public void learnOne(V value, L label) {
+        add(value, label);
+        if (Integer.bitCount(index.size()) == 1) {
+            index.build();
+        }
+    }
+
+    private void add(V value, L label) {
+        index.add(value);
+        labels.add(label);
+    }
+
+    public void writeTo(ModelWriter out, Codec<L> labelCodec, Codec<NeighborIndex<V>> indexCodec) {
+        out.writeSection("Knn", FORMAT_VERSION);
+        out.writeInt(k);
+        out.writeInt(labels.size());
+        for (L label: labels) {
+            labelCodec.write(out, label);
+        }
+        indexCodec.write(out, index);
+    }
+
+    // Post: Replaces the training data with what in holds. A file whose
+    //       labels and index do not fit together is an IOException, and
+    //       leaves this as it was.
+    public void readFrom(ModelReader in, Codec<L> labelCodec, Codec<NeighborIndex<V>> indexCodec) throws IOException {
+        in.readSection("Knn", FORMAT_VERSION);
+        int k = in.readInt();
+        int numLabels = in.readInt();
+        if (k < 1 || numLabels < 0) {
+            throw new IOException("Bad k " + k + " or number of labels " + numLabels);
+        }
+        ArrayList<L> labels = new ArrayList<>();
+        for (int i = 0; i < numLabels; i++) {
+            labels.add(labelCodec.read(in));
+        }
+        NeighborIndex<V> index = indexCodec.read(in);
+        if (index.size() != labels.size()) {
+            throw new IOException(labels.size() + " labels but " + index.size() + " indexed values");
+        }
+        index.build();
+        this.k = k;
+        this.labels = labels;
+        this.index = index;
     }
 }
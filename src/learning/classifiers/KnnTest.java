@@ -1,9 +1,31 @@
 package learning.classifiers;
 
+import core.Codec;
 import core.Duple;
+import core.ModelReader;
+import core.ModelWriter;
+import learning.core.Histogram;
+import learning.handwriting.core.BitSamplingLsh;
+import learning.handwriting.core.Drawing;
+import learning.handwriting.core.FloatDrawing;
+import learning.handwriting.core.PackedDrawings;
+import learning.sentiment.core.HyperplaneLsh;
+import learning.sentiment.core.Sentence;
+import learning.sentiment.core.SentimentAnalyzer;
+import learning.sentiment.core.SparseVector;
+import learning.sentiment.core.Vocabulary;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
 
 public class KnnTest {
     @Test
@@ -24,4 +46,194 @@ public class KnnTest {
             assert expected[i].equals(classifier.classify(tests[i]));
         }
     }
+
+    @Test
+    public void testPackedDrawings() {
+        Random random = new Random(335);
+        PackedDrawings packed = new PackedDrawings();
+        LinearScanIndex<Drawing> linear = new LinearScanIndex<>((d1, d2) -> (double)d1.distance(d2));
+        for (int i = 0; i < 200; i++) {
+            Drawing d = randomDrawing(random);
+            packed.add(d);
+            linear.add(d);
+        }
+        for (int i = 0; i < 50; i++) {
+            Drawing query = randomDrawing(random);
+            assertArrayEquals(linear.nearest(query, 7), packed.nearest(query, 7));
+        }
+    }
+
+    @Test
+    public void testVPTree() {
+        Random random = new Random(335);
+        VPTree<FloatDrawing> tree = new VPTree<>((d1, d2) -> Math.sqrt(d1.euclideanDistance(d2)));
+        LinearScanIndex<FloatDrawing> linear = new LinearScanIndex<>(FloatDrawing::euclideanDistance);
+        for (int i = 0; i < 300; i++) {
+            FloatDrawing d = new FloatDrawing(randomDrawing(random));
+            tree.add(d);
+            linear.add(d);
+            if (i % 100 == 0) {
+                assertArrayEquals(linear.nearest(d, 5), tree.nearest(d, 5));
+            }
+            if (i == 150) {
+                tree.build();
+            }
+        }
+        for (int i = 0; i < 50; i++) {
+            FloatDrawing query = new FloatDrawing(randomDrawing(random));
+            assertArrayEquals(linear.nearest(query, 7), tree.nearest(query, 7));
+        }
+        tree.build();
+        for (int i = 0; i < 50; i++) {
+            FloatDrawing query = new FloatDrawing(randomDrawing(random));
+            assertArrayEquals(linear.nearest(query, 7), tree.nearest(query, 7));
+        }
+
+        ArrayList<Duple<FloatDrawing,String>> data = new ArrayList<>();
+        ArrayList<FloatDrawing> queries = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            FloatDrawing d = new FloatDrawing(randomDrawing(random));
+            data.add(new Duple<>(d, d.get(0, 0) > 0 ? "A" : "B"));
+            queries.add(new FloatDrawing(randomDrawing(random)));
+        }
+        Knn<FloatDrawing,String> byTree = new Knn<>(3, () -> new VPTree<>((d1, d2) -> Math.sqrt(d1.euclideanDistance(d2))));
+        Knn<FloatDrawing,String> byScan = new Knn<>(3, FloatDrawing::euclideanDistance);
+        byTree.train(data);
+        byScan.train(data);
+        ArrayList<String> classified = byTree.classifyAll(queries);
+        for (int i = 0; i < queries.size(); i++) {
+            assertEquals(byScan.classify(queries.get(i)), classified.get(i));
+        }
+
+        VPTree<Double> numbers = new VPTree<>((d1, d2) -> Math.abs(d1 - d2));
+        for (int i = 0; i < 1000; i++) {
+            numbers.add((double)(i % 100));
+        }
+        assertArrayEquals(new int[]{42, 142, 242}, numbers.nearest(42.25, 3));
+        assertArrayEquals(new int[0], numbers.nearest(1.0, 0));
+    }
+
+    @Test
+    public void testLsh() {
+        Random random = new Random(335);
+        ArrayList<Drawing> training = new ArrayList<>();
+        ArrayList<Drawing> queries = new ArrayList<>();
+        PackedDrawings exact = new PackedDrawings();
+        BitSamplingLsh lsh = new BitSamplingLsh(16, 12, 335);
+        for (int i = 0; i < 300; i++) {
+            Drawing d = randomDrawing(random);
+            training.add(d);
+            exact.add(d);
+            lsh.add(d);
+            if (i % 10 == 0) {
+                Drawing near = new Drawing(d);
+                near.set(random.nextInt(d.getWidth()), random.nextInt(d.getHeight()), true);
+                queries.add(near);
+            }
+        }
+        for (int i = 0; i < queries.size(); i++) {
+            assertEquals(10 * i, lsh.nearest(queries.get(i), 1)[0]);
+            assertEquals(5, lsh.nearest(queries.get(i), 5).length);
+        }
+        assertArrayEquals(exact.nearest(training.get(7), 300), lsh.nearest(training.get(7), 300));
+        assertEquals(1.0, new RecallAtK<>(exact, queries, 1).measure(lsh).getRecall(), 0.0);
+
+        HyperplaneLsh bags = new HyperplaneLsh(8, 6, 335);
+        String[] sentences = {"great phone great battery", "terrible battery", "the screen is great",
+                "would not buy again", "battery died after a week"};
+        for (String sentence: sentences) {
+            Histogram<String> bag = new Histogram<>();
+            for (String word: sentence.split(" ")) {
+                bag.bump(word);
+            }
+            bags.add(bag);
+        }
+        Histogram<String> query = new Histogram<>();
+        query.bump("terrible");
+        query.bump("battery");
+        assertEquals(1, bags.nearest(query, 1)[0]);
+        assertEquals(sentences.length, bags.nearest(query, 10).length);
+    }
+
+    @Test
+    public void testSparseVector() {
+        String[] sentences = {"great phone, great battery!", "terrible battery.", "the screen is great",
+                "would not buy again", "battery died after a week; terrible"};
+        Vocabulary vocabulary = new Vocabulary();
+        ArrayList<Histogram<String>> bags = new ArrayList<>();
+        ArrayList<SparseVector> vectors = new ArrayList<>();
+        for (String sentence: sentences) {
+            bags.add(new Sentence(sentence).wordCounts(false));
+            vectors.add(SentimentAnalyzer.vectorFrom(sentence, vocabulary));
+        }
+        assertEquals(2.0f, vectors.get(0).weightOf(vocabulary.idOf("great")), 0.0f);
+        assertEquals(0.0f, vectors.get(1).weightOf(vocabulary.idOf("great")), 0.0f);
+        for (int i = 0; i < sentences.length; i++) {
+            for (int j = 0; j < sentences.length; j++) {
+                assertEquals(bags.get(i).cosineDistance(bags.get(j)), vectors.get(i).cosineDistance(vectors.get(j)), 1e-9);
+            }
+        }
+        assertEquals(1.0, vectors.get(0).cosineDistance(new SparseVector(new int[0], new float[0])), 0.0);
+        assertEquals(vectors.get(1), SentimentAnalyzer.vectorFrom("battery terrible", vocabulary));
+    }
+
+    private static Drawing randomDrawing(Random random) {
+        Drawing d = new Drawing(41, 13);
+        for (int x = 0; x < d.getWidth(); x++) {
+            for (int y = 0; y < d.getHeight(); y++) {
+                d.set(x, y, random.nextInt(8) == 0);
+            }
+        }
+        return d;
+    }
+
+    @Test
+    public void testSaveLoad() throws IOException {
+        Random random = new Random(335);
+        Knn<Drawing,String> knn = new Knn<>(3, PackedDrawings::new);
+        for (int i = 0; i < 100; i++) {
+            knn.learnOne(randomDrawing(random), i % 3 == 0 ? "A" : "B");
+        }
+
+        Path file = Files.createTempFile("knn", ".model");
+        try {
+            try (ModelWriter out = new ModelWriter(file)) {
+                knn.writeTo(out, Codec.STRING, PackedDrawings.CODEC);
+            }
+            Knn<Drawing,String> loaded = new Knn<>(1, PackedDrawings::new);
+            try (ModelReader in = new ModelReader(file)) {
+                loaded.readFrom(in, Codec.STRING, PackedDrawings.CODEC);
+            }
+            for (int i = 0; i < 30; i++) {
+                Drawing query = randomDrawing(random);
+                assertEquals(knn.classify(query), loaded.classify(query));
+            }
+
+            // A file cut off in the middle of the packed rows
+            try (ModelWriter out = new ModelWriter(file)) {
+                knn.writeTo(out, Codec.STRING, PackedDrawings.CODEC);
+            }
+            byte[] whole = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(whole, whole.length - 100));
+            try (ModelReader in = new ModelReader(file)) {
+                assertThrows(IOException.class, () -> loaded.readFrom(in, Codec.STRING, PackedDrawings.CODEC));
+            }
+            for (int i = 0; i < 30; i++) {
+                Drawing query = randomDrawing(random);
+                assertEquals(knn.classify(query), loaded.classify(query));
+            }
+
+            try (ModelWriter out = new ModelWriter(file)) {
+                out.writeSection("Knn", 1);
+                out.writeInt(3);
+                out.writeInt(0);
+                out.writeSection("LinearScanIndex", 1);
+            }
+            try (ModelReader in = new ModelReader(file)) {
+                assertThrows(IOException.class, () -> loaded.readFrom(in, Codec.STRING, PackedDrawings.CODEC));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
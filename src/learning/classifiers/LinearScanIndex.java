@@ -0,0 +1,32 @@
+package learning.classifiers;
+
+import java.util.ArrayList;
+import java.util.function.ToDoubleBiFunction;
+
+// Finds nearest neighbors by measuring the distance to every value, keeping
+// the best k seen so far in a bounded heap.
+public class LinearScanIndex<V> implements NeighborIndex<V> {
+    private ArrayList<V> values = new ArrayList<>();
+    private ToDoubleBiFunction<V, V> distance;
+
+    public LinearScanIndex(ToDoubleBiFunction<V, V> distance) {
+        this.distance = distance;
+    }
+
+    @Override
+    public void add(V value) {
+        values.add(value);
+    }
+
+    @Override
+    public int size() {return values.size();}
+
+    @Override
+    public int[] nearest(V query, int k) {
+        NeighborHeap heap = new NeighborHeap(Math.max(0, Math.min(k, values.size())));
+        for (int i = 0; i < values.size(); i++) {
+            heap.offer(distance.applyAsDouble(query, values.get(i)), i);
+        }
+        return heap.sorted();
+    }
+}
@@ -0,0 +1,95 @@
+package learning.classifiers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.ToDoubleBiFunction;
+
+// An approximate nearest neighbor index using locality-sensitive hashing.
+// Each of several tables files every value in a bucket under a key that
+// nearby values are likely to share. A query looks only at the values in
+// its own bucket of each table, then ranks those candidates by their true
+// distance. More tables find more of the true neighbors at the cost of
+// more candidates per query; longer keys make buckets smaller and more
+// selective.
+//
+// When the buckets hold fewer than k candidates, nearest() falls back to
+// measuring every value, so it always returns min(k, size()) values.
+public abstract class LshIndex<V> implements NeighborIndex<V> {
+    private ArrayList<V> values = new ArrayList<>();
+    private ArrayList<HashMap<Long, ArrayList<Integer>>> tables = new ArrayList<>();
+    private ToDoubleBiFunction<V, V> distance;
+
+    public LshIndex(ToDoubleBiFunction<V, V> distance, int numTables) {
+        if (numTables < 1) {
+            throw new IllegalArgumentException("Need at least one table, got " + numTables);
+        }
+        this.distance = distance;
+        for (int t = 0; t < numTables; t++) {
+            tables.add(new HashMap<>());
+        }
+    }
+
+    // Post: Returns the key of value in each table
+    protected abstract long[] keys(V value);
+
+    public int getNumTables() {return tables.size();}
+
+    @Override
+    public void add(V value) {
+        int i = values.size();
+        values.add(value);
+        long[] keys = keys(value);
+        for (int t = 0; t < tables.size(); t++) {
+            tables.get(t).computeIfAbsent(keys[t], key -> new ArrayList<>()).add(i);
+        }
+    }
+
+    @Override
+    public int size() {return values.size();}
+
+    // Post: Returns the numbers of the values sharing a bucket with query in
+    //       at least one table, in ascending order
+    public int[] candidates(V query) {
+        long[] seen = new long[(values.size() + 63) / 64];
+        int numCandidates = 0;
+        long[] keys = keys(query);
+        for (int t = 0; t < tables.size(); t++) {
+            ArrayList<Integer> bucket = tables.get(t).get(keys[t]);
+            if (bucket != null) {
+                for (int i: bucket) {
+                    if ((seen[i >>> 6] & (1L << i)) == 0) {
+                        seen[i >>> 6] |= 1L << i;
+                        numCandidates += 1;
+                    }
+                }
+            }
+        }
+        int[] result = new int[numCandidates];
+        int n = 0;
+        for (int w = 0; w < seen.length; w++) {
+            for (long bits = seen[w]; bits != 0; bits &= bits - 1) {
+                result[n++] = 64 * w + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int[] nearest(V query, int k) {
+        NeighborHeap heap = new NeighborHeap(Math.max(0, Math.min(k, values.size())));
+        if (heap.capacity() == 0) {
+            return heap.sorted();
+        }
+        int[] candidates = candidates(query);
+        if (candidates.length < heap.capacity()) {
+            for (int i = 0; i < values.size(); i++) {
+                heap.offer(distance.applyAsDouble(query, values.get(i)), i);
+            }
+        } else {
+            for (int i: candidates) {
+                heap.offer(distance.applyAsDouble(query, values.get(i)), i);
+            }
+        }
+        return heap.sorted();
+    }
+}
@@ -1,26 +1,50 @@
 package learning.classifiers;
 
+import core.Codec;
 import core.Duple;
-import learning.core.Classifier;
-import learning.core.Histogram;
+import core.ModelReader;
+import core.ModelWriter;
+import learning.core.OnlineClassifier;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.function.Function;
 
-public class NaiveBayes<V,L,F> implements Classifier<V,L> {
-    // Each entry represents P(Feature | Label)
-    // We want to know P(Label | Features). That means calculating P(Feature | Label) * P(Label) / P(Feature)
-    // P(Feature) is invariant to the label and is generally ignored.
-    // But we could do what we did with Markov chains, and calculate 1 / sum(P(Feature|Label)) for P(Label) / P(Feature)
+public class NaiveBayes<V,L,F> implements OnlineClassifier<V,L> {
+    private final static int FORMAT_VERSION = 1;
 
-    // Each entry represents P(Feature | Label)
-    private LinkedHashMap<L,Histogram<F>> featuresByLabel = new LinkedHashMap<>();
+    // We want to know P(Label | Features), which is proportional to
+    // P(Label) * product of P(Feature | Label) over the features.
+    // Multiplying hundreds of small probabilities underflows, so we add their
+    // logarithms instead.
+    //
+    // With Laplace smoothing, P(Feature | Label) = (count + 1) / (total + numFeatures),
+    // where count is how often the feature appeared with the label and total
+    // is how many features appeared with the label. Its log splits into
+    // log(count + 1), kept in a dense table that training updates cell by
+    // cell, minus log(total + numFeatures), which is the same for every
+    // feature of a label and is computed once per label when classifying.
+    // The smoothing is in the table from the start: an unseen pair has
+    // count 0 and log(0 + 1) = 0, which is what a new array holds. So
+    // training can continue at any time without recompiling anything.
 
-    // Each entry represents P(Label)
-    private Histogram<L> priors = new Histogram<>();
+    // Features and labels are numbered in the order they are first seen.
+    private HashMap<F,Integer> featureIds = new HashMap<>();
+    private HashMap<L,Integer> labelIds = new HashMap<>();
+    private ArrayList<L> labels = new ArrayList<>();
+
+    // counts[label][feature] and logCounts[label][feature] = log(counts + 1).
+    // Rows have room for more features than have been seen.
+    private int[][] counts = new int[0][];
+    private double[][] logCounts = new double[0][];
+
+    // Features seen with each label, and values seen with each label
+    private long[] totals = new long[0];
+    private int[] priors = new int[0];
+    private int numValues = 0;
 
     // Given a value, this function returns a list of features and counts of those features.
     private Function<V,ArrayList<Duple<F,Integer>>> allFeaturesFrom;
@@ -29,25 +53,171 @@ public class NaiveBayes<V,L,F> implements Classifier<V,L> {
         this.allFeaturesFrom = allFeaturesFrom;
     }
 
-    // In the training process, we accumulate data to calculate P(Feature), P(Label), and P(Feature | Label).
-    // For each data item:
-    // * Increment the prior count for the item's label.
-    // * For each feature in the item (determined by calling allFeaturesFrom on the item's value)
-    //   * Increment the feature count for the item's label by the number of appearances of the feature.
+    // Adds the counts from data to those already learned, so a model can be
+    // trained a batch at a time.
     @Override
     public void train(ArrayList<Duple<V, L>> data) {
-        // Your code here
+        partialTrain(data);
+    }
+
+    @Override
+    public void learnOne(V value, L label) {
+        int l = labelIdFor(label);
+        priors[l] += 1;
+        numValues += 1;
+        for (Duple<F,Integer> feature: allFeaturesFrom.apply(value)) {
+            int f = featureIdFor(feature.getFirst());
+            counts[l][f] += feature.getSecond();
+            logCounts[l][f] = Math.log(counts[l][f] + 1);
+            totals[l] += feature.getSecond();
+        }
     }
 
-    // To classify:
-    // * For each label:
-    //   * Calculate the product of P(Label) * (P(Label | Feature) for all features)
-    //     * In principle, we should divide by P(Feature). In practice, we don't, because it is the
-    //       same value for all labels.
-    // * Whichever label produces the highest product is the classification.
+    // Features never seen in training say nothing about the label and are
+    // ignored. Ties go to the label seen first in training.
     @Override
     public L classify(V value) {
-        // Your code here.
-        return null;
+        if (labels.isEmpty()) {
+            throw new IllegalStateException("Not trained");
+        }
+        ArrayList<Duple<F,Integer>> features = allFeaturesFrom.apply(value);
+        int[] ids = new int[features.size()];
+        int[] featureCounts = new int[features.size()];
+        int numKnown = 0;
+        long totalCount = 0;
+        for (Duple<F,Integer> feature: features) {
+            Integer f = featureIds.get(feature.getFirst());
+            if (f != null) {
+                ids[numKnown] = f;
+                featureCounts[numKnown] = feature.getSecond();
+                totalCount += feature.getSecond();
+                numKnown += 1;
+            }
+        }
+
+        int best = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int label = 0; label < labels.size(); label++) {
+            double[] row = logCounts[label];
+            double score = 0;
+            for (int i = 0; i < numKnown; i++) {
+                score += featureCounts[i] * row[ids[i]];
+            }
+            score -= totalCount * Math.log(totals[label] + featureIds.size());
+            score += Math.log((double)priors[label] / numValues);
+            if (best < 0 || score > bestScore) {
+                best = label;
+                bestScore = score;
+            }
+        }
+        return labels.get(best);
+    }
+
+    // Post: Writes the counts, with each feature and label by its codec
+    public void writeTo(ModelWriter out, Codec<L> labelCodec, Codec<F> featureCodec) {
+        out.writeSection("NaiveBayes", FORMAT_VERSION);
+        out.writeInt(labels.size());
+        for (L label: labels) {
+            labelCodec.write(out, label);
+        }
+        out.writeInts(priors);
+        out.writeLongs(totals, 0, totals.length);
+        out.writeInt(numValues);
+        ArrayList<F> features = new ArrayList<>(Collections.nCopies(featureIds.size(), null));
+        featureIds.forEach((feature, id) -> features.set(id, feature));
+        out.writeInt(features.size());
+        for (F feature: features) {
+            featureCodec.write(out, feature);
+        }
+        for (int[] row: counts) {
+            out.writeInts(row, 0, features.size());
+        }
+    }
+
+    // Post: Replaces what this has learned with what in holds; training
+    //       can continue from there. A file whose tables do not fit
+    //       together is an IOException, and leaves this as it was.
+    public void readFrom(ModelReader in, Codec<L> labelCodec, Codec<F> featureCodec) throws IOException {
+        in.readSection("NaiveBayes", FORMAT_VERSION);
+        int numLabels = in.readInt();
+        HashMap<L,Integer> labelIds = new HashMap<>();
+        ArrayList<L> labels = new ArrayList<>();
+        for (int i = 0; i < numLabels; i++) {
+            L label = labelCodec.read(in);
+            labelIds.put(label, i);
+            labels.add(label);
+        }
+        int[] priors = in.readInts();
+        long[] totals = in.readLongs();
+        if (labelIds.size() != numLabels || priors.length != numLabels || totals.length != numLabels) {
+            throw new IOException("Expected " + numLabels + " distinct labels, priors and totals, found "
+                    + labelIds.size() + ", " + priors.length + " and " + totals.length);
+        }
+        int numValues = in.readInt();
+        int numFeatures = in.readInt();
+        HashMap<F,Integer> featureIds = new HashMap<>();
+        for (int i = 0; i < numFeatures; i++) {
+            featureIds.put(featureCodec.read(in), i);
+        }
+        if (featureIds.size() != numFeatures) {
+            throw new IOException("Expected " + numFeatures + " distinct features, found " + featureIds.size());
+        }
+        int width = Math.max(16, numFeatures);
+        int[][] counts = new int[numLabels][];
+        double[][] logCounts = new double[numLabels][];
+        for (int label = 0; label < numLabels; label++) {
+            int[] row = in.readInts();
+            if (row.length != numFeatures) {
+                throw new IOException("Expected " + numFeatures + " counts for label " + label + ", found " + row.length);
+            }
+            counts[label] = Arrays.copyOf(row, width);
+            logCounts[label] = new double[width];
+            for (int f = 0; f < numFeatures; f++) {
+                logCounts[label][f] = Math.log(counts[label][f] + 1);
+            }
+        }
+
+        this.labelIds = labelIds;
+        this.labels = labels;
+        this.priors = priors;
+        this.totals = totals;
+        this.numValues = numValues;
+        this.featureIds = featureIds;
+        this.counts = counts;
+        this.logCounts = logCounts;
+    }
+
+    private int labelIdFor(L label) {
+        Integer id = labelIds.get(label);
+        if (id != null) {
+            return id;
+        }
+        int n = labels.size();
+        labelIds.put(label, n);
+        labels.add(label);
+        int width = n == 0 ? 16 : counts[0].length;
+        counts = Arrays.copyOf(counts, n + 1);
+        counts[n] = new int[width];
+        logCounts = Arrays.copyOf(logCounts, n + 1);
+        logCounts[n] = new double[width];
+        totals = Arrays.copyOf(totals, n + 1);
+        priors = Arrays.copyOf(priors, n + 1);
+        return n;
+    }
+
+    private int featureIdFor(F feature) {
+        Integer id = featureIds.get(feature);
+        if (id != null) {
+            return id;
+        }
+        int n = featureIds.size();
+        featureIds.put(feature, n);
+        if (n == counts[0].length) {
+            for (int label = 0; label < labels.size(); label++) {
+                counts[label] = Arrays.copyOf(counts[label], 2 * n);
+                logCounts[label] = Arrays.copyOf(logCounts[label], 2 * n);
+            }
+        }
+        return n;
     }
 }
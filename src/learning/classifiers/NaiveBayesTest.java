@@ -1,12 +1,19 @@
 package learning.classifiers;
 
+import core.Codec;
 import core.Duple;
+import core.ModelReader;
+import core.ModelWriter;
 import learning.core.Histogram;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
 
 public class NaiveBayesTest {
     @Test
@@ -38,4 +45,92 @@ public class NaiveBayesTest {
         assertEquals("B", nb.classify("yghi"));
         assertEquals("A", nb.classify("aghi"));
     }
+
+    @Test
+    public void testIncrementalAndLong() {
+        ArrayList<Duple<String,String>> first = new ArrayList<>();
+        first.add(new Duple<>("abad", "A"));
+        first.add(new Duple<>("defe", "B"));
+        ArrayList<Duple<String,String>> second = new ArrayList<>();
+        second.add(new Duple<>("wxyx", "B"));
+        second.add(new Duple<>("adax", "A"));
+
+        NaiveBayes<String,String,Character> nb = new NaiveBayes<>(NaiveBayesTest::letterCounts);
+        nb.train(first);
+        assertEquals("B", nb.classify("e"));
+        nb.train(second);
+        assertEquals("B", nb.classify("yghi"));
+        assertEquals("A", nb.classify("aghi"));
+
+        NaiveBayes<String,String,Character> online = new NaiveBayes<>(NaiveBayesTest::letterCounts);
+        online.partialTrain(first);
+        for (Duple<String,String> datum: second) {
+            online.learnOne(datum.getFirst(), datum.getSecond());
+        }
+        for (String s: new String[]{"yghi", "aghi", "e", "wax", "q"}) {
+            assertEquals(nb.classify(s), online.classify(s));
+        }
+
+        // A product of this many probabilities would underflow to 0 for every label.
+        assertEquals("A", nb.classify("a".repeat(5000) + "x".repeat(2000)));
+        assertEquals("B", nb.classify("a".repeat(100) + "x".repeat(5000)));
+    }
+
+    private static ArrayList<Duple<Character,Integer>> letterCounts(String s) {
+        Histogram<Character> h = new Histogram<>();
+        for (char c: s.toCharArray()) {
+            h.bump(c);
+        }
+        ArrayList<Duple<Character,Integer>> result = new ArrayList<>();
+        for (Character c: h) {
+            result.add(new Duple<>(c, h.getCountFor(c)));
+        }
+        return result;
+    }
+
+    @Test
+    public void testSaveLoad() throws IOException {
+        ArrayList<Duple<String,String>> data = new ArrayList<>();
+        data.add(new Duple<>("abad", "A"));
+        data.add(new Duple<>("defe", "B"));
+        NaiveBayes<String,String,Character> nb = new NaiveBayes<>(NaiveBayesTest::letterCounts);
+        nb.train(data);
+
+        Path file = Files.createTempFile("nb", ".model");
+        try {
+            try (ModelWriter out = new ModelWriter(file)) {
+                nb.writeTo(out, Codec.STRING, Codec.CHARACTER);
+            }
+            NaiveBayes<String,String,Character> loaded = new NaiveBayes<>(NaiveBayesTest::letterCounts);
+            try (ModelReader in = new ModelReader(file)) {
+                loaded.readFrom(in, Codec.STRING, Codec.CHARACTER);
+            }
+            for (String s: new String[]{"abad", "defe", "e", "aq", "zzz"}) {
+                assertEquals(nb.classify(s), loaded.classify(s));
+            }
+
+            nb.learnOne("wxyx", "B");
+            loaded.learnOne("wxyx", "B");
+            nb.learnOne("adax", "A");
+            loaded.learnOne("adax", "A");
+            for (String s: new String[]{"yghi", "aghi", "e", "wax", "q"}) {
+                assertEquals(nb.classify(s), loaded.classify(s));
+            }
+
+            try (ModelWriter out = new ModelWriter(file)) {
+                out.writeSection("NaiveBayes", 1);
+                out.writeInt(2);
+                out.writeString("A");
+                out.writeString("B");
+                out.writeInts(new int[]{1});
+                out.writeLongs(new long[]{4, 4}, 0, 2);
+            }
+            try (ModelReader in = new ModelReader(file)) {
+                assertThrows(IOException.class, () -> loaded.readFrom(in, Codec.STRING, Codec.CHARACTER));
+            }
+            assertEquals(nb.classify("yghi"), loaded.classify("yghi"));
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
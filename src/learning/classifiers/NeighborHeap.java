@@ -0,0 +1,83 @@
+package learning.classifiers;
+
+// The k nearest neighbors found so far, as a binary max-heap of parallel
+// distance and index arrays, so that the farthest can be replaced in
+// O(log k) without allocating.
+public class NeighborHeap {
+    private double[] distances;
+    private int[] indices;
+    private int size = 0;
+
+    public NeighborHeap(int k) {
+        distances = new double[k];
+        indices = new int[k];
+    }
+
+    public int size() {return size;}
+
+    public int capacity() {return distances.length;}
+
+    public boolean isFull() {return size == distances.length;}
+
+    // Pre: size() > 0
+    // Post: Returns the distance a new neighbor must beat to get in once full
+    public double worstDistance() {return distances[0];}
+
+    public void offer(double distance, int index) {
+        if (size < distances.length) {
+            int i = size++;
+            while (i > 0 && after(distance, index, (i - 1) / 2)) {
+                move((i - 1) / 2, i);
+                i = (i - 1) / 2;
+            }
+            distances[i] = distance;
+            indices[i] = index;
+        } else if (size > 0 && after(distances[0], indices[0], distance, index)) {
+            siftDown(distance, index, size);
+        }
+    }
+
+    // Post: Returns the indices held, nearest first, and empties the heap
+    public int[] sorted() {
+        int[] result = new int[size];
+        for (int n = size; n > 0; n--) {
+            result[n - 1] = indices[0];
+            siftDown(distances[n - 1], indices[n - 1], n - 1);
+        }
+        size = 0;
+        return result;
+    }
+
+    // Places (distance, index) at the root of the heap of the first n
+    // entries and moves it down to where it belongs.
+    private void siftDown(double distance, int index, int n) {
+        int i = 0;
+        for (int child = 1; child < n; child = 2 * i + 1) {
+            if (child + 1 < n && after(distances[child + 1], indices[child + 1], distances[child], indices[child])) {
+                child += 1;
+            }
+            if (!after(distances[child], indices[child], distance, index)) {
+                break;
+            }
+            move(child, i);
+            i = child;
+        }
+        if (n > 0) {
+            distances[i] = distance;
+            indices[i] = index;
+        }
+    }
+
+    private boolean after(double distance, int index, int slot) {
+        return after(distance, index, distances[slot], indices[slot]);
+    }
+
+    private static boolean after(double d1, int i1, double d2, int i2) {
+        return d1 > d2 || (d1 == d2 && i1 > i2);
+    }
+
+    private void move(int from, int to) {
+        distances[to] = distances[from];
+        indices[to] = indices[from];
+    }
+}
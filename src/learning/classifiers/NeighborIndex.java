@@ -0,0 +1,20 @@
+package learning.classifiers;
+
+// A collection of values that can find the values nearest to a query.
+// Values are numbered in the order they were added. Once build() has been
+// called, nearest() may be called from several threads at once, as long as
+// no values are added meanwhile.
+public interface NeighborIndex<V> {
+    void add(V value);
+
+    // Post: Prepares any search structure over the values added so far. An
+    //       index that needs none can leave this as it is.
+    default void build() {}
+
+    int size();
+
+    // Post: Returns the numbers of the min(k, size()) values nearest to
+    //       query, nearest first; equally distant values in the order they
+    //       were added
+    int[] nearest(V query, int k);
+}
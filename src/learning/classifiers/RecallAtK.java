@@ -0,0 +1,95 @@
+package learning.classifiers;
+
+import java.util.List;
+
+// Measures an approximate NeighborIndex against an exact one over a fixed
+// set of queries: recall@k is the portion of the exact k nearest that the
+// approximate index also returns, and latency is the mean wall-clock time
+// per query. The exact answers are found once, when this is constructed.
+public class RecallAtK<V> {
+    private List<V> queries;
+    private int k;
+    private int[][] expected;
+    private double exactMicros;
+
+    // Pre: exact already holds the values to search
+    public RecallAtK(NeighborIndex<V> exact, List<V> queries, int k) {
+        this.queries = queries;
+        this.k = k;
+        expected = new int[queries.size()][];
+        exact.build();
+        long before = System.nanoTime();
+        for (int q = 0; q < queries.size(); q++) {
+            expected[q] = exact.nearest(queries.get(q), k);
+        }
+        exactMicros = microsPerQuery(before);
+    }
+
+    public static class Result {
+        private double recall;
+        private double micros;
+        private double exactMicros;
+        private double meanCandidates;
+
+        Result(double recall, double micros, double exactMicros, double meanCandidates) {
+            this.recall = recall;
+            this.micros = micros;
+            this.exactMicros = exactMicros;
+            this.meanCandidates = meanCandidates;
+        }
+
+        public double getRecall() {return recall;}
+        public double getMicrosPerQuery() {return micros;}
+        public double getExactMicrosPerQuery() {return exactMicros;}
+        public double getSpeedup() {return exactMicros / micros;}
+
+        // Post: Returns the mean number of candidates per query, or NaN if
+        //       the index measured was not an LshIndex
+        public double getMeanCandidates() {return meanCandidates;}
+
+        @Override
+        public String toString() {
+            return String.format("recall %.3f, %.1f us/query (exact %.1f us, %.2fx), %.1f candidates",
+                    recall, micros, exactMicros, getSpeedup(), meanCandidates);
+        }
+    }
+
+    // Pre: approx holds the same values, added in the same order, as the
+    //      exact index
+    public Result measure(NeighborIndex<V> approx) {
+        int[][] found = new int[queries.size()][];
+        approx.build();
+        long before = System.nanoTime();
+        for (int q = 0; q < queries.size(); q++) {
+            found[q] = approx.nearest(queries.get(q), k);
+        }
+        double micros = microsPerQuery(before);
+
+        int hits = 0, total = 0;
+        for (int q = 0; q < queries.size(); q++) {
+            total += expected[q].length;
+            for (int i: expected[q]) {
+                for (int j: found[q]) {
+                    if (i == j) {
+                        hits += 1;
+                        break;
+                    }
+                }
+            }
+        }
+
+        double meanCandidates = Double.NaN;
+        if (approx instanceof LshIndex<V> lsh) {
+            long numCandidates = 0;
+            for (V query: queries) {
+                numCandidates += lsh.candidates(query).length;
+            }
+            meanCandidates = (double)numCandidates / queries.size();
+        }
+        return new Result(total == 0 ? 1.0 : (double)hits / total, micros, exactMicros, meanCandidates);
+    }
+
+    private double microsPerQuery(long before) {
+        return (System.nanoTime() - before) / 1e3 / Math.max(1, queries.size());
+    }
+}
@@ -1,7 +1,9 @@
 package learning.classifiers;
 
 import core.Duple;
-import learning.core.Classifier;
+import learning.core.Histogram;
+import learning.core.OnlineClassifier;
+import learning.som.SOM;
 import learning.som.SOMPoint;
 import learning.som.SelfOrgMap;
 import learning.som.WeightedAverager;
@@ -11,50 +13,102 @@ import java.util.Collections;
 import java.util.function.Supplier;
 import java.util.function.ToDoubleBiFunction;
 
-public class SOMRecognizer<V, L> implements Classifier<V, L> {
+// Labels each node of a self-organizing map. Batch training labels a node
+// by a vote of the K training samples nearest to it. Online training keeps,
+// for each node, a count of the labels of the samples it best matched, and
+// labels it by the most common one, so memory depends only on the map size.
+// A value whose best node has no label yet takes the label of the nearest
+// labelled node on the map. Any SOM will do; a DenseSOMAdapter trains a
+// whole batch at once.
+public class SOMRecognizer<V, L> implements OnlineClassifier<V, L> {
     private L[][] labels;
-    private SelfOrgMap<V> som;
+    private Histogram<L>[][] votes;
+    private SOM<V> som;
     private ToDoubleBiFunction<V, V> distance;
 
     public final static int K = 11;
 
-    public SOMRecognizer(int mapSide, Supplier<V> makeDefault, ToDoubleBiFunction<V, V> distance, WeightedAverager<V> averager) {
+    @SuppressWarnings("unchecked")
+    public SOMRecognizer(SOM<V> som, ToDoubleBiFunction<V, V> distance) {
         this.distance = distance;
-        som = new SelfOrgMap<V>(mapSide, makeDefault, distance, averager);
-        labels = (L[][])new Object[mapSide][mapSide];
+        this.som = som;
+        labels = (L[][])new Object[som.getMapWidth()][som.getMapHeight()];
+        votes = (Histogram<L>[][])new Histogram<?>[som.getMapWidth()][som.getMapHeight()];
+        for (int x = 0; x < som.getMapWidth(); x++) {
+            for (int y = 0; y < som.getMapHeight(); y++) {
+                votes[x][y] = new Histogram<>();
+            }
+        }
+    }
+
+    public SOMRecognizer(int mapSide, Supplier<V> makeDefault, ToDoubleBiFunction<V, V> distance, WeightedAverager<V> averager) {
+        this(new SelfOrgMap<V>(mapSide, makeDefault, distance, averager), distance);
     }
 
     @Override
     public void train(ArrayList<Duple<V, L>> data) {
-        double prog = 0.0;
         ArrayList<Duple<V,L>> shuffleCopy = new ArrayList<>(data);
         Collections.shuffle(shuffleCopy);
+        ArrayList<V> values = new ArrayList<>(shuffleCopy.size());
+        for (Duple<V, L> sample: shuffleCopy) {
+            values.add(sample.getFirst());
+        }
+        som.trainAll(values);
         for (int i = 0; i < shuffleCopy.size(); i++) {
             Duple<V, L> sample = shuffleCopy.get(i);
-            som.train(sample.getFirst());
-            prog += 1.0 / (2.0 * shuffleCopy.size());
+            SOMPoint where = som.bestFor(sample.getFirst());
+            votes[where.x()][where.y()].bump(sample.getSecond());
         }
 
         for (int x = 0; x < som.getMapWidth(); x++) {
             for (int y = 0; y < som.getMapHeight(); y++) {
                 labels[x][y] = findLabelFor(som.getNode(x, y), K, shuffleCopy, distance);
-                prog += 1.0 / (2.0 * som.getMapHeight() * som.getMapWidth());
             }
         }
     }
 
-    // TODO: Perform a k-nearest-neighbor retrieval to return the label that
-    //  best matches the current node.
+    @Override
+    public void learnOne(V value, L label) {
+        SOMPoint where = som.train(value);
+        Histogram<L> nodeVotes = votes[where.x()][where.y()];
+        nodeVotes.bump(label);
+        labels[where.x()][where.y()] = nodeVotes.getPluralityWinner();
+    }
+
+    // Perform a k-nearest-neighbor retrieval to return the label that
+    // best matches the current node.
     public static <V,L> L findLabelFor(V currentNode, int k, ArrayList<Duple<V, L>> allSamples, ToDoubleBiFunction<V, V> distance) {
-        // Your code here
-        return null;
+        NeighborHeap nearest = new NeighborHeap(Math.min(k, allSamples.size()));
+        for (int i = 0; i < allSamples.size(); i++) {
+            nearest.offer(distance.applyAsDouble(currentNode, allSamples.get(i).getFirst()), i);
+        }
+        Histogram<L> labelVotes = new Histogram<>();
+        for (int i: nearest.sorted()) {
+            labelVotes.bump(allSamples.get(i).getSecond());
+        }
+        return labelVotes.getPluralityWinner();
     }
 
     @Override
     public L classify(V d) {
         SOMPoint where = som.bestFor(d);
-        return labels[where.x()][where.y()];
+        L label = labels[where.x()][where.y()];
+        return label != null ? label : nearestLabel(where);
+    }
+
+    private L nearestLabel(SOMPoint where) {
+        L best = null;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int x = 0; x < som.getMapWidth(); x++) {
+            for (int y = 0; y < som.getMapHeight(); y++) {
+                if (labels[x][y] != null && where.distanceTo(x, y) < bestDistance) {
+                    best = labels[x][y];
+                    bestDistance = where.distanceTo(x, y);
+                }
+            }
+        }
+        return best;
     }
 
-    public SelfOrgMap<V> getSOM() {return som;}
+    public SOM<V> getSOM() {return som;}
 }
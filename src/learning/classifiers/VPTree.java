@@ -0,0 +1,176 @@
+package learning.classifiers;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.function.ToDoubleBiFunction;
+
+// A vantage-point tree over values in any metric space. Each node picks a
+// vantage value and splits the rest at the median distance from it: the
+// inside half lies within radius of the vantage value and the outside half
+// at least radius away. By the triangle inequality a query at distance d
+// from the vantage value is at least d - radius from anything inside and
+// radius - d from anything outside, so a subtree whose bound is already
+// worse than the kth nearest found so far is skipped. Ties are never
+// pruned, so nearest() returns exactly what LinearScanIndex would.
+//
+// build() makes a new tree over every value added so far; Knn calls it at
+// the end of training. The arrays are never changed once built, and the
+// tree is published through a volatile field, so any number of threads may
+// call nearest() while no values are being added. Values added since the
+// last build() are measured one by one after the tree is searched.
+public class VPTree<V> implements NeighborIndex<V> {
+    private final static int LEAF_SIZE = 8;
+    private final static int LEAF = -1;
+
+    private ArrayList<V> values = new ArrayList<>();
+    private ToDoubleBiFunction<V, V> metric;
+    private Random random;
+    private volatile Tree tree = new Tree(0);
+
+    // The tree over values [0, size) is laid out in order: the node for
+    // range [lo, hi) has its vantage value at order[lo], the inside subtree
+    // at [lo + 1, split[lo]) and the outside subtree at [split[lo], hi).
+    // Ranges of at most LEAF_SIZE values are leaves, with split[lo] == LEAF.
+    private static class Tree {
+        final int size;
+        final int[] order;
+        final int[] split;
+        final double[] radius;
+
+        Tree(int size) {
+            this.size = size;
+            order = new int[size];
+            split = new int[size];
+            radius = new double[size];
+        }
+    }
+
+    // Pre: metric obeys the triangle inequality
+    public VPTree(ToDoubleBiFunction<V, V> metric, long seed) {
+        this.metric = metric;
+        this.random = new Random(seed);
+    }
+
+    public VPTree(ToDoubleBiFunction<V, V> metric) {
+        this(metric, 0);
+    }
+
+    @Override
+    public void add(V value) {
+        values.add(value);
+    }
+
+    @Override
+    public int size() {return values.size();}
+
+    @Override
+    public int[] nearest(V query, int k) {
+        Tree tree = this.tree;
+        NeighborHeap heap = new NeighborHeap(Math.max(0, Math.min(k, values.size())));
+        if (heap.capacity() > 0) {
+            if (tree.size > 0) {
+                search(tree, query, 0, tree.size, heap);
+            }
+            for (int i = tree.size; i < values.size(); i++) {
+                heap.offer(metric.applyAsDouble(query, values.get(i)), i);
+            }
+        }
+        return heap.sorted();
+    }
+
+    @Override
+    public synchronized void build() {
+        int n = values.size();
+        if (tree.size == n) {
+            return;
+        }
+        Tree building = new Tree(n);
+        for (int i = 0; i < n; i++) {
+            building.order[i] = i;
+        }
+        build(building, 0, n, new double[n]);
+        tree = building;
+    }
+
+    private void build(Tree tree, int lo, int hi, double[] distances) {
+        if (hi - lo <= LEAF_SIZE) {
+            if (hi > lo) {
+                tree.split[lo] = LEAF;
+            }
+            return;
+        }
+        swap(tree.order, lo, lo + random.nextInt(hi - lo), distances);
+        V vantage = values.get(tree.order[lo]);
+        for (int i = lo + 1; i < hi; i++) {
+            distances[i] = metric.applyAsDouble(vantage, values.get(tree.order[i]));
+        }
+        int middle = (lo + 1 + hi) / 2;
+        select(tree.order, lo + 1, hi, middle, distances);
+        tree.split[lo] = middle;
+        tree.radius[lo] = distances[middle];
+        build(tree, lo + 1, middle, distances);
+        build(tree, middle, hi, distances);
+    }
+
+    // Post: Rearranges [lo, hi) so that position nth holds the value it
+    //       would hold if sorted by distance, with nothing farther before it
+    //       and nothing nearer after it
+    private void select(int[] order, int lo, int hi, int nth, double[] distances) {
+        while (hi - lo > 1) {
+            double pivot = distances[lo + random.nextInt(hi - lo)];
+            int less = lo, i = lo, greater = hi;
+            while (i < greater) {
+                if (distances[i] < pivot) {
+                    swap(order, less++, i++, distances);
+                } else if (distances[i] > pivot) {
+                    swap(order, i, --greater, distances);
+                } else {
+                    i++;
+                }
+            }
+            if (nth < less) {
+                hi = less;
+            } else if (nth >= greater) {
+                lo = greater;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void swap(int[] order, int i, int j, double[] distances) {
+        int o = order[i];
+        order[i] = order[j];
+        order[j] = o;
+        double d = distances[i];
+        distances[i] = distances[j];
+        distances[j] = d;
+    }
+
+    private void search(Tree tree, V query, int lo, int hi, NeighborHeap heap) {
+        int[] order = tree.order;
+        if (tree.split[lo] == LEAF) {
+            for (int i = lo; i < hi; i++) {
+                heap.offer(metric.applyAsDouble(query, values.get(order[i])), order[i]);
+            }
+            return;
+        }
+        double d = metric.applyAsDouble(query, values.get(order[lo]));
+        heap.offer(d, order[lo]);
+        int middle = tree.split[lo];
+        double r = tree.radius[lo];
+        if (d < r) {
+            searchIfClose(tree, query, lo + 1, middle, d - r, heap);
+            searchIfClose(tree, query, middle, hi, r - d, heap);
+        } else {
+            searchIfClose(tree, query, middle, hi, r - d, heap);
+            searchIfClose(tree, query, lo + 1, middle, d - r, heap);
+        }
+    }
+
+    private void searchIfClose(Tree tree, V query, int lo, int hi, double lowerBound, NeighborHeap heap) {
+        if (lo < hi && (!heap.isFull() || lowerBound <= heap.worstDistance())) {
+            search(tree, query, lo, hi, heap);
+        }
+    }
+}
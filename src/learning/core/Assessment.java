@@ -4,6 +4,8 @@ import core.Duple;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Supplier;
 
 public class Assessment<L> {
@@ -15,20 +17,48 @@ public class Assessment<L> {
     public L getLabel(int i) {return ordered.get(i);}
     public int getTotalFor(L label) {return total.getCountFor(label);}
     public int getCorrectFor(L label) {return correct.getCountFor(label);}
+    public int getTotal() {return total.getTotalCounts();}
+    public int getTotalCorrect() {return correct.getTotalCounts();}
 
-    public <V> void assess(Classifier<V, L> classifier, Duple<V,L> test) {
-        total.bump(test.getSecond());
-        if (!ordered.contains(test.getSecond())) {
-            ordered.add(test.getSecond());
-        }
-        if (classifier.classify(test.getFirst()).equals(test.getSecond())) {
-            correct.bump(test.getSecond());
+    // Post: Returns an Assessment holding the counts of all of assessments,
+    //       with labels in the order they first appear
+    public static <L> Assessment<L> merge(List<Assessment<L>> assessments) {
+        Assessment<L> result = new Assessment<>();
+        for (Assessment<L> assessment: assessments) {
+            for (L label: assessment.ordered) {
+                if (!result.ordered.contains(label)) {
+                    result.ordered.add(label);
+                }
+                result.total.bumpBy(label, assessment.getTotalFor(label));
+                result.correct.bumpBy(label, assessment.getCorrectFor(label));
+            }
         }
+        return result;
+    }
+
+    public <V> void assess(Classifier<V, L> classifier, Duple<V,L> test) {
+        record(test.getSecond(), classifier.classify(test.getFirst()));
     }
 
+    // Post: Classifies all of tests in one batch with classifyAll()
     public <V> void assessAll(Classifier<V,L> classifier, ArrayList<Duple<V,L>> tests) {
+        ArrayList<V> values = new ArrayList<>(tests.size());
         for (Duple<V,L> test: tests) {
-            assess(classifier, test);
+            values.add(test.getFirst());
+        }
+        ArrayList<L> classified = classifier.classifyAll(values);
+        for (int i = 0; i < tests.size(); i++) {
+            record(tests.get(i).getSecond(), classified.get(i));
+        }
+    }
+
+    private void record(L expected, L classified) {
+        total.bump(expected);
+        if (!ordered.contains(expected)) {
+            ordered.add(expected);
+        }
+        if (classified.equals(expected)) {
+            correct.bump(expected);
         }
     }
 
@@ -52,20 +82,13 @@ public class Assessment<L> {
         return partitions;
     }
 
-    public static <V,L> ArrayList<Assessment<L>> multiTrial(Supplier<Classifier<V, L>> classifierMaker, ArrayList<ArrayList<Duple<V,L>>> partitions) {
+    // Post: Runs the folds in parallel with CrossValidation and returns
+    //       their assessments in partition order
+    public static <V,L> ArrayList<Assessment<L>> multiTrial(Supplier<Classifier<V, L>> classifierMaker, ArrayList<ArrayList<Duple<V,L>>> partitions)
+            throws InterruptedException, ExecutionException {
         ArrayList<Assessment<L>> results = new ArrayList<>();
-        for (int i = 0; i < partitions.size(); i++) {
-            ArrayList<Duple<V,L>> training = new ArrayList<>();
-            for (int j = 0; j < partitions.size(); j++) {
-                if (i != j) {
-                    training.addAll(partitions.get(j));
-                }
-            }
-            Classifier<V,L> classifier = classifierMaker.get();
-            classifier.train(training);
-            Assessment<L> assessment = new Assessment<>();
-            assessment.assessAll(classifier, partitions.get(i));
-            results.add(assessment);
+        for (CrossValidation.Fold<L> fold: new CrossValidation<>(classifierMaker).run(partitions)) {
+            results.add(fold.getAssessment());
         }
         return results;
     }
@@ -1,10 +1,14 @@
 package learning.core;
 
 import core.Duple;
+import learning.classifiers.Knn;
 import org.junit.Test;
 
 import java.util.ArrayList;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 public class AssessmentTest {
     @Test
     public void testPartition() {
@@ -20,4 +24,58 @@ public class AssessmentTest {
             assert parts.get(i).size() == partitionable.size() / 2;
         }
     }
+
+    @Test
+    public void testClassifyAll() {
+        Classifier<Integer,String> parity = new Classifier<>() {
+            @Override
+            public String classify(Integer value) {return value % 2 == 0 ? "even" : "odd";}
+
+            @Override
+            public void train(ArrayList<Duple<Integer, String>> data) {}
+        };
+        ArrayList<Integer> values = new ArrayList<>();
+        ArrayList<Duple<Integer,String>> tests = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            values.add(i);
+            tests.add(new Duple<>(i, i % 3 == 0 ? "even" : "odd"));
+        }
+        ArrayList<String> classified = parity.classifyAll(values);
+        assertEquals(values.size(), classified.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(parity.classify(values.get(i)), classified.get(i));
+        }
+
+        Assessment<String> assessment = parity.correctPerLabel(tests);
+        Assessment<String> oneByOne = new Assessment<>();
+        for (Duple<Integer,String> test: tests) {
+            oneByOne.assess(parity, test);
+        }
+        for (String label: new String[]{"even", "odd"}) {
+            assertEquals(oneByOne.getTotalFor(label), assessment.getTotalFor(label));
+            assertEquals(oneByOne.getCorrectFor(label), assessment.getCorrectFor(label));
+        }
+        assertEquals(334, assessment.getTotalFor("even"));
+    }
+
+    @Test
+    public void testCrossValidation() throws Exception {
+        ArrayList<Duple<Double,String>> samples = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            samples.add(new Duple<>((double)i, i < 50 ? "low" : "high"));
+        }
+        ArrayList<ArrayList<Duple<Double,String>>> partitions = Assessment.partition(5, samples);
+        ArrayList<CrossValidation.Fold<String>> folds =
+                new CrossValidation<Double,String>(() -> new Knn<>(3, (d1, d2) -> Math.abs(d1 - d2))).run(partitions);
+        assertEquals(5, folds.size());
+        for (int i = 0; i < folds.size(); i++) {
+            assertEquals(partitions.get(i).size(), folds.get(i).getNumTested());
+            assertEquals(samples.size() - partitions.get(i).size(), folds.get(i).getNumTrained());
+            assertEquals(partitions.get(i).size(), folds.get(i).getAssessment().getTotal());
+        }
+        Assessment<String> combined = CrossValidation.combined(folds);
+        assertEquals(50, combined.getTotalFor("low"));
+        assertEquals(50, combined.getTotalFor("high"));
+        assertTrue(combined.getTotalCorrect() >= 96);
+    }
 }
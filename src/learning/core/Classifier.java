@@ -4,18 +4,34 @@ import core.Duple;
 
 import javax.swing.*;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 public interface Classifier<V, L> {
     L classify(V value);
 
     void train(ArrayList<Duple<V, L>> data);
 
+    // Post: Returns the classification of each value, in order. By default
+    //       the values are split into chunks that the common ForkJoinPool
+    //       classifies in parallel, so classify() must be safe to call from
+    //       several threads at once; a classifier for which it is not, or
+    //       that can do better with a whole batch, should override this.
+    @SuppressWarnings("unchecked")
+    default ArrayList<L> classifyAll(List<V> values) {
+        Object[] results = new Object[values.size()];
+        ForkJoinPool.commonPool().invoke(new ClassifyAllTask<>(this, values, results, 0, values.size()));
+        ArrayList<L> classified = new ArrayList<>(results.length);
+        for (Object result: results) {
+            classified.add((L)result);
+        }
+        return classified;
+    }
+
     default Assessment<L> correctPerLabel(ArrayList<Duple<V,L>> testData) {
         Assessment<L> result = new Assessment<>();
-        for (Duple<V,L> test: testData) {
-            result.assess(this, test);
-        }
+        result.assessAll(this, testData);
         return result;
     }
 
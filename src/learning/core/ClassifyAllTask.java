@@ -0,0 +1,37 @@
+package learning.core;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+// Classifies values[from, to) into results, splitting the range in half
+// until it is at most CHUNK_SIZE values long.
+class ClassifyAllTask<V, L> extends RecursiveAction {
+    private final static long serialVersionUID = 1L;
+    final static int CHUNK_SIZE = 32;
+
+    private Classifier<V, L> classifier;
+    private List<V> values;
+    private Object[] results;
+    private int from, to;
+
+    ClassifyAllTask(Classifier<V, L> classifier, List<V> values, Object[] results, int from, int to) {
+        this.classifier = classifier;
+        this.values = values;
+        this.results = results;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from > CHUNK_SIZE) {
+            int middle = (from + to) / 2;
+            invokeAll(new ClassifyAllTask<>(classifier, values, results, from, middle),
+                    new ClassifyAllTask<>(classifier, values, results, middle, to));
+        } else {
+            for (int i = from; i < to; i++) {
+                results[i] = classifier.classify(values.get(i));
+            }
+        }
+    }
+}
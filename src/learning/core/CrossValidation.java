@@ -0,0 +1,108 @@
+package learning.core;
+
+import core.Duple;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+// k-fold cross-validation with the folds run at the same time. Fold i trains
+// a fresh classifier on every partition but i and tests it on partition i.
+// Each fold records how long training and testing took.
+public class CrossValidation<V, L> {
+    private Supplier<Classifier<V, L>> classifierMaker;
+    private ExecutorService executor;
+
+    // Pre: classifierMaker may be called from several threads at once
+    public CrossValidation(Supplier<Classifier<V, L>> classifierMaker, ExecutorService executor) {
+        this.classifierMaker = classifierMaker;
+        this.executor = executor;
+    }
+
+    public CrossValidation(Supplier<Classifier<V, L>> classifierMaker) {
+        this(classifierMaker, ForkJoinPool.commonPool());
+    }
+
+    public static class Fold<L> {
+        private Assessment<L> assessment;
+        private int numTrained, numTested;
+        private long trainNanos, testNanos;
+
+        Fold(Assessment<L> assessment, int numTrained, int numTested, long trainNanos, long testNanos) {
+            this.assessment = assessment;
+            this.numTrained = numTrained;
+            this.numTested = numTested;
+            this.trainNanos = trainNanos;
+            this.testNanos = testNanos;
+        }
+
+        public Assessment<L> getAssessment() {return assessment;}
+        public int getNumTrained() {return numTrained;}
+        public int getNumTested() {return numTested;}
+        public double getTrainMillis() {return trainNanos / 1e6;}
+        public double getTestMillis() {return testNanos / 1e6;}
+        public double getTestSamplesPerSecond() {return numTested * 1e9 / Math.max(1, testNanos);}
+
+        @Override
+        public String toString() {
+            return String.format("trained on %d in %.0f ms, tested %d in %.0f ms (%.0f/sec), %.1f%% correct",
+                    numTrained, getTrainMillis(), numTested, getTestMillis(), getTestSamplesPerSecond(),
+                    100.0 * assessment.getTotalCorrect() / Math.max(1, assessment.getTotal()));
+        }
+    }
+
+    // Post: Returns the folds in partition order
+    public ArrayList<Fold<L>> run(ArrayList<ArrayList<Duple<V,L>>> partitions)
+            throws InterruptedException, ExecutionException {
+        List<Callable<Fold<L>>> tasks = new ArrayList<>();
+        for (int i = 0; i < partitions.size(); i++) {
+            int testing = i;
+            tasks.add(() -> runFold(partitions, testing));
+        }
+        ArrayList<Fold<L>> folds = new ArrayList<>();
+        for (Future<Fold<L>> fold: executor.invokeAll(tasks)) {
+            folds.add(fold.get());
+        }
+        return folds;
+    }
+
+    // Post: Returns one Assessment combining all of folds
+    public static <L> Assessment<L> combined(List<Fold<L>> folds) {
+        ArrayList<Assessment<L>> assessments = new ArrayList<>();
+        for (Fold<L> fold: folds) {
+            assessments.add(fold.getAssessment());
+        }
+        return Assessment.merge(assessments);
+    }
+
+    private Fold<L> runFold(ArrayList<ArrayList<Duple<V,L>>> partitions, int testing) {
+        // Classifier.train() takes an ArrayList, so the training set is built
+        // once here, at its final size, from the other partitions.
+        int numTrained = 0;
+        for (int j = 0; j < partitions.size(); j++) {
+            if (j != testing) {
+                numTrained += partitions.get(j).size();
+            }
+        }
+        ArrayList<Duple<V,L>> training = new ArrayList<>(numTrained);
+        for (int j = 0; j < partitions.size(); j++) {
+            if (j != testing) {
+                training.addAll(partitions.get(j));
+            }
+        }
+
+        Classifier<V,L> classifier = classifierMaker.get();
+        long start = System.nanoTime();
+        classifier.train(training);
+        long trained = System.nanoTime();
+        Assessment<L> assessment = new Assessment<>();
+        assessment.assessAll(classifier, partitions.get(testing));
+        long tested = System.nanoTime();
+        return new Fold<>(assessment, numTrained, partitions.get(testing).size(), trained - start, tested - trained);
+    }
+}
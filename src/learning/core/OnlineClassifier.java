@@ -0,0 +1,20 @@
+package learning.core;
+
+import core.Duple;
+
+// A Classifier that can keep learning one labelled value at a time, after
+// or instead of train(). Classifiers that can only be trained on a whole
+// data set at once implement Classifier alone.
+public interface OnlineClassifier<V, L> extends Classifier<V, L> {
+    // Post: Adds what value and label teach to the model, keeping what it
+    //       has already learned
+    void learnOne(V value, L label);
+
+    // Post: Calls learnOne() on each labelled value in turn. The data is
+    //       only iterated, so it can be a stream that never fits in memory.
+    default void partialTrain(Iterable<Duple<V, L>> data) {
+        for (Duple<V, L> datum: data) {
+            learnOne(datum.getFirst(), datum.getSecond());
+        }
+    }
+}
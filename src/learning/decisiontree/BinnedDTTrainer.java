@@ -0,0 +1,277 @@
+package learning.decisiontree;
+
+import core.Duple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// Builds a decision tree by histograms, for data with many features or
+// many distinct values, like word counts. The data is sorted into bins
+// first, as BinnedData describes, and each bin's largest value is a
+// candidate threshold. A node's histogram holds [bin][label] counts for
+// every feature. Splitting a node builds the smaller child's histogram from
+// its rows and takes the other's by subtracting it from the parent's. Every
+// threshold of a feature is then scored in one pass over its bins.
+//
+// Rows may be weighted, so that the trees of a forest can share one
+// BinnedData and each train on its own bootstrap sample. A row of weight w
+// counts as w copies of it, and rows of weight 0 are left out.
+//
+// Ties go to the first feature, in allFeatures order, and the lowest
+// threshold. When features are restricted, each node scores a random
+// sqrt(# features) of the features.
+public class BinnedDTTrainer<V,L, F, FV extends Comparable<FV>> {
+	public final static int DEFAULT_MAX_BINS = 16;
+
+	private ArrayList<Duple<V,L>> baseData;
+	private Function<ArrayList<Duple<V,L>>, ArrayList<Duple<F,FV>>> allFeatures;
+	private BiFunction<V,F,FV> getFeatureValue;
+	private int maxBins;
+	private boolean restrictFeatures;
+	private Function<FV,FV> successor;
+	private Random random;
+
+	// Null until train() bins baseData, unless given
+	private BinnedData<V,L,F,FV> binned;
+	// Null if every row counts once
+	private int[] weights;
+
+	private int[] rows;
+	private int[] scratch;
+	private int[] columnOrder;
+	private int[] leftCounts;
+
+	public BinnedDTTrainer(ArrayList<Duple<V, L>> data, Function<ArrayList<Duple<V, L>>, ArrayList<Duple<F,FV>>> allFeatures,
+						   boolean restrictFeatures, BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor,
+						   int maxBins, Random random) {
+		if (maxBins < 2) {
+			throw new IllegalArgumentException("maxBins must be at least 2, not " + maxBins);
+		}
+		baseData = data;
+		this.allFeatures = allFeatures;
+		this.getFeatureValue = getFeatureValue;
+		this.maxBins = maxBins;
+		this.restrictFeatures = restrictFeatures;
+		this.successor = successor;
+		this.random = random;
+	}
+
+	public BinnedDTTrainer(ArrayList<Duple<V, L>> data, Function<ArrayList<Duple<V, L>>, ArrayList<Duple<F,FV>>> allFeatures,
+						   boolean restrictFeatures, BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor) {
+		this(data, allFeatures, restrictFeatures, getFeatureValue, successor, DEFAULT_MAX_BINS, new Random());
+	}
+
+	public BinnedDTTrainer(ArrayList<Duple<V, L>> data, Function<ArrayList<Duple<V,L>>, ArrayList<Duple<F,FV>>> allFeatures,
+						   BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor) {
+		this(data, allFeatures, false, getFeatureValue, successor);
+	}
+
+	// Pre: weights.length == binned.numRows(), and no weight is negative
+	public BinnedDTTrainer(BinnedData<V,L,F,FV> binned, int[] weights, boolean restrictFeatures,
+						   Function<FV,FV> successor, Random random) {
+		if (weights.length != binned.numRows()) {
+			throw new IllegalArgumentException("Expected " + binned.numRows() + " weights, got " + weights.length);
+		}
+		this.binned = binned;
+		this.weights = weights;
+		this.restrictFeatures = restrictFeatures;
+		this.successor = successor;
+		this.random = random;
+	}
+
+	public DecisionTree<V,L,F,FV> train() {
+		if (binned == null) {
+			binned = new BinnedData<>(baseData, allFeatures, getFeatureValue, maxBins);
+		}
+		int numRows = 0;
+		for (int r = 0; r < binned.numRows(); r++) {
+			if (weightOf(r) > 0) {
+				numRows += 1;
+			}
+		}
+		if (numRows == 0) {
+			throw new IllegalStateException("No data");
+		}
+		rows = new int[numRows];
+		for (int r = 0, i = 0; i < numRows; r++) {
+			if (weightOf(r) > 0) {
+				rows[i++] = r;
+			}
+		}
+		scratch = new int[rows.length];
+		columnOrder = new int[binned.features.size()];
+		leftCounts = new int[binned.numLabels];
+		int[] labelCounts = labelCounts(0, rows.length);
+		return train(0, rows.length, labelCounts, needsHistogram(labelCounts) ? histogram(0, rows.length, labelCounts) : null);
+	}
+
+	private int weightOf(int row) {
+		return weights == null ? 1 : weights[row];
+	}
+
+	// Pre:  labelCounts counts the weighted labels of rows[start..end), and
+	//       histogram is their histogram or null if they all have the
+	//       same label
+	private DecisionTree<V,L,F,FV> train(int start, int end, int[] labelCounts, int[] histogram) {
+		if (numPresent(labelCounts) == 1) {
+			return new DTLeaf<>(binned.labels.get(binned.labelOf[rows[start]]));
+		}
+		int numLabels = binned.numLabels;
+		int[] binStart = binned.binStart;
+		int total = 0;
+		long sumOfSquares = 0;
+		for (int count: labelCounts) {
+			total += count;
+			sumOfSquares += (long)count * count;
+		}
+		double parentGini = DTTrainer.gini(sumOfSquares, total);
+
+		int numConsidered = DTTrainer.numToConsider(columnOrder.length, restrictFeatures);
+		for (int c = 0; c < columnOrder.length; c++) {
+			columnOrder[c] = c;
+		}
+		if (restrictFeatures) {
+			for (int i = 0; i < numConsidered; i++) {
+				int j = i + random.nextInt(columnOrder.length - i);
+				int swap = columnOrder[i];
+				columnOrder[i] = columnOrder[j];
+				columnOrder[j] = swap;
+			}
+			Arrays.sort(columnOrder, 0, numConsidered);
+		}
+
+		int bestColumn = -1, bestBin = -1;
+		double bestGain = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < numConsidered; i++) {
+			int c = columnOrder[i];
+			Arrays.fill(leftCounts, 0);
+			int leftTotal = 0;
+			for (int b = binStart[c]; b < binStart[c + 1] - 1; b++) {
+				long leftSquares = 0, rightSquares = 0;
+				for (int label = 0; label < numLabels; label++) {
+					int left = leftCounts[label] += histogram[b * numLabels + label];
+					int right = labelCounts[label] - left;
+					leftTotal += histogram[b * numLabels + label];
+					leftSquares += (long)left * left;
+					rightSquares += (long)right * right;
+				}
+				if (leftTotal > 0 && leftTotal < total) {
+					double g = parentGini - DTTrainer.gini(leftSquares, leftTotal)
+							- DTTrainer.gini(rightSquares, total - leftTotal);
+					if (bestColumn < 0 || g > bestGain) {
+						bestColumn = c;
+						bestBin = b - binStart[c];
+						bestGain = g;
+					}
+				}
+			}
+		}
+
+		if (bestColumn < 0) {
+			return new DTLeaf<>(mostPopularLabel(labelCounts, start, end));
+		}
+
+		int middle = partition(bestColumn, bestBin, start, end);
+		int[] leftLabels = labelCounts(start, middle);
+		int[] rightLabels = new int[numLabels];
+		for (int label = 0; label < numLabels; label++) {
+			rightLabels[label] = labelCounts[label] - leftLabels[label];
+		}
+		boolean leftSplits = needsHistogram(leftLabels), rightSplits = needsHistogram(rightLabels);
+		int[] leftHistogram = null, rightHistogram = null;
+		if (leftSplits || rightSplits) {
+			boolean leftSmaller = middle - start <= end - middle;
+			int[] smaller = leftSmaller ? histogram(start, middle, leftLabels) : histogram(middle, end, rightLabels);
+			if (leftSmaller ? rightSplits : leftSplits) {
+				for (int i = 0; i < histogram.length; i++) {
+					histogram[i] -= smaller[i];
+				}
+			}
+			leftHistogram = leftSmaller ? smaller : histogram;
+			rightHistogram = leftSmaller ? histogram : smaller;
+		}
+		DecisionTree<V,L,F,FV> left = train(start, middle, leftLabels, leftSplits ? leftHistogram : null);
+		DecisionTree<V,L,F,FV> right = train(middle, end, rightLabels, rightSplits ? rightHistogram : null);
+		return new DTInterior<>(binned.features.get(bestColumn), binned.thresholds.get(bestColumn).get(bestBin), left,
+				right, binned.getFeatureValue, successor);
+	}
+
+	private static boolean needsHistogram(int[] labelCounts) {
+		return numPresent(labelCounts) > 1;
+	}
+
+	private int[] labelCounts(int start, int end) {
+		int[] counts = new int[binned.numLabels];
+		for (int i = start; i < end; i++) {
+			counts[binned.labelOf[rows[i]]] += weightOf(rows[i]);
+		}
+		return counts;
+	}
+
+	private static int numPresent(int[] labelCounts) {
+		int result = 0;
+		for (int count: labelCounts) {
+			if (count > 0) {
+				result += 1;
+			}
+		}
+		return result;
+	}
+
+	// Post: Returns the weighted [bin][label] counts of every column over
+	//       rows[start..end), whose labels are counted in labelCounts
+	private int[] histogram(int start, int end, int[] labelCounts) {
+		int numLabels = binned.numLabels;
+		int[] binStart = binned.binStart, defaultBin = binned.defaultBin;
+		int[] entryStart = binned.entryStart, entryColumns = binned.entryColumns, entryBins = binned.entryBins;
+		int[] result = new int[binStart[columnOrder.length] * numLabels];
+		for (int c = 0; c < columnOrder.length; c++) {
+			System.arraycopy(labelCounts, 0, result, (binStart[c] + defaultBin[c]) * numLabels, numLabels);
+		}
+		for (int i = start; i < end; i++) {
+			int row = rows[i];
+			int label = binned.labelOf[row];
+			int weight = weightOf(row);
+			for (int e = entryStart[row]; e < entryStart[row + 1]; e++) {
+				int c = entryColumns[e];
+				result[(binStart[c] + entryBins[e]) * numLabels + label] += weight;
+				result[(binStart[c] + defaultBin[c]) * numLabels + label] -= weight;
+			}
+		}
+		return result;
+	}
+
+	// Post: Reorders rows[start..end) so that those in bins up to maxBin of
+	//       column c come first, each side keeping its order; returns where
+	//       the second side begins
+	private int partition(int c, int maxBin, int start, int end) {
+		int left = start, right = 0;
+		for (int i = start; i < end; i++) {
+			int row = rows[i];
+			if (binned.binOf(row, c) <= maxBin) {
+				rows[left++] = row;
+			} else {
+				scratch[right++] = row;
+			}
+		}
+		System.arraycopy(scratch, 0, rows, left, right);
+		return left;
+	}
+
+	// Ties go to the label that appears first, as in Histogram.getPluralityWinner()
+	private L mostPopularLabel(int[] labelCounts, int start, int end) {
+		int max = 0;
+		for (int count: labelCounts) {
+			max = Math.max(max, count);
+		}
+		for (int i = start; i < end; i++) {
+			if (labelCounts[binned.labelOf[rows[i]]] == max) {
+				return binned.labels.get(binned.labelOf[rows[i]]);
+			}
+		}
+		throw new IllegalStateException("No data");
+	}
+}
@@ -0,0 +1,187 @@
+package learning.decisiontree;
+
+import core.Duple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// Training data sorted into bins for BinnedDTTrainer. Only the features
+// named by allFeatures are used; their values are ignored. Instead, each
+// feature's values are sorted into at most maxBins bins of about equal
+// size, and the largest value in each bin is a candidate threshold.
+//
+// Most values of a feature usually fall in one bin, such as the bin for a
+// count of 0, so each row stores only its features outside their usual
+// bin. Nothing changes once the data is binned, so the trees of a forest
+// can share it, each one weighting the rows by its own bootstrap sample.
+public class BinnedData<V,L, F, FV extends Comparable<FV>> {
+	private final int maxBins;
+	final BiFunction<V,F,FV> getFeatureValue;
+
+	// Column c has bins binStart[c]..binStart[c + 1] in a histogram, whose
+	// largest values are thresholds[c]
+	final ArrayList<F> features = new ArrayList<>();
+	final ArrayList<ArrayList<FV>> thresholds = new ArrayList<>();
+	final int[] binStart;
+	final int[] defaultBin;
+
+	// Row r's entries, in column order, are entryStart[r]..entryStart[r + 1]
+	final int[] entryStart;
+	final int[] entryColumns;
+	final int[] entryBins;
+
+	final ArrayList<L> labels = new ArrayList<>();
+	final int[] labelOf;
+	final int numLabels;
+
+	public BinnedData(ArrayList<Duple<V, L>> data, Function<ArrayList<Duple<V, L>>, ArrayList<Duple<F,FV>>> allFeatures,
+					  BiFunction<V,F,FV> getFeatureValue, int maxBins) {
+		if (maxBins < 2) {
+			throw new IllegalArgumentException("maxBins must be at least 2, not " + maxBins);
+		}
+		this.maxBins = maxBins;
+		this.getFeatureValue = getFeatureValue;
+
+		LinkedHashMap<F,Boolean> seen = new LinkedHashMap<>();
+		for (Duple<F,FV> candidate: allFeatures.apply(data)) {
+			seen.put(candidate.getFirst(), true);
+		}
+		features.addAll(seen.keySet());
+		int numColumns = features.size();
+		int n = data.size();
+		binStart = new int[numColumns + 1];
+		defaultBin = new int[numColumns];
+
+		// Bins of each row's values outside their usual bin, by column
+		ArrayList<int[]> rowsOf = new ArrayList<>(numColumns);
+		ArrayList<int[]> binsOf = new ArrayList<>(numColumns);
+		int[] rowBins = new int[n];
+		int[] entryCounts = new int[n];
+		// Each row's value as an index into distinct
+		int[] valueIds = new int[n];
+		HashMap<FV,Integer> idOf = new HashMap<>();
+		ArrayList<FV> distinct = new ArrayList<>();
+		for (int c = 0; c < numColumns; c++) {
+			idOf.clear();
+			distinct.clear();
+			for (int r = 0; r < n; r++) {
+				FV value = getFeatureValue.apply(data.get(r).getFirst(), features.get(c));
+				Integer id = idOf.get(value);
+				if (id == null) {
+					id = distinct.size();
+					idOf.put(value, id);
+					distinct.add(value);
+				}
+				valueIds[r] = id;
+			}
+			int[] valueCounts = new int[distinct.size()];
+			for (int r = 0; r < n; r++) {
+				valueCounts[valueIds[r]] += 1;
+			}
+			int[] binOfId = new int[distinct.size()];
+			ArrayList<FV> binMaxes = binsFor(distinct, valueCounts, n, binOfId);
+			thresholds.add(binMaxes);
+			binStart[c + 1] = binStart[c] + binMaxes.size();
+
+			int[] binSizes = new int[binMaxes.size()];
+			for (int r = 0; r < n; r++) {
+				rowBins[r] = binOfId[valueIds[r]];
+				binSizes[rowBins[r]] += 1;
+			}
+			int usual = 0;
+			for (int b = 1; b < binSizes.length; b++) {
+				if (binSizes[b] > binSizes[usual]) {
+					usual = b;
+				}
+			}
+			defaultBin[c] = usual;
+			int[] unusualRows = new int[n - binSizes[usual]];
+			int[] unusualBins = new int[unusualRows.length];
+			int u = 0;
+			for (int r = 0; r < n; r++) {
+				if (rowBins[r] != usual) {
+					unusualRows[u] = r;
+					unusualBins[u++] = rowBins[r];
+					entryCounts[r] += 1;
+				}
+			}
+			rowsOf.add(unusualRows);
+			binsOf.add(unusualBins);
+		}
+
+		entryStart = new int[n + 1];
+		for (int r = 0; r < n; r++) {
+			entryStart[r + 1] = entryStart[r] + entryCounts[r];
+		}
+		entryColumns = new int[entryStart[n]];
+		entryBins = new int[entryStart[n]];
+		int[] next = Arrays.copyOf(entryStart, n);
+		for (int c = 0; c < numColumns; c++) {
+			int[] unusualRows = rowsOf.get(c), unusualBins = binsOf.get(c);
+			for (int u = 0; u < unusualRows.length; u++) {
+				int e = next[unusualRows[u]]++;
+				entryColumns[e] = c;
+				entryBins[e] = unusualBins[u];
+			}
+		}
+
+		HashMap<L,Integer> labelIds = new HashMap<>();
+		labelOf = new int[n];
+		for (int r = 0; r < n; r++) {
+			L label = data.get(r).getSecond();
+			Integer id = labelIds.get(label);
+			if (id == null) {
+				id = labels.size();
+				labelIds.put(label, id);
+				labels.add(label);
+			}
+			labelOf[r] = id;
+		}
+		numLabels = labels.size();
+	}
+
+	// Post: Returns the largest value of each bin, ascending, and sets
+	//       binOfId[i] to the bin of distinct.get(i), which was seen
+	//       valueCounts[i] times. Bins hold about total / maxBins values
+	//       each, except that equal values share a bin.
+	private ArrayList<FV> binsFor(ArrayList<FV> distinct, int[] valueCounts, int total, int[] binOfId) {
+		Integer[] order = new Integer[distinct.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (i, j) -> distinct.get(i).compareTo(distinct.get(j)));
+		ArrayList<FV> result = new ArrayList<>(Math.min(maxBins, order.length));
+		long sofar = 0;
+		for (int i = 0; i < order.length; i++) {
+			sofar += valueCounts[order[i]];
+			binOfId[order[i]] = result.size();
+			if (i == order.length - 1 || order.length <= maxBins
+					|| (result.size() < maxBins - 1 && sofar * maxBins >= (long)(result.size() + 1) * total)) {
+				result.add(distinct.get(order[i]));
+			}
+		}
+		return result;
+	}
+
+	public int numRows() {return labelOf.length;}
+
+	// Post: Returns how many times each row is drawn when numRows() rows are
+	//       drawn with replacement, the same draws DTTrainer.resample() makes
+	public int[] bootstrap(Random random) {
+		int[] weights = new int[numRows()];
+		for (int i = 0; i < weights.length; i++) {
+			weights[random.nextInt(weights.length)] += 1;
+		}
+		return weights;
+	}
+
+	int binOf(int row, int c) {
+		int found = Arrays.binarySearch(entryColumns, entryStart[row], entryStart[row + 1], c);
+		return found >= 0 ? entryBins[found] : defaultBin[c];
+	}
+}
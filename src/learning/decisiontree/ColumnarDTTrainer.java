@@ -0,0 +1,307 @@
+package learning.decisiontree;
+
+import core.Duple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// Builds the same tree as DTTrainer, given the same arguments (and, when
+// features are restricted, a Random in the same state), but much faster.
+//
+// Before training, getFeatureValue is called once per value per feature,
+// and each feature's values are replaced by their rank among its distinct
+// values. The ranks are stored a column per feature, in a byte[] when there
+// are at most 256 distinct values (every PixelUse column) and an int[]
+// otherwise. A node is a range of an index array. To choose its split, each
+// column it uses is counted in one pass over the range into a table of
+// [rank][label] counts, and running totals over the ranks then give the
+// label counts on each side of every threshold. The chosen split
+// partitions the range in place, so no lists are copied.
+public class ColumnarDTTrainer<V,L, F, FV extends Comparable<FV>> {
+	private final static int MAX_BYTE_RANKS = 256;
+
+	private ArrayList<Duple<V,L>> baseData;
+	private boolean restrictFeatures;
+	private Function<ArrayList<Duple<V,L>>, ArrayList<Duple<F,FV>>> allFeatures;
+	private BiFunction<V,F,FV> getFeatureValue;
+	private Function<FV,FV> successor;
+	private Random random;
+
+	// Candidate splits, with the column and the highest rank that goes left
+	private ArrayList<Duple<F,FV>> candidates;
+	private int[] candidateColumns;
+	private int[] candidateRanks;
+
+	// Ranks of the feature values; exactly one of byteColumns[c] and
+	// intColumns[c] is non-null
+	private byte[][] byteColumns;
+	private int[][] intColumns;
+	private int[] numRanks;
+
+	private ArrayList<L> labels = new ArrayList<>();
+	private int[] labelOf;
+	private int numLabels;
+
+	private int[] rows;
+	private int[] scratch;
+	private int[] considered;
+
+	// rankCounts[c][rank * numLabels + label], as running totals over the
+	// ranks, for the node numbered countedFor[c]
+	private int[][] rankCounts;
+	private int[] countedFor;
+	private int numNodes = 0;
+
+	public ColumnarDTTrainer(ArrayList<Duple<V, L>> data, Function<ArrayList<Duple<V, L>>, ArrayList<Duple<F,FV>>> allFeatures,
+							 boolean restrictFeatures, BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor, Random random) {
+		baseData = data;
+		this.restrictFeatures = restrictFeatures;
+		this.allFeatures = allFeatures;
+		this.getFeatureValue = getFeatureValue;
+		this.successor = successor;
+		this.random = random;
+	}
+
+	public ColumnarDTTrainer(ArrayList<Duple<V, L>> data, Function<ArrayList<Duple<V, L>>, ArrayList<Duple<F,FV>>> allFeatures,
+							 boolean restrictFeatures, BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor) {
+		this(data, allFeatures, restrictFeatures, getFeatureValue, successor, new Random());
+	}
+
+	public ColumnarDTTrainer(ArrayList<Duple<V, L>> data, Function<ArrayList<Duple<V,L>>, ArrayList<Duple<F,FV>>> allFeatures,
+							 BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor) {
+		this(data, allFeatures, false, getFeatureValue, successor);
+	}
+
+	public DecisionTree<V,L,F,FV> train() {
+		candidates = allFeatures.apply(baseData);
+		materialize();
+		rows = new int[baseData.size()];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = i;
+		}
+		scratch = new int[rows.length];
+		considered = new int[candidates.size()];
+		return train(0, rows.length);
+	}
+
+	private void materialize() {
+		LinkedHashMap<F,Integer> columnOf = new LinkedHashMap<>();
+		for (Duple<F,FV> candidate: candidates) {
+			columnOf.putIfAbsent(candidate.getFirst(), columnOf.size());
+		}
+		int numColumns = columnOf.size();
+		byteColumns = new byte[numColumns][];
+		intColumns = new int[numColumns][];
+		numRanks = new int[numColumns];
+		ArrayList<ArrayList<FV>> sortedValues = new ArrayList<>(numColumns);
+
+		ArrayList<FV> values = new ArrayList<>(baseData.size());
+		HashMap<FV,Integer> rankOf = new HashMap<>();
+		for (Map.Entry<F,Integer> entry: columnOf.entrySet()) {
+			int c = entry.getValue();
+			values.clear();
+			rankOf.clear();
+			for (Duple<V,L> datum: baseData) {
+				FV value = getFeatureValue.apply(datum.getFirst(), entry.getKey());
+				values.add(value);
+				rankOf.put(value, 0);
+			}
+			ArrayList<FV> sorted = new ArrayList<>(rankOf.keySet());
+			Collections.sort(sorted);
+			for (int rank = 0; rank < sorted.size(); rank++) {
+				rankOf.put(sorted.get(rank), rank);
+			}
+			numRanks[c] = sorted.size();
+			if (numRanks[c] <= MAX_BYTE_RANKS) {
+				byteColumns[c] = new byte[values.size()];
+				for (int i = 0; i < values.size(); i++) {
+					byteColumns[c][i] = (byte)(int)rankOf.get(values.get(i));
+				}
+			} else {
+				intColumns[c] = new int[values.size()];
+				for (int i = 0; i < values.size(); i++) {
+					intColumns[c][i] = rankOf.get(values.get(i));
+				}
+			}
+			sortedValues.add(sorted);
+		}
+
+		// A row goes left when its value is at most the candidate's value,
+		// that is, when its rank is at most the rank of the greatest value
+		// not above it.
+		candidateColumns = new int[candidates.size()];
+		candidateRanks = new int[candidates.size()];
+		for (int i = 0; i < candidates.size(); i++) {
+			int c = columnOf.get(candidates.get(i).getFirst());
+			int found = Collections.binarySearch(sortedValues.get(c), candidates.get(i).getSecond());
+			candidateColumns[i] = c;
+			candidateRanks[i] = found >= 0 ? found : -found - 2;
+		}
+
+		HashMap<L,Integer> labelIds = new HashMap<>();
+		labelOf = new int[baseData.size()];
+		for (int i = 0; i < baseData.size(); i++) {
+			L label = baseData.get(i).getSecond();
+			Integer id = labelIds.get(label);
+			if (id == null) {
+				id = labels.size();
+				labelIds.put(label, id);
+				labels.add(label);
+			}
+			labelOf[i] = id;
+		}
+		numLabels = labels.size();
+
+		rankCounts = new int[numColumns][];
+		countedFor = new int[numColumns];
+		Arrays.fill(countedFor, -1);
+	}
+
+	// Pre:  start < end
+	// Post: Returns the tree for the data at rows[start..end)
+	private DecisionTree<V,L,F,FV> train(int start, int end) {
+		int node = numNodes++;
+		int[] labelCounts = new int[numLabels];
+		int numPresent = 0;
+		for (int i = start; i < end; i++) {
+			if (labelCounts[labelOf[rows[i]]]++ == 0) {
+				numPresent += 1;
+			}
+		}
+		if (numPresent == 1) {
+			return new DTLeaf<>(labels.get(labelOf[rows[start]]));
+		}
+		long sumOfSquares = 0;
+		for (int count: labelCounts) {
+			sumOfSquares += (long)count * count;
+		}
+		int total = end - start;
+		double parentGini = DTTrainer.gini(sumOfSquares, total);
+
+		int numConsidered = DTTrainer.numToConsider(candidates.size(), restrictFeatures);
+		for (int i = 0; i < considered.length; i++) {
+			considered[i] = i;
+		}
+		if (restrictFeatures) {
+			shuffle(considered);
+		}
+
+		int best = -1;
+		double bestGain = Double.NEGATIVE_INFINITY;
+		for (int n = 0; n < numConsidered; n++) {
+			int candidate = considered[n];
+			int c = candidateColumns[candidate];
+			int rank = candidateRanks[candidate];
+			if (rank < 0) {
+				continue;
+			}
+			int[] counts = countsFor(c, node, start, end);
+			int offset = rank * numLabels;
+			int leftTotal = 0;
+			long leftSquares = 0, rightSquares = 0;
+			for (int label = 0; label < numLabels; label++) {
+				int left = counts[offset + label];
+				int right = labelCounts[label] - left;
+				leftTotal += left;
+				leftSquares += (long)left * left;
+				rightSquares += (long)right * right;
+			}
+			if (leftTotal > 0 && leftTotal < total) {
+				double g = parentGini - DTTrainer.gini(leftSquares, leftTotal)
+						- DTTrainer.gini(rightSquares, total - leftTotal);
+				if (best < 0 || g > bestGain) {
+					best = candidate;
+					bestGain = g;
+				}
+			}
+		}
+
+		if (best < 0) {
+			return new DTLeaf<>(mostPopularLabel(labelCounts, start, end));
+		}
+		int middle = partition(candidateColumns[best], candidateRanks[best], start, end);
+		return new DTInterior<>(candidates.get(best).getFirst(), candidates.get(best).getSecond(),
+				train(start, middle), train(middle, end), getFeatureValue, successor);
+	}
+
+	// Shuffles exactly as Collections.shuffle() does, so the same Random
+	// picks the same candidates that DTTrainer picks, without boxing them.
+	private void shuffle(int[] array) {
+		for (int i = array.length; i > 1; i--) {
+			int j = random.nextInt(i);
+			int swap = array[i - 1];
+			array[i - 1] = array[j];
+			array[j] = swap;
+		}
+	}
+
+	// Post: Returns the running [rank][label] counts of column c over
+	//       rows[start..end), counting them if node has not already
+	private int[] countsFor(int c, int node, int start, int end) {
+		if (countedFor[c] == node) {
+			return rankCounts[c];
+		}
+		if (rankCounts[c] == null) {
+			rankCounts[c] = new int[numRanks[c] * numLabels];
+		}
+		int[] counts = rankCounts[c];
+		Arrays.fill(counts, 0);
+		if (byteColumns[c] != null) {
+			byte[] column = byteColumns[c];
+			for (int i = start; i < end; i++) {
+				int row = rows[i];
+				counts[(column[row] & 0xFF) * numLabels + labelOf[row]] += 1;
+			}
+		} else {
+			int[] column = intColumns[c];
+			for (int i = start; i < end; i++) {
+				int row = rows[i];
+				counts[column[row] * numLabels + labelOf[row]] += 1;
+			}
+		}
+		for (int i = numLabels; i < counts.length; i++) {
+			counts[i] += counts[i - numLabels];
+		}
+		countedFor[c] = node;
+		return counts;
+	}
+
+	// Post: Reorders rows[start..end) so that those with a rank of at most
+	//       maxRank in column c come first, each side keeping its order;
+	//       returns where the second side begins
+	private int partition(int c, int maxRank, int start, int end) {
+		int left = start, right = 0;
+		for (int i = start; i < end; i++) {
+			int row = rows[i];
+			int rank = byteColumns[c] != null ? byteColumns[c][row] & 0xFF : intColumns[c][row];
+			if (rank <= maxRank) {
+				rows[left++] = row;
+			} else {
+				scratch[right++] = row;
+			}
+		}
+		System.arraycopy(scratch, 0, rows, left, right);
+		return left;
+	}
+
+	// Ties go to the label that appears first, as in Histogram.getPluralityWinner()
+	private L mostPopularLabel(int[] labelCounts, int start, int end) {
+		int max = 0;
+		for (int count: labelCounts) {
+			max = Math.max(max, count);
+		}
+		for (int i = start; i < end; i++) {
+			if (labelCounts[labelOf[rows[i]]] == max) {
+				return labels.get(labelOf[rows[i]]);
+			}
+		}
+		throw new IllegalStateException("No data");
+	}
+}
@@ -27,6 +27,11 @@ public class DTInterior<V, L, F, FV extends Comparable<FV>> implements DecisionT
 		this.successor = successor;
 	}
 
+	public DecisionTree<V,L,F,FV> getLeft() {return left;}
+	public DecisionTree<V,L,F,FV> getRight() {return right;}
+	public F getDecisionFeature() {return decisionFeature;}
+	public FV getMaxFeatureValue() {return maxFeatureValue;}
+
 	@Override
 	public L classify(V v) {
         if (maxFeatureValue.compareTo(getFeatureValue.apply(v, decisionFeature)) >= 0) {
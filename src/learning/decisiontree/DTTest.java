@@ -1,16 +1,29 @@
 package learning.decisiontree;
 
+import core.Codec;
 import core.Duple;
+import core.ModelReader;
+import core.ModelWriter;
 import learning.handwriting.core.Drawing;
 import learning.handwriting.core.DrawingPoint;
+import learning.handwriting.core.PixelFeatures;
 import learning.handwriting.core.PixelUse;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import static junit.framework.TestCase.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 public class DTTest {
@@ -121,4 +134,267 @@ public class DTTest {
             assert dtMain.contains(example);
         }
     }
+
+    @Test
+    public void testColumnar() {
+        Random random = new Random(335);
+        ArrayList<Duple<Drawing,String>> data = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            StringBuilder pixels = new StringBuilder("6|6");
+            for (int y = 0; y < 6; y++) {
+                pixels.append("|");
+                for (int x = 0; x < 6; x++) {
+                    pixels.append(random.nextInt(3) == 0 ? 'X' : 'O');
+                }
+            }
+            Drawing d = new Drawing(pixels.toString());
+            String label = d.isSet(1, 2) && !d.isSet(4, 4) ? "A" : d.isSet(3, 0) ? "B" : "C";
+            data.add(new Duple<>(d, random.nextInt(10) == 0 ? "A" : label));
+        }
+
+        DecisionTree<Drawing, String, DrawingPoint, PixelUse> expected = new DTTrainer<>(data, Drawing::allFeatures,
+                Drawing::getFeatureValue, PixelUse::successor).train();
+        DecisionTree<Drawing, String, DrawingPoint, PixelUse> tree = new ColumnarDTTrainer<>(data, Drawing::allFeatures,
+                Drawing::getFeatureValue, PixelUse::successor).train();
+        assertEquals(expected.toString(), tree.toString());
+
+        expected = new DTTrainer<>(data, Drawing::allFeatures, true,
+                Drawing::getFeatureValue, PixelUse::successor, new Random(1)).train();
+        tree = new ColumnarDTTrainer<>(data, Drawing::allFeatures, true,
+                Drawing::getFeatureValue, PixelUse::successor, new Random(1)).train();
+        assertEquals(expected.toString(), tree.toString());
+    }
+
+    @Test
+    public void testColumnarManyValues() {
+        ArrayList<Duple<int[],Integer>> data = randomVectors(new Random(335), 300,
+                v -> (v[0] + 3 * v[2]) % 4 == 0 ? v[1] % 2 : 2, 1000, 5, 300);
+        Function<ArrayList<Duple<int[],Integer>>, ArrayList<Duple<Integer,Integer>>> allFeatures = intFeatures(3);
+        BiFunction<int[],Integer,Integer> getFeatureValue = (v, f) -> v[f];
+
+        DecisionTree<int[],Integer,Integer,Integer> expected = new DTTrainer<>(data, allFeatures,
+                getFeatureValue, x -> x + 1).train();
+        DecisionTree<int[],Integer,Integer,Integer> tree = new ColumnarDTTrainer<>(data, allFeatures,
+                getFeatureValue, x -> x + 1).train();
+        assertEquals(expected.toString(), tree.toString());
+        for (Duple<int[],Integer> datum: data) {
+            assertEquals(datum.getSecond(), tree.classify(datum.getFirst()));
+        }
+    }
+
+    // Post: Returns every (feature, value) pair of the int[]s in data, whose
+    //       features are the indices 0..numFeatures - 1
+    private static Function<ArrayList<Duple<int[],Integer>>, ArrayList<Duple<Integer,Integer>>> intFeatures(int numFeatures) {
+        return data -> {
+            ArrayList<Duple<Integer,Integer>> result = new ArrayList<>();
+            for (Duple<int[],Integer> datum: data) {
+                for (int f = 0; f < numFeatures; f++) {
+                    result.add(new Duple<>(f, datum.getFirst()[f]));
+                }
+            }
+            return result;
+        };
+    }
+
+    // Post: Returns n vectors whose value i is in [0, bounds[i]), each
+    //       labeled by labeler
+    private static ArrayList<Duple<int[],Integer>> randomVectors(Random random, int n, Function<int[],Integer> labeler,
+                                                                 int... bounds) {
+        ArrayList<Duple<int[],Integer>> result = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int[] v = randomVector(random, bounds);
+            result.add(new Duple<>(v, labeler.apply(v)));
+        }
+        return result;
+    }
+
+    private static int[] randomVector(Random random, int... bounds) {
+        int[] result = new int[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            result[i] = random.nextInt(bounds[i]);
+        }
+        return result;
+    }
+
+    @Test
+    public void testForest() {
+        ArrayList<Duple<Drawing,String>> data = randomDrawings(new Random(335), 100,
+                d -> d.isSet(2, 2) ? (d.isSet(0, 4) ? "A" : "B") : "C");
+        ArrayList<Drawing> values = new ArrayList<>();
+        data.forEach(datum -> values.add(datum.getFirst()));
+
+        RandomForest<Drawing,String,DrawingPoint,PixelUse> sequential =
+                new RandomForest<>(12, Drawing::allFeatures, Drawing::getFeatureValue, PixelUse::successor, 42);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        sequential.train(data, pool);
+        pool.shutdown();
+        RandomForest<Drawing,String,DrawingPoint,PixelUse> parallel =
+                new RandomForest<>(12, Drawing::allFeatures, Drawing::getFeatureValue, PixelUse::successor, 42);
+        pool = new ForkJoinPool(4);
+        parallel.train(data, pool);
+        pool.shutdown();
+        assertEquals(sequential.toString(), parallel.toString());
+
+        ArrayList<String> classified = parallel.classifyAll(values);
+        int correct = 0;
+        for (int i = 0; i < data.size(); i++) {
+            assertEquals(parallel.classify(values.get(i)), classified.get(i));
+            if (classified.get(i).equals(data.get(i).getSecond())) {
+                correct += 1;
+            }
+        }
+        assertTrue(correct > 90);
+    }
+
+    // Post: Returns n random 5x5 drawings, each labeled by labeler
+    private static ArrayList<Duple<Drawing,String>> randomDrawings(Random random, int n, Function<Drawing,String> labeler) {
+        ArrayList<Duple<Drawing,String>> result = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Drawing d = new Drawing(5, 5);
+            for (int p = 0; p < 25; p++) {
+                d.set(p % 5, p / 5, random.nextBoolean());
+            }
+            result.add(new Duple<>(d, labeler.apply(d)));
+        }
+        return result;
+    }
+
+    @Test
+    public void testFlat() {
+        DecisionTree<Drawing, String, DrawingPoint, PixelUse> tree = new DTTrainer<>(dtMain, Drawing::allFeatures,
+                Drawing::getFeatureValue, PixelUse::successor).train();
+        FlatForest<Drawing,String> flat = FlatForest.compile(tree, new PixelFeatures());
+        assertEquals(1, flat.numTrees());
+        for (Duple<Drawing,String> datum: dtMain) {
+            assertEquals(tree.classify(datum.getFirst()), flat.classify(datum.getFirst()));
+        }
+
+        Random random = new Random(335);
+        ArrayList<Duple<int[],Integer>> data = randomVectors(random, 300, v -> v[0] < 1000 ? v[1] % 2 : v[2] % 3,
+                2000, 5, 300);
+        FlatFeatures<int[],Integer,Integer> encoding = new FlatFeatures<>() {
+            public int indexOf(Integer feature) {return feature;}
+            public int valueAt(int[] value, int index) {return value[index];}
+            public int encode(Integer featureValue) {return featureValue;}
+        };
+        Function<ArrayList<Duple<int[],Integer>>, ArrayList<Duple<Integer,Integer>>> allFeatures = intFeatures(3);
+        RandomForest<int[],Integer,Integer,Integer> forest =
+                new RandomForest<>(7, allFeatures, (v, f) -> v[f], x -> x + 1, encoding, 99);
+        forest.train(data);
+        RandomForest<int[],Integer,Integer,Integer> unflattened =
+                new RandomForest<>(7, allFeatures, (v, f) -> v[f], x -> x + 1, 99);
+        unflattened.train(data);
+        assertEquals(7, forest.getFlatForest().get().numTrees());
+        assertFalse(unflattened.getFlatForest().isPresent());
+        ArrayList<int[]> values = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            values.add(randomVector(random, 2000, 5, 300));
+        }
+        assertEquals(unflattened.classifyAll(values), forest.classifyAll(values));
+        for (int[] v: values) {
+            assertEquals(unflattened.classify(v), forest.classify(v));
+        }
+
+        float[] floats = {-3.5f, -1f, -0.0f, 0f, 1e-20f, 1f, 2f, 1e20f};
+        for (int i = 1; i < floats.length; i++) {
+            assertTrue(FlatFeatures.sortableBits(floats[i - 1]) <= FlatFeatures.sortableBits(floats[i]));
+        }
+    }
+
+    @Test
+    public void testBinned() {
+        DecisionTree<Drawing, String, DrawingPoint, PixelUse> tree = new BinnedDTTrainer<>(dtMain, Drawing::allFeatures,
+                Drawing::getFeatureValue, PixelUse::successor).train();
+        for (Duple<Drawing,String> datum: dtMain) {
+            assertEquals(datum.getSecond(), tree.classify(datum.getFirst()));
+        }
+
+        Random random = new Random(335);
+        ArrayList<Duple<int[],Integer>> data = randomVectors(random, 500, v -> v[0] < 300 ? 0 : v[1] < 700 ? 1 : 2,
+                1000, 1000);
+        Function<ArrayList<Duple<int[],Integer>>, ArrayList<Duple<Integer,Integer>>> allFeatures = intFeatures(2);
+        for (boolean restrict: new boolean[]{false, true}) {
+            DecisionTree<int[],Integer,Integer,Integer> binned = new BinnedDTTrainer<>(data, allFeatures, restrict,
+                    (v, f) -> v[f], x -> x + 1, 4, new Random(1)).train();
+            HashSet<Integer> thresholds = new HashSet<>();
+            addThresholds(binned, thresholds);
+            assertTrue(thresholds.size() <= 2 * 3);
+            int correct = 0;
+            for (Duple<int[],Integer> datum: data) {
+                if (binned.classify(datum.getFirst()).equals(datum.getSecond())) {
+                    correct += 1;
+                }
+            }
+            assertTrue(correct > 400);
+        }
+
+        // A weighted row trains the same tree as that many copies of it,
+        // given the same bins
+        ArrayList<Duple<int[],Integer>> small = randomVectors(random, 200, v -> (v[0] + v[1] + random.nextInt(3)) % 3,
+                8, 8);
+        BinnedData<int[],Integer,Integer,Integer> binned = new BinnedData<>(small, allFeatures, (v, f) -> v[f], 8);
+        int[] weights = binned.bootstrap(new Random(2));
+        ArrayList<Duple<int[],Integer>> copies = new ArrayList<>();
+        for (int r = 0; r < small.size(); r++) {
+            for (int w = 0; w < weights[r]; w++) {
+                copies.add(small.get(r));
+            }
+        }
+        DecisionTree<int[],Integer,Integer,Integer> weighted = new BinnedDTTrainer<>(binned, weights, false,
+                x -> x + 1, new Random(1)).train();
+        DecisionTree<int[],Integer,Integer,Integer> copied = new BinnedDTTrainer<>(copies, allFeatures, false,
+                (v, f) -> v[f], x -> x + 1, 8, new Random(1)).train();
+        assertEquals(copied.toString(), weighted.toString());
+    }
+
+    private static <V,L,F,FV extends Comparable<FV>> void addThresholds(DecisionTree<V,L,F,FV> tree, HashSet<FV> thresholds) {
+        if (tree instanceof DTInterior<V,L,F,FV> interior) {
+            thresholds.add(interior.getMaxFeatureValue());
+            addThresholds(interior.getLeft(), thresholds);
+            addThresholds(interior.getRight(), thresholds);
+        }
+    }
+
+    @Test
+    public void testSaveLoad() throws IOException {
+        ArrayList<Duple<Drawing,String>> data = randomDrawings(new Random(335), 60, d -> d.isSet(2, 2) ? "A" : "B");
+        RandomForest<Drawing,String,DrawingPoint,PixelUse> forest = new RandomForest<>(5, Drawing::allFeatures,
+                Drawing::getFeatureValue, PixelUse::successor, new PixelFeatures(), 42);
+        forest.train(data);
+
+        Codec<PixelUse> pixelUse = Codec.ofEnum(PixelUse.class);
+        Path file = Files.createTempFile("forest", ".model");
+        try {
+            try (ModelWriter out = new ModelWriter(file)) {
+                forest.writeTo(out, Codec.STRING, DrawingPoint.CODEC, pixelUse);
+            }
+            RandomForest<Drawing,String,DrawingPoint,PixelUse> loaded = new RandomForest<>(1, Drawing::allFeatures,
+                    Drawing::getFeatureValue, PixelUse::successor, new PixelFeatures(), 0);
+            try (ModelReader in = new ModelReader(file)) {
+                loaded.readFrom(in, Codec.STRING, DrawingPoint.CODEC, pixelUse);
+            }
+            assertEquals(forest.toString(), loaded.toString());
+            assertTrue(loaded.getFlatForest().isPresent());
+            for (Duple<Drawing,String> datum: data) {
+                assertEquals(forest.classify(datum.getFirst()), loaded.classify(datum.getFirst()));
+            }
+
+            // A leaf whose label the forest does not list
+            try (ModelWriter out = new ModelWriter(file)) {
+                out.writeSection("RandomForest", 1);
+                out.writeLong(7);
+                out.writeInt(1);
+                Codec.STRING.write(out, "A");
+                out.writeInt(1);
+                DecisionTree.writeTo(new DTLeaf<>("C"), out, Codec.STRING, DrawingPoint.CODEC, pixelUse);
+            }
+            try (ModelReader in = new ModelReader(file)) {
+                assertThrows(IOException.class, () -> loaded.readFrom(in, Codec.STRING, DrawingPoint.CODEC, pixelUse));
+            }
+            assertEquals(forest.getSeed(), loaded.getSeed());
+            assertEquals(forest.toString(), loaded.toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
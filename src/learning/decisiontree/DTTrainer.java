@@ -4,8 +4,8 @@ import core.Duple;
 import learning.core.Histogram;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.Random;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -16,14 +16,24 @@ public class DTTrainer<V,L, F, FV extends Comparable<FV>> {
 	private Function<ArrayList<Duple<V,L>>, ArrayList<Duple<F,FV>>> allFeatures;
 	private BiFunction<V,F,FV> getFeatureValue;
 	private Function<FV,FV> successor;
-	
+	private Random random;
+	private ArrayList<Duple<F,FV>> candidates;
+
+	// When restrictFeatures is true, each node considers a random sqrt(# features)
+	// of the candidate splits, chosen with random.
 	public DTTrainer(ArrayList<Duple<V, L>> data, Function<ArrayList<Duple<V, L>>, ArrayList<Duple<F,FV>>> allFeatures,
-					 boolean restrictFeatures, BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor) {
+					 boolean restrictFeatures, BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor, Random random) {
 		baseData = data;
 		this.restrictFeatures = restrictFeatures;
 		this.allFeatures = allFeatures;
 		this.getFeatureValue = getFeatureValue;
 		this.successor = successor;
+		this.random = random;
+	}
+
+	public DTTrainer(ArrayList<Duple<V, L>> data, Function<ArrayList<Duple<V, L>>, ArrayList<Duple<F,FV>>> allFeatures,
+					 boolean restrictFeatures, BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor) {
+		this(data, allFeatures, restrictFeatures, getFeatureValue, successor, new Random());
 	}
 	
 	public DTTrainer(ArrayList<Duple<V, L>> data, Function<ArrayList<Duple<V,L>>, ArrayList<Duple<F,FV>>> allFeatures,
@@ -31,15 +41,28 @@ public class DTTrainer<V,L, F, FV extends Comparable<FV>> {
 		this(data, allFeatures, false, getFeatureValue, successor);
 	}
 
-	// TODO: Call allFeatures.apply() to get the feature list. Then shuffle the list, retaining
-	//  only targetNumber features. Should pass DTTest.testReduced().
+	// Call allFeatures.apply() to get the feature list. Then shuffle the list, retaining
+	// only targetNumber features.
 	public static <V,L, F, FV  extends Comparable<FV>> ArrayList<Duple<F,FV>>
 	reducedFeatures(ArrayList<Duple<V,L>> data, Function<ArrayList<Duple<V, L>>, ArrayList<Duple<F,FV>>> allFeatures,
 					int targetNumber) {
-		return null;
+		ArrayList<Duple<F,FV>> features = allFeatures.apply(data);
+		Collections.shuffle(features);
+		return new ArrayList<>(features.subList(0, Math.min(targetNumber, features.size())));
     }
+
+	// Post: Returns the number of candidate splits each node considers, out of
+	//       numCandidates
+	public static int numToConsider(int numCandidates, boolean restrictFeatures) {
+		return restrictFeatures ? Math.max(1, (int)Math.sqrt(numCandidates)) : numCandidates;
+	}
 	
+	// The candidate splits come from allFeatures.apply() on the whole data set,
+	// once. Every node picks the split with the highest gain among those that
+	// leave data on both sides, ties going to the earliest candidate; if there
+	// is no such split, the node is a leaf with the most popular label.
 	public DecisionTree<V,L,F,FV> train() {
+		candidates = allFeatures.apply(baseData);
 		return train(baseData);
 	}
 
@@ -48,31 +71,38 @@ public class DTTrainer<V,L, F, FV extends Comparable<FV>> {
 	}
 	
 	private DecisionTree<V,L,F,FV> train(ArrayList<Duple<V,L>> data) {
-		// TODO: Implement the decision tree learning algorithm
 		if (numLabels(data) == 1) {
-            return new DTLeaf<>(train().classify(data.get(0).getFirst()));
-			// TODO: Return a leaf node consisting of the only label in data
-            // is a matter of calling the dt leaf constructor to create a leaf node using the only label that is available
-		} else {
-			// TODO: Return an interior node.
-            if (!restrictFeatures){
-                allFeatures.apply(data);
-            }
-            else {
-                reducedFeatures(data, allFeatures, 2); // TODO: what is the target number supposed to be??
-            }
-			//  If restrictFeatures is true, call reducedFeatures() to get sqrt(# features)
-			//  of possible features/values as candidates for the split. In either case,
-			//  for each feature/value combination, use the splitOn() function to break the
-			//  data into two parts. Then use gain() on each split to figure out which
-			//  feature/value combination has the highest gain. Use that combination, as
-			//  well as recursively created left and right nodes, to create the new
-			//  interior node.
-			//  Note: It is possible for the split to fail; that is, you can have a split
-			//  in which one branch has zero elements. In this case, return a leaf node
-			//  containing the most popular label in the branch that has elements.
-			return null;
-		}		
+			return new DTLeaf<>(data.get(0).getSecond());
+		}
+
+		ArrayList<Duple<F,FV>> considered = candidates;
+		if (restrictFeatures) {
+			considered = new ArrayList<>(candidates);
+			Collections.shuffle(considered, random);
+			considered = new ArrayList<>(considered.subList(0, numToConsider(candidates.size(), true)));
+		}
+
+		Duple<F,FV> best = null;
+		Duple<ArrayList<Duple<V,L>>,ArrayList<Duple<V,L>>> bestSplit = null;
+		double bestGain = Double.NEGATIVE_INFINITY;
+		for (Duple<F,FV> candidate: considered) {
+			Duple<ArrayList<Duple<V,L>>,ArrayList<Duple<V,L>>> split =
+					splitOn(data, candidate.getFirst(), candidate.getSecond(), getFeatureValue);
+			if (!split.getFirst().isEmpty() && !split.getSecond().isEmpty()) {
+				double g = gain(data, split.getFirst(), split.getSecond());
+				if (best == null || g > bestGain) {
+					best = candidate;
+					bestSplit = split;
+					bestGain = g;
+				}
+			}
+		}
+
+		if (best == null) {
+			return new DTLeaf<>(mostPopularLabelFrom(data));
+		}
+		return new DTInterior<>(best.getFirst(), best.getSecond(), train(bestSplit.getFirst()), train(bestSplit.getSecond()),
+				getFeatureValue, successor);
 	}
 
 	public static <V,L> L mostPopularLabelFrom(ArrayList<Duple<V, L>> data) {
@@ -83,52 +113,66 @@ public class DTTrainer<V,L, F, FV extends Comparable<FV>> {
 		return h.getPluralityWinner();
 	}
 
-	// TODO: Generates a new data set by sampling randomly with replacement. It should return
-	//    an `ArrayList` that is the same length as `data`, where each element is selected randomly
-	//    from `data`. Should pass `DTTest.testResample()`.
+	// Generates a new data set by sampling randomly with replacement. It returns
+	// an `ArrayList` that is the same length as `data`, where each element is selected randomly
+	// from `data`.
 	public static <V,L> ArrayList<Duple<V,L>> resample(ArrayList<Duple<V,L>> data) {
-		return null;
+		return resample(data, new Random());
 	}
 
-	public static <V,L> double getGini(ArrayList<Duple<V,L>> data) {
-		// TODO: Calculate the Gini coefficient:
-		//  For each label, calculate its portion of the whole (p_i).
-        Histogram<L> h = new Histogram<>();
-        ArrayList<Double> portionsSQ = new ArrayList<>();
-        Double sum = 0.0;
-        for (Duple<V,L> datum: data) {
-            portionsSQ.add(h.getPortionFor(datum.getSecond()) * h.getPortionFor(datum.getSecond()));
-        }
-        for (Double item: portionsSQ) {
-            sum += item;
-        }
-
-        return 1.0 - sum;
-
-
+	public static <V,L> ArrayList<Duple<V,L>> resample(ArrayList<Duple<V,L>> data, Random random) {
+		ArrayList<Duple<V,L>> result = new ArrayList<>(data.size());
+		for (int i = 0; i < data.size(); i++) {
+			result.add(data.get(random.nextInt(data.size())));
+		}
+		return result;
+	}
 
-		//  Use of a Histogram<L> for this purpose is recommended.
-		//  Gini coefficient is 1 - sum(for all labels i, p_i^2)
-		//  Should pass DTTest.testGini().
+	// The Gini coefficient is 1 - sum(for all labels i, p_i^2), where p_i is
+	// the portion of the data with label i.
+	public static <V,L> double getGini(ArrayList<Duple<V,L>> data) {
+		Histogram<L> h = new Histogram<>();
+		for (Duple<V,L> datum: data) {
+			h.bump(datum.getSecond());
+		}
+		long sumOfSquares = 0;
+		for (L label: h) {
+			sumOfSquares += (long)h.getCountFor(label) * h.getCountFor(label);
+		}
+		return gini(sumOfSquares, data.size());
+	}
 
+	// Post: Returns the Gini coefficient of total values whose label counts
+	//       have squares adding up to sumOfSquares. Working from the exact
+	//       integer sum makes the result independent of the order in which
+	//       labels are counted, so trainers that count differently still
+	//       compare splits identically.
+	static double gini(long sumOfSquares, int total) {
+		return total == 0 ? 0.0 : 1.0 - (double)sumOfSquares / ((double)total * total);
 	}
 
+	// The gain of the split is the gini value for the parent minus the sum of
+	// the gini values for the children.
 	public static <V,L> double gain(ArrayList<Duple<V,L>> parent, ArrayList<Duple<V,L>> child1,
 									ArrayList<Duple<V,L>> child2) {
-		// TODO: Calculate the gain of the split. Add the gini values for the children.
-		//  Subtract that sum from the gini value for the parent. Should pass DTTest.testGain().
-		return 0;
+		return getGini(parent) - getGini(child1) - getGini(child2);
 	}
 
+	// Returns a duple of two new lists of training data.
+	// The first returned list is everything from this set for which
+	// feature has a value less than or equal to featureValue. The second
+	// returned list is everything else from this list.
 	public static <V,L, F, FV  extends Comparable<FV>> Duple<ArrayList<Duple<V,L>>,ArrayList<Duple<V,L>>> splitOn
 			(ArrayList<Duple<V,L>> data, F feature, FV featureValue, BiFunction<V,F,FV> getFeatureValue) {
-		// TODO:
-		//  Returns a duple of two new lists of training data.
-		//  The first returned list should be everything from this set for which
-		//  feature has a value less than or equal to featureValue. The second
-		//  returned list should be everything else from this list.
-		//  Should pass DTTest.testSplit().
-
-		return null;
+		ArrayList<Duple<V,L>> atMost = new ArrayList<>();
+		ArrayList<Duple<V,L>> above = new ArrayList<>();
+		for (Duple<V,L> datum: data) {
+			if (featureValue.compareTo(getFeatureValue.apply(datum.getFirst(), feature)) >= 0) {
+				atMost.add(datum);
+			} else {
+				above.add(datum);
+			}
+		}
+		return new Duple<>(atMost, above);
 	}
 }
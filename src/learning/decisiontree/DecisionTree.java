@@ -1,12 +1,20 @@
 package learning.decisiontree;
 
+import core.Codec;
 import core.Duple;
+import core.ModelReader;
+import core.ModelWriter;
 import learning.core.Updateable;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public interface DecisionTree<V, L, F, FV> {
+	int FORMAT_VERSION = 1;
+
 	L classify(V d);
 	void addAllLabels(Set<L> labels);
 
@@ -14,6 +22,51 @@ public interface DecisionTree<V, L, F, FV> {
 
 	String toStringHelp(int numTabs);
 
+	// Post: Writes tree in preorder, each node a tag followed by its
+	//       feature and value or its label
+	static <V,L,F,FV extends Comparable<FV>> void writeTo(DecisionTree<V,L,F,FV> tree, ModelWriter out,
+														Codec<L> labelCodec, Codec<F> featureCodec, Codec<FV> valueCodec) {
+		out.writeSection("DecisionTree", FORMAT_VERSION);
+		writeNode(tree, out, labelCodec, featureCodec, valueCodec);
+	}
+
+	private static <V,L,F,FV extends Comparable<FV>> void writeNode(DecisionTree<V,L,F,FV> tree, ModelWriter out,
+																  Codec<L> labelCodec, Codec<F> featureCodec, Codec<FV> valueCodec) {
+		if (tree instanceof DTInterior<V,L,F,FV> interior) {
+			out.writeBoolean(true);
+			featureCodec.write(out, interior.getDecisionFeature());
+			valueCodec.write(out, interior.getMaxFeatureValue());
+			writeNode(interior.getLeft(), out, labelCodec, featureCodec, valueCodec);
+			writeNode(interior.getRight(), out, labelCodec, featureCodec, valueCodec);
+		} else if (tree instanceof DTLeaf<V,L,F,FV> leaf) {
+			out.writeBoolean(false);
+			labelCodec.write(out, leaf.getLabel());
+		} else {
+			throw new IllegalArgumentException("Cannot write " + tree.getClass().getName());
+		}
+	}
+
+	static <V,L,F,FV extends Comparable<FV>> DecisionTree<V,L,F,FV> readFrom(ModelReader in, Codec<L> labelCodec,
+			Codec<F> featureCodec, Codec<FV> valueCodec, BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor)
+			throws IOException {
+		in.readSection("DecisionTree", FORMAT_VERSION);
+		return readNode(in, labelCodec, featureCodec, valueCodec, getFeatureValue, successor);
+	}
+
+	private static <V,L,F,FV extends Comparable<FV>> DecisionTree<V,L,F,FV> readNode(ModelReader in, Codec<L> labelCodec,
+			Codec<F> featureCodec, Codec<FV> valueCodec, BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor)
+			throws IOException {
+		if (in.readBoolean()) {
+			F feature = featureCodec.read(in);
+			FV value = valueCodec.read(in);
+			DecisionTree<V,L,F,FV> left = readNode(in, labelCodec, featureCodec, valueCodec, getFeatureValue, successor);
+			DecisionTree<V,L,F,FV> right = readNode(in, labelCodec, featureCodec, valueCodec, getFeatureValue, successor);
+			return new DTInterior<>(feature, value, left, right, getFeatureValue, successor);
+		} else {
+			return new DTLeaf<>(labelCodec.read(in));
+		}
+	}
+
 	default String tabs(int n) {
 		StringBuilder sb = new StringBuilder();
 		sb.append("\t".repeat(Math.max(0, n)));
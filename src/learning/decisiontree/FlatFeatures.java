@@ -0,0 +1,21 @@
+package learning.decisiontree;
+
+// Tells FlatForest how to read features without boxing. Each feature has an
+// int index, and each feature value an int encoding that sorts the same way
+// as the value itself, so a node can compare valueAt() to its encoded
+// threshold instead of calling getFeatureValue() and compareTo().
+public interface FlatFeatures<V, F, FV extends Comparable<FV>> {
+	int indexOf(F feature);
+
+	// Pre:  index was returned by indexOf()
+	// Post: Returns the encoding of the value of that feature in value
+	int valueAt(V value, int index);
+
+	int encode(FV featureValue);
+
+	// Post: Returns an int that orders like f, for any f other than NaN
+	static int sortableBits(float f) {
+		int bits = Float.floatToIntBits(f + 0.0f);
+		return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+	}
+}
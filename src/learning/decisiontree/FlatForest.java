@@ -0,0 +1,149 @@
+package learning.decisiontree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+// One or more trained decision trees compiled into parallel int arrays,
+// nodes in preorder with each tree following the one before. An interior
+// node holds a feature index and an encoded threshold, and its left child
+// is the next node; a leaf has feature -1 and holds a label id in place of
+// the threshold. Classifying is then a loop over arrays, with no recursion,
+// boxing or virtual calls but valueAt(). Trees vote, and ties go to the
+// label with the lowest id.
+public class FlatForest<V,L> {
+	private int[] features;
+	private int[] thresholds;
+	private int[] rightChildren;
+	private int[] roots;
+	private ArrayList<L> labels;
+	private FlatFeatures<V,?,?> encoding;
+
+	private FlatForest(int[] features, int[] thresholds, int[] rightChildren, int[] roots, ArrayList<L> labels,
+					   FlatFeatures<V,?,?> encoding) {
+		this.features = features;
+		this.thresholds = thresholds;
+		this.rightChildren = rightChildren;
+		this.roots = roots;
+		this.labels = labels;
+		this.encoding = encoding;
+	}
+
+	// Post: Returns trees compiled with encoding. Label ids follow the
+	//       order of labels, with any other labels the trees hold after them.
+	public static <V,L,F,FV extends Comparable<FV>> FlatForest<V,L> compile(List<DecisionTree<V,L,F,FV>> trees,
+																		  List<L> labels, FlatFeatures<V,F,FV> encoding) {
+		Compiler<V,L,F,FV> compiler = new Compiler<>(labels, encoding);
+		int[] roots = new int[trees.size()];
+		for (int i = 0; i < trees.size(); i++) {
+			roots[i] = compiler.size;
+			compiler.add(trees.get(i));
+		}
+		return new FlatForest<>(Arrays.copyOf(compiler.features, compiler.size),
+				Arrays.copyOf(compiler.thresholds, compiler.size), Arrays.copyOf(compiler.rightChildren, compiler.size),
+				roots, compiler.labels, encoding);
+	}
+
+	public static <V,L,F,FV extends Comparable<FV>> FlatForest<V,L> compile(DecisionTree<V,L,F,FV> tree,
+																		  FlatFeatures<V,F,FV> encoding) {
+		return compile(List.of(tree), List.of(), encoding);
+	}
+
+	private static class Compiler<V,L,F,FV extends Comparable<FV>> {
+		int[] features = new int[64];
+		int[] thresholds = new int[64];
+		int[] rightChildren = new int[64];
+		int size = 0;
+		ArrayList<L> labels;
+		HashMap<L,Integer> labelIds = new HashMap<>();
+		FlatFeatures<V,F,FV> encoding;
+
+		Compiler(List<L> labels, FlatFeatures<V,F,FV> encoding) {
+			this.labels = new ArrayList<>();
+			this.encoding = encoding;
+			labels.forEach(this::labelIdFor);
+		}
+
+		int labelIdFor(L label) {
+			Integer id = labelIds.get(label);
+			if (id == null) {
+				id = labels.size();
+				labelIds.put(label, id);
+				labels.add(label);
+			}
+			return id;
+		}
+
+		void add(DecisionTree<V,L,F,FV> tree) {
+			if (size == features.length) {
+				features = Arrays.copyOf(features, 2 * size);
+				thresholds = Arrays.copyOf(thresholds, 2 * size);
+				rightChildren = Arrays.copyOf(rightChildren, 2 * size);
+			}
+			int node = size++;
+			if (tree instanceof DTInterior<V,L,F,FV> interior) {
+				features[node] = encoding.indexOf(interior.getDecisionFeature());
+				thresholds[node] = encoding.encode(interior.getMaxFeatureValue());
+				add(interior.getLeft());
+				rightChildren[node] = size;
+				add(interior.getRight());
+			} else if (tree instanceof DTLeaf<V,L,F,FV> leaf) {
+				features[node] = -1;
+				thresholds[node] = labelIdFor(leaf.getLabel());
+			} else {
+				throw new IllegalArgumentException("Cannot compile " + tree.getClass().getName());
+			}
+		}
+	}
+
+	public int numTrees() {return roots.length;}
+
+	public int numNodes() {return features.length;}
+
+	public int numLabels() {return labels.size();}
+
+	public L getLabel(int id) {return labels.get(id);}
+
+	// Post: Returns the id of the label tree chooses for value
+	public int classify(int tree, V value) {
+		int node = roots[tree];
+		while (features[node] >= 0) {
+			node = encoding.valueAt(value, features[node]) <= thresholds[node] ? node + 1 : rightChildren[node];
+		}
+		return thresholds[node];
+	}
+
+	public L classify(V value) {
+		int[] votes = new int[labels.size()];
+		for (int tree = 0; tree < roots.length; tree++) {
+			votes[classify(tree, value)] += 1;
+		}
+		return labels.get(winner(votes, 0));
+	}
+
+	// Post: Returns the votes for values[from..to), numLabels() per value.
+	//       Each tree classifies all of them before the next tree starts.
+	public int[] votes(List<V> values, int from, int to) {
+		int numLabels = labels.size();
+		int[] votes = new int[(to - from) * numLabels];
+		for (int tree = 0; tree < roots.length; tree++) {
+			for (int i = from; i < to; i++) {
+				votes[(i - from) * numLabels + classify(tree, values.get(i))] += 1;
+			}
+		}
+		return votes;
+	}
+
+	// Post: Returns the label id with the most votes in
+	//       votes[start..start + numLabels()), the lowest one on a tie
+	public int winner(int[] votes, int start) {
+		int best = 0;
+		for (int label = 1; label < labels.size(); label++) {
+			if (votes[start + label] > votes[start + best]) {
+				best = label;
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,64 @@
+package learning.decisiontree;
+
+import core.Duple;
+import learning.handwriting.core.Drawing;
+import learning.handwriting.learners.DrawingForest30;
+import learning.sentiment.core.SentimentAnalyzer;
+import learning.sentiment.core.SparseVector;
+import learning.sentiment.core.Vocabulary;
+import learning.sentiment.learners.SentimentForest30;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+// Times training DrawingForest30 and SentimentForest30 with pools of 1, 2, 4, ...
+// threads, up to maxThreads, and checks that every pool builds the same forest.
+public class ForestBenchmark {
+    public static <V> void run(String name, Supplier<RandomForest<V,String,?,?>> maker,
+                               ArrayList<Duple<V,String>> data, int maxThreads) {
+        System.out.printf("%s, %d examples%n", name, data.size());
+        System.out.printf("%8s %10s %10s %6s%n", "threads", "seconds", "speedup", "same");
+        double oneThread = 0;
+        String expected = null;
+        for (int numThreads = 1; numThreads <= maxThreads; numThreads = nextThreadCount(numThreads, maxThreads)) {
+            RandomForest<V,String,?,?> forest = maker.get();
+            ForkJoinPool pool = new ForkJoinPool(numThreads);
+            long before = System.nanoTime();
+            try {
+                forest.train(data, pool);
+            } finally {
+                pool.shutdown();
+            }
+            double seconds = (System.nanoTime() - before) / 1e9;
+            if (expected == null) {
+                oneThread = seconds;
+                expected = forest.toString();
+            }
+            System.out.printf("%8d %10.2f %9.2fx %6s%n", numThreads, seconds, oneThread / seconds,
+                    expected.equals(forest.toString()));
+        }
+    }
+
+    private static int nextThreadCount(int numThreads, int maxThreads) {
+        return numThreads < maxThreads && 2 * numThreads > maxThreads ? maxThreads : 2 * numThreads;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("-h")) {
+            System.out.println("Usage: ForestBenchmark [maxThreads] [drawingFile] [sentenceFile...]");
+            System.exit(1);
+        }
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        String drawingFile = args.length > 1 ? args[1] : "mnist/mnist_train_1000";
+        String[] sentenceFiles = args.length > 2 ? Arrays.copyOfRange(args, 2, args.length) : SentimentAnalyzer.DEFAULT_FILES;
+        long seed = 335;
+
+        run("DrawingForest30", () -> new DrawingForest30(seed), Drawing.parseDataFrom(new File(drawingFile)), maxThreads);
+        ArrayList<Duple<SparseVector,String>> sentences = SentimentAnalyzer.openSentimentStrings(new Vocabulary(), sentenceFiles);
+        run("SentimentForest30", () -> new SentimentForest30(seed), sentences, maxThreads);
+    }
+}
@@ -1,45 +1,265 @@
 package learning.decisiontree;
 
+import core.Codec;
 import core.Duple;
+import core.ModelReader;
+import core.ModelWriter;
 import learning.core.Classifier;
-import learning.core.Histogram;
 import learning.core.Updateable;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+// Trees are trained in parallel. Tree i resamples the data and chooses its
+// features with a Random seeded from the forest's seed and i alone, so a
+// forest with a given seed is the same however many threads build it.
+// Votes are counted in an int[] indexed by label, in the order labels first
+// appear in the training data; ties go to the label that appears first.
+// Given a FlatFeatures, the trained forest is compiled into a FlatForest,
+// which does the classifying.
 public class RandomForest<V,L, F, FV extends Comparable<FV>> implements Classifier<V,L> {
+	private final static int FORMAT_VERSION = 1;
+	private final static long SEED_STEP = 0x9E3779B97F4A7C15L;
+	private final static int CHUNK_SIZE = 64;
+
 	private ArrayList<DecisionTree<V,L,F,FV>> treeRoots;
 	private int numTrees;
+	private long seed;
 	private Function<ArrayList<Duple<V, L>>, ArrayList<Duple<F,FV>>> allFeatures;
 	private BiFunction<V,F,FV> getFeatureValue;
 	private Function<FV,FV> successor;
+	private ArrayList<L> labels;
+	private HashMap<L,Integer> labelIds;
+	private FlatFeatures<V,F,FV> encoding;
+	private FlatForest<V,L> flat;
 
 	public RandomForest(int numTrees, Function<ArrayList<Duple<V, L>>, ArrayList<Duple<F,FV>>> allFeatures,
-						BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor) {
+						BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor, FlatFeatures<V,F,FV> encoding,
+						long seed) {
 		this.numTrees = numTrees;
 		this.allFeatures = allFeatures;
 		this.getFeatureValue = getFeatureValue;
 		this.successor = successor;
+		this.encoding = encoding;
+		this.seed = seed;
 	}
 
+	public RandomForest(int numTrees, Function<ArrayList<Duple<V, L>>, ArrayList<Duple<F,FV>>> allFeatures,
+						BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor, FlatFeatures<V,F,FV> encoding) {
+		this(numTrees, allFeatures, getFeatureValue, successor, encoding, new Random().nextLong());
+	}
+
+	public RandomForest(int numTrees, Function<ArrayList<Duple<V, L>>, ArrayList<Duple<F,FV>>> allFeatures,
+						BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor, long seed) {
+		this(numTrees, allFeatures, getFeatureValue, successor, null, seed);
+	}
+
+	public RandomForest(int numTrees, Function<ArrayList<Duple<V, L>>, ArrayList<Duple<F,FV>>> allFeatures,
+						BiFunction<V,F,FV> getFeatureValue, Function<FV,FV> successor) {
+		this(numTrees, allFeatures, getFeatureValue, successor, new Random().nextLong());
+	}
+
+	public long getSeed() {return seed;}
+
 	@Override
 	public void train(ArrayList<Duple<V, L>> data) {
-		this.treeRoots = new ArrayList<>();
+		train(data, ForkJoinPool.commonPool());
+	}
+
+	// Post: Trains the trees as tasks in pool
+	public void train(ArrayList<Duple<V, L>> data, ForkJoinPool pool) {
+		labels = new ArrayList<>();
+		labelIds = new HashMap<>();
+		for (Duple<V,L> datum: data) {
+			if (!labelIds.containsKey(datum.getSecond())) {
+				labelIds.put(datum.getSecond(), labels.size());
+				labels.add(datum.getSecond());
+			}
+		}
+
+		Function<Random, DecisionTree<V,L,F,FV>> treeTrainer = treeTrainer(data);
+		List<Callable<DecisionTree<V,L,F,FV>>> tasks = new ArrayList<>();
 		for (int i = 0; i < numTrees; i++) {
-			DTTrainer<V,L, F, FV> trainer = new DTTrainer<>(DTTrainer.resample(data), allFeatures, true,
+			Random random = new Random(seed + i * SEED_STEP);
+			tasks.add(() -> treeTrainer.apply(random));
+		}
+		ArrayList<DecisionTree<V,L,F,FV>> trained = new ArrayList<>();
+		try {
+			for (Future<DecisionTree<V,L,F,FV>> tree: pool.invokeAll(tasks)) {
+				trained.add(tree.get());
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Training a tree failed", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while training", e);
+		}
+		this.treeRoots = trained;
+		this.flat = encoding == null ? null : FlatForest.compile(trained, labels, encoding);
+	}
+
+	// Post: Returns what trains one tree on a bootstrap sample of data,
+	//       given that tree's Random. It is called once per forest, so work
+	//       that every tree would repeat can be done here and shared; the
+	//       trees call it from several threads at once. By default, each
+	//       tree resamples data and passes the sample to trainTree().
+	protected Function<Random, DecisionTree<V,L,F,FV>> treeTrainer(ArrayList<Duple<V,L>> data) {
+		return random -> trainTree(DTTrainer.resample(data, random), random);
+	}
+
+	// Post: Returns a tree for sample that considers a random subset of the
+	//       features at each node, drawing every random choice from random
+	protected DecisionTree<V,L,F,FV> trainTree(ArrayList<Duple<V,L>> sample, Random random) {
+		return new ColumnarDTTrainer<>(sample, allFeatures, true, getFeatureValue, successor, random).train();
+	}
+
+	// Post: Writes the seed, the labels in vote order, and the trees
+	public void writeTo(ModelWriter out, Codec<L> labelCodec, Codec<F> featureCodec, Codec<FV> valueCodec) {
+		out.writeSection("RandomForest", FORMAT_VERSION);
+		out.writeLong(seed);
+		out.writeInt(labels.size());
+		for (L label: labels) {
+			labelCodec.write(out, label);
+		}
+		out.writeInt(treeRoots.size());
+		for (DecisionTree<V,L,F,FV> tree: treeRoots) {
+			DecisionTree.writeTo(tree, out, labelCodec, featureCodec, valueCodec);
+		}
+	}
+
+	// Post: Replaces the trees with those in, as if they had just been
+	//       trained, compiling them if this forest has a FlatFeatures. A
+	//       file with repeated labels, or a leaf whose label is not among
+	//       them, is an IOException, and leaves this as it was.
+	public void readFrom(ModelReader in, Codec<L> labelCodec, Codec<F> featureCodec, Codec<FV> valueCodec)
+			throws IOException {
+		in.readSection("RandomForest", FORMAT_VERSION);
+		long seed = in.readLong();
+		ArrayList<L> labels = new ArrayList<>();
+		HashMap<L,Integer> labelIds = new HashMap<>();
+		int numLabels = in.readInt();
+		for (int i = 0; i < numLabels; i++) {
+			L label = labelCodec.read(in);
+			labelIds.put(label, i);
+			labels.add(label);
+		}
+		if (labelIds.size() != numLabels) {
+			throw new IOException("Expected " + numLabels + " distinct labels, found " + labelIds.size());
+		}
+		int numRead = in.readInt();
+		if (numRead < 0) {
+			throw new IOException("Bad number of trees " + numRead);
+		}
+		ArrayList<DecisionTree<V,L,F,FV>> trees = new ArrayList<>();
+		HashSet<L> leafLabels = new HashSet<>();
+		for (int i = 0; i < numRead; i++) {
+			DecisionTree<V,L,F,FV> tree = DecisionTree.readFrom(in, labelCodec, featureCodec, valueCodec,
 					getFeatureValue, successor);
-			this.treeRoots.add(trainer.train());
+			tree.addAllLabels(leafLabels);
+			trees.add(tree);
+		}
+		for (L label: leafLabels) {
+			if (!labelIds.containsKey(label)) {
+				throw new IOException("A tree has label " + label + ", which is not among the forest's labels");
+			}
 		}
+		this.seed = seed;
+		this.labels = labels;
+		this.labelIds = labelIds;
+		this.treeRoots = trees;
+		this.flat = encoding == null ? null : FlatForest.compile(trees, labels, encoding);
 	}
 
+	// Empty if the forest has no FlatFeatures
+	public Optional<FlatForest<V,L>> getFlatForest() {return Optional.ofNullable(flat);}
+
 	@Override
 	public L classify(V v) {
-		// TODO: Ask each tree root for its classification of the Drawing.
-		//  Pick the plurality winner as the winner. I recommend using a Histogram.
-		return null;
+		if (flat != null) {
+			return flat.classify(v);
+		}
+		int[] votes = new int[labels.size()];
+		for (DecisionTree<V,L,F,FV> treeRoot: treeRoots) {
+			votes[labelIds.get(treeRoot.classify(v))] += 1;
+		}
+		return labels.get(winner(votes, 0));
+	}
+
+	// Each chunk of values goes down one tree after another, so a tree is
+	// used for the whole chunk while its nodes are in cache.
+	@SuppressWarnings("unchecked")
+	@Override
+	public ArrayList<L> classifyAll(List<V> values) {
+		Object[] results = new Object[values.size()];
+		ForkJoinPool.commonPool().invoke(new VoteTask(values, results, 0, values.size()));
+		ArrayList<L> classified = new ArrayList<>(results.length);
+		for (Object result: results) {
+			classified.add((L)result);
+		}
+		return classified;
+	}
+
+	private class VoteTask extends RecursiveAction {
+		private final static long serialVersionUID = 1L;
+
+		private List<V> values;
+		private Object[] results;
+		private int from, to;
+
+		VoteTask(List<V> values, Object[] results, int from, int to) {
+			this.values = values;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > CHUNK_SIZE) {
+				int middle = (from + to) / 2;
+				invokeAll(new VoteTask(values, results, from, middle), new VoteTask(values, results, middle, to));
+			} else if (flat != null) {
+				int[] votes = flat.votes(values, from, to);
+				for (int i = from; i < to; i++) {
+					results[i] = labels.get(flat.winner(votes, (i - from) * labels.size()));
+				}
+			} else {
+				int numLabels = labels.size();
+				int[] votes = new int[(to - from) * numLabels];
+				for (DecisionTree<V,L,F,FV> treeRoot: treeRoots) {
+					for (int i = from; i < to; i++) {
+						votes[(i - from) * numLabels + labelIds.get(treeRoot.classify(values.get(i)))] += 1;
+					}
+				}
+				for (int i = from; i < to; i++) {
+					results[i] = labels.get(winner(votes, (i - from) * numLabels));
+				}
+			}
+		}
+	}
+
+	// Post: Returns the label id with the most votes in
+	//       votes[start..start + # labels), the lowest one on a tie
+	private int winner(int[] votes, int start) {
+		int best = 0;
+		for (int label = 1; label < labels.size(); label++) {
+			if (votes[start + label] > votes[start + best]) {
+				best = label;
+			}
+		}
+		return best;
 	}
 
 	public <D extends Updateable<Duple<F,FV>>> void visualize(L label, D drawable) {
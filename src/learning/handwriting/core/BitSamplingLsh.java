@@ -0,0 +1,114 @@
+package learning.handwriting.core;
+
+import core.Duple;
+import learning.classifiers.LshIndex;
+import learning.classifiers.RecallAtK;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Random;
+
+// Locality-sensitive hashing for the Hamming distance between drawings.
+// Each table's key is the value of bitsPerKey randomly chosen pixels, so
+// two drawings that differ in d of n pixels share a key with probability
+// about (1 - d/n)^bitsPerKey. Candidates are ranked by Drawing.distance.
+public class BitSamplingLsh extends LshIndex<Drawing> {
+    private int bitsPerKey;
+    private long seed;
+    private int width, height;
+    private volatile int[][] pixels;
+
+    // Pre: 1 <= bitsPerKey <= 64
+    public BitSamplingLsh(int numTables, int bitsPerKey, long seed) {
+        super((d1, d2) -> d1.distance(d2), numTables);
+        if (bitsPerKey < 1 || bitsPerKey > 64) {
+            throw new IllegalArgumentException("Keys hold 1 to 64 bits, got " + bitsPerKey);
+        }
+        this.bitsPerKey = bitsPerKey;
+        this.seed = seed;
+    }
+
+    public BitSamplingLsh(int numTables, int bitsPerKey) {
+        this(numTables, bitsPerKey, 0);
+    }
+
+    // Pre: Every drawing has the size of the first one hashed
+    @Override
+    protected long[] keys(Drawing d) {
+        if (pixels == null) {
+            choosePixels(d.getWidth(), d.getHeight());
+        } else if (d.getWidth() != width || d.getHeight() != height) {
+            throw new IllegalArgumentException("Expected a " + width + " x " + height + " drawing, got "
+                    + d.getWidth() + " x " + d.getHeight());
+        }
+        long[] packed = new long[d.numWords()];
+        d.packInto(packed, 0);
+        long[] keys = new long[pixels.length];
+        for (int t = 0; t < pixels.length; t++) {
+            long key = 0;
+            for (int b = 0; b < bitsPerKey; b++) {
+                int p = pixels[t][b];
+                key |= ((packed[p >>> 6] >>> p) & 1L) << b;
+            }
+            keys[t] = key;
+        }
+        return keys;
+    }
+
+    // Picks bitsPerKey distinct pixels for each table, by a partial
+    // Fisher-Yates shuffle of all the pixel numbers.
+    private synchronized void choosePixels(int width, int height) {
+        if (pixels != null) {
+            return;
+        }
+        int numPixels = width * height;
+        if (numPixels < bitsPerKey) {
+            throw new IllegalArgumentException("Cannot sample " + bitsPerKey + " of " + numPixels + " pixels");
+        }
+        Random random = new Random(seed);
+        int[] all = new int[numPixels];
+        for (int p = 0; p < numPixels; p++) {
+            all[p] = p;
+        }
+        int[][] chosen = new int[getNumTables()][bitsPerKey];
+        for (int t = 0; t < chosen.length; t++) {
+            for (int b = 0; b < bitsPerKey; b++) {
+                int j = b + random.nextInt(numPixels - b);
+                int swap = all[b];
+                all[b] = all[j];
+                all[j] = swap;
+                chosen[t][b] = all[b];
+            }
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = chosen;
+    }
+
+    // Compares indices with 1, 2, 4, ... maxTables tables against the exact
+    // PackedDrawings scan, to pick a table count for a given training set.
+    public static void main(String[] args) throws FileNotFoundException {
+        if (args.length != 5) {
+            System.out.println("Usage: BitSamplingLsh trainingFile testingFile k bitsPerKey maxTables");
+            System.exit(1);
+        }
+        ArrayList<Duple<Drawing, String>> training = Drawing.parseDataFrom(args[0]);
+        ArrayList<Drawing> queries = new ArrayList<>();
+        for (Duple<Drawing, String> datum: Drawing.parseDataFrom(args[1])) {
+            queries.add(datum.getFirst());
+        }
+        int k = Integer.parseInt(args[2]);
+        int bitsPerKey = Integer.parseInt(args[3]);
+        int maxTables = Integer.parseInt(args[4]);
+
+        PackedDrawings exact = new PackedDrawings();
+        training.forEach(datum -> exact.add(datum.getFirst()));
+        RecallAtK<Drawing> recall = new RecallAtK<>(exact, queries, k);
+        System.out.printf("%d training, %d queries, k = %d, %d bits per key%n", training.size(), queries.size(), k, bitsPerKey);
+        for (int numTables = 1; numTables <= maxTables; numTables *= 2) {
+            BitSamplingLsh lsh = new BitSamplingLsh(numTables, bitsPerKey);
+            training.forEach(datum -> lsh.add(datum.getFirst()));
+            System.out.printf("%3d tables: %s%n", numTables, recall.measure(lsh));
+        }
+    }
+}
@@ -5,6 +5,7 @@ import core.Duple;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Scanner;
@@ -107,6 +108,20 @@ public class Drawing {
 		return copy.cardinality();
 	}
 	
+	// Number of longs it takes to hold the pixels of this drawing
+	public int numWords() {
+		return (width * height + 63) / 64;
+	}
+
+	// Pre: target has room for numWords() longs starting at offset
+	// Post: Copies the pixels into target in BitSet.toLongArray() order
+	public void packInto(long[] target, int offset) {
+		long[] words = bits.toLongArray();
+		int n = Math.min(words.length, numWords());
+		System.arraycopy(words, 0, target, offset, n);
+		Arrays.fill(target, offset + n, offset + numWords(), 0L);
+	}
+
 	public void clear() {
 		for (int x = 0; x < getWidth(); ++x) {
 			for (int y = 0; y < getHeight(); ++y) {
@@ -1,6 +1,15 @@
 package learning.handwriting.core;
 
+import core.Codec;
+
 public class DrawingPoint {
+    public final static Codec<DrawingPoint> CODEC = new Codec<>(
+            (out, p) -> {
+                out.writeInt(p.x);
+                out.writeInt(p.y);
+            },
+            in -> new DrawingPoint(in.readInt(), in.readInt()));
+
     private int x, y;
 
     public DrawingPoint(int x, int y) {
@@ -1,6 +1,24 @@
 package learning.handwriting.core;
 
+import core.Codec;
+
 public class FloatDrawing {
+    // Writes the width, then each column of pixels
+    public final static Codec<FloatDrawing> CODEC = new Codec<>(
+            (out, d) -> {
+                out.writeInt(d.getWidth());
+                for (double[] column: d.pixels) {
+                    out.writeDoubles(column);
+                }
+            },
+            in -> {
+                double[][] pixels = new double[in.readInt()][];
+                for (int x = 0; x < pixels.length; x++) {
+                    pixels[x] = in.readDoubles();
+                }
+                return new FloatDrawing(pixels);
+            });
+
     private double[][] pixels;
 
     public FloatDrawing(int width, int height) {
@@ -20,6 +38,28 @@ public class FloatDrawing {
         }
     }
 
+    // Post: Returns a FloatDrawing of the given size whose pixels are
+    //       values, a column at a time, as toFloats() lays them out
+    public static FloatDrawing fromFloats(float[] values, int width, int height) {
+        FloatDrawing result = new FloatDrawing(width, height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                result.pixels[x][y] = values[x * height + y];
+            }
+        }
+        return result;
+    }
+
+    public float[] toFloats() {
+        float[] values = new float[getWidth() * getHeight()];
+        for (int x = 0; x < getWidth(); x++) {
+            for (int y = 0; y < getHeight(); y++) {
+                values[x * getHeight() + y] = (float)pixels[x][y];
+            }
+        }
+        return values;
+    }
+
     public double get(int x, int y) {
         return pixels[x][y];
     }
@@ -28,13 +68,18 @@ public class FloatDrawing {
         pixels[x][y] = value;
     }
 
-    // TODO: Calculate a weighted average. The argument d1weight is a value
-    //  between zero and one. Each pixel in the returned FloatDrawing
-    //  is calculated as follows:
-    //  d1weight * d1 pixel value + (1.0 - d1weight) * d2 pixel value
+    // Calculate a weighted average. The argument d1weight is a value
+    // between zero and one. Each pixel in the returned FloatDrawing
+    // is calculated as follows:
+    // d1weight * d1 pixel value + (1.0 - d1weight) * d2 pixel value
     public static FloatDrawing weightedAverageOf(FloatDrawing d1, FloatDrawing d2, double d1weight) {
-        // Your code here
-        return null;
+        FloatDrawing result = new FloatDrawing(d1.getWidth(), d1.getHeight());
+        for (int x = 0; x < d1.getWidth(); x++) {
+            for (int y = 0; y < d1.getHeight(); y++) {
+                result.pixels[x][y] = d1weight * d1.pixels[x][y] + (1.0 - d1weight) * d2.pixels[x][y];
+            }
+        }
+        return result;
     }
 
     public int getWidth() {
@@ -45,10 +90,21 @@ public class FloatDrawing {
         return pixels[0].length;
     }
 
-    // TODO: Calculate the pixel-by-pixel Euclidean distance between these two
-    //  FloatDrawing objects.
+    // Post: Returns the sum of the squared pixel-by-pixel differences, i.e.
+    //       the square of the Euclidean distance. It orders neighbors the
+    //       same way the Euclidean distance does, but it is not a metric; an
+    //       index that relies on the triangle inequality needs the square
+    //       root of this.
     public double euclideanDistance(FloatDrawing other) {
-        return 0.0;
+        double sum = 0.0;
+        for (int x = 0; x < getWidth(); x++) {
+            double[] column = pixels[x], otherColumn = other.pixels[x];
+            for (int y = 0; y < column.length; y++) {
+                double diff = column[y] - otherColumn[y];
+                sum += diff * diff;
+            }
+        }
+        return sum;
     }
 
     @Override
@@ -0,0 +1,126 @@
+package learning.handwriting.core;
+
+import core.Codec;
+import core.ModelReader;
+import core.ModelWriter;
+import learning.classifiers.NeighborHeap;
+import learning.classifiers.NeighborIndex;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Drawings of a single size packed end to end into one long[], one row of
+// numWords() longs per drawing. The Hamming distance to a query is the
+// bitCount of the XOR of each pair of words, which needs no allocation per
+// training drawing, unlike Drawing.distance. A row stops being counted as
+// soon as it is farther than the kth nearest found so far.
+public class PackedDrawings implements NeighborIndex<Drawing> {
+    private final static int FORMAT_VERSION = 1;
+
+    // Reads and writes a NeighborIndex that is a PackedDrawings
+    public final static Codec<NeighborIndex<Drawing>> CODEC = new Codec<>(
+            (out, index) -> ((PackedDrawings)index).writeTo(out), PackedDrawings::readFrom);
+
+    private long[] rows = new long[0];
+    private int width, height, wordsPerRow;
+    private int size = 0;
+
+    // Pre: Every drawing added has the same width and height
+    @Override
+    public void add(Drawing d) {
+        if (size == 0) {
+            width = d.getWidth();
+            height = d.getHeight();
+            wordsPerRow = d.numWords();
+        } else {
+            checkSize(d);
+        }
+        if ((size + 1) * wordsPerRow > rows.length) {
+            rows = Arrays.copyOf(rows, Math.max(16 * wordsPerRow, 2 * rows.length));
+        }
+        d.packInto(rows, size * wordsPerRow);
+        size += 1;
+    }
+
+    @Override
+    public int size() {return size;}
+
+    // Post: Returns the Hamming distance between query and drawing i
+    public int distance(Drawing query, int i) {
+        checkSize(query);
+        long[] packed = new long[wordsPerRow];
+        query.packInto(packed, 0);
+        return distance(packed, i, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int[] nearest(Drawing query, int k) {
+        NeighborHeap heap = new NeighborHeap(Math.max(0, Math.min(k, size)));
+        if (heap.capacity() == 0) {
+            return heap.sorted();
+        }
+        checkSize(query);
+        long[] packed = new long[wordsPerRow];
+        query.packInto(packed, 0);
+        for (int i = 0; i < size; i++) {
+            int limit = heap.isFull() ? (int)heap.worstDistance() : Integer.MAX_VALUE;
+            int d = distance(packed, i, limit);
+            if (d <= limit) {
+                heap.offer(d, i);
+            }
+        }
+        return heap.sorted();
+    }
+
+    // Post: Returns the distance from packed to row i, or some value above
+    //       limit once the distance is known to exceed it
+    private int distance(long[] packed, int i, int limit) {
+        long[] rows = this.rows;
+        int r = i * wordsPerRow;
+        int d = 0;
+        int w = 0;
+        for (; w + 4 <= wordsPerRow; w += 4) {
+            d += Long.bitCount(packed[w] ^ rows[r + w]) + Long.bitCount(packed[w + 1] ^ rows[r + w + 1])
+                    + Long.bitCount(packed[w + 2] ^ rows[r + w + 2]) + Long.bitCount(packed[w + 3] ^ rows[r + w + 3]);
+            if (d > limit) {
+                return d;
+            }
+        }
+        for (; w < wordsPerRow; w++) {
+            d += Long.bitCount(packed[w] ^ rows[r + w]);
+        }
+        return d;
+    }
+
+    // The rows are written as one array, so reading them back is one bulk
+    // copy from the mapped file.
+    public void writeTo(ModelWriter out) {
+        out.writeSection("PackedDrawings", FORMAT_VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(wordsPerRow);
+        out.writeInt(size);
+        out.writeLongs(rows, 0, size * wordsPerRow);
+    }
+
+    public static PackedDrawings readFrom(ModelReader in) throws IOException {
+        in.readSection("PackedDrawings", FORMAT_VERSION);
+        PackedDrawings result = new PackedDrawings();
+        result.width = in.readInt();
+        result.height = in.readInt();
+        result.wordsPerRow = in.readInt();
+        result.size = in.readInt();
+        result.rows = in.readLongs();
+        if (result.rows.length != result.size * result.wordsPerRow) {
+            throw new IOException("Expected " + result.size * result.wordsPerRow + " words, found " + result.rows.length);
+        }
+        return result;
+    }
+
+    private void checkSize(Drawing d) {
+        if (d.getWidth() != width || d.getHeight() != height) {
+            throw new IllegalArgumentException("Expected a " + width + " x " + height + " drawing, got "
+                    + d.getWidth() + " x " + d.getHeight());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package learning.handwriting.core;
+
+import learning.decisiontree.FlatFeatures;
+
+// A pixel's index packs its x and y, so it does not depend on the size of
+// the drawings. Values are encoded by PixelUse ordinal, so ON < OFF.
+public class PixelFeatures implements FlatFeatures<Drawing, DrawingPoint, PixelUse> {
+	@Override
+	public int indexOf(DrawingPoint feature) {
+		return feature.getX() << 16 | feature.getY();
+	}
+
+	@Override
+	public int valueAt(Drawing value, int index) {
+		return value.isSet(index >>> 16, index & 0xFFFF) ? PixelUse.ON.ordinal() : PixelUse.OFF.ordinal();
+	}
+
+	@Override
+	public int encode(PixelUse featureValue) {
+		return featureValue.ordinal();
+	}
+}
@@ -2,21 +2,27 @@ package learning.handwriting.core;
 
 import core.Duple;
 import learning.classifiers.SOMRecognizer;
-import learning.core.Classifier;
+import learning.core.OnlineClassifier;
 import learning.handwriting.gui.DrawingEditor;
 import learning.handwriting.gui.SelfOrgMapPanel;
+import learning.som.DenseSOMAdapter;
+import learning.som.DenseSelfOrgMap;
 
 import javax.swing.*;
 import java.util.ArrayList;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-public class SOMDrawingBridge implements Classifier<Drawing,String> {
+// The map is a DenseSelfOrgMap, so training on a whole set of drawings
+// uses the parallel batch SOM, and learnOne() still updates it online.
+public class SOMDrawingBridge implements OnlineClassifier<Drawing,String> {
     private SOMRecognizer<FloatDrawing,String> inner;
 
     public SOMDrawingBridge(int mapSide) {
-        inner = new SOMRecognizer<>(mapSide, () -> new FloatDrawing(DrawingEditor.DRAWING_WIDTH, DrawingEditor.DRAWING_HEIGHT),
-                FloatDrawing::euclideanDistance, FloatDrawing::weightedAverageOf);
+        int width = DrawingEditor.DRAWING_WIDTH, height = DrawingEditor.DRAWING_HEIGHT;
+        DenseSelfOrgMap map = new DenseSelfOrgMap(mapSide, width * height);
+        inner = new SOMRecognizer<>(new DenseSOMAdapter<>(map, FloatDrawing::toFloats,
+                values -> FloatDrawing.fromFloats(values, width, height)), FloatDrawing::euclideanDistance);
     }
 
     @Override
@@ -32,6 +38,11 @@ public class SOMDrawingBridge implements Classifier<Drawing,String> {
         inner.train(floated);
     }
 
+    @Override
+    public void learnOne(Drawing value, String label) {
+        inner.learnOne(new FloatDrawing(value), label);
+    }
+
     @Override
     public Optional<JPanel> getVisualization() {
         return Optional.of(new SelfOrgMapPanel(inner.getSOM()));
@@ -4,6 +4,7 @@ import core.AIReflector;
 import core.Duple;
 import learning.core.Assessment;
 import learning.core.Classifier;
+import learning.core.CrossValidation;
 import learning.handwriting.core.Drawing;
 import learning.handwriting.core.SampleData;
 
@@ -341,9 +342,12 @@ public class DrawingEditor extends JFrame {
 				try {
 					timer.start();
 					JTabbedPane tabs = new JTabbedPane();
-					ArrayList<Assessment<L>> assessments = Assessment.multiTrial(() -> finder.optionalInstanceOf(learner).get(), partitions);
-					for (Assessment<L> assessment : assessments) {
-						tabs.add(new JTable(new AssessmentModel<>(assessment)));
+					ArrayList<CrossValidation.Fold<L>> folds =
+							new CrossValidation<V,L>(() -> finder.optionalInstanceOf(learner).get()).run(partitions);
+					tabs.addTab("All", new JTable(new AssessmentModel<>(CrossValidation.combined(folds))));
+					for (int i = 0; i < folds.size(); i++) {
+						tabs.addTab("Fold " + (i + 1), null, new JTable(new AssessmentModel<>(folds.get(i).getAssessment())),
+								folds.get(i).toString());
 					}
 					assessmentFrame.setContentPane(tabs);
 					assessmentFrame.setSize(300, 300);
@@ -1,15 +1,15 @@
 package learning.handwriting.gui;
 
 import learning.handwriting.core.FloatDrawing;
-import learning.som.SelfOrgMap;
+import learning.som.SOM;
 
 import javax.swing.*;
 import java.awt.*;
 
 public class SelfOrgMapPanel extends JPanel {
-	private SelfOrgMap<FloatDrawing> som;
+	private SOM<FloatDrawing> som;
 	
-	public SelfOrgMapPanel(SelfOrgMap som) {
+	public SelfOrgMapPanel(SOM<FloatDrawing> som) {
 		super();
 		this.som = som;
 		setBackground(Color.white);
@@ -1,30 +1,58 @@
 package learning.handwriting.learners;
 
+import core.Codec;
 import core.Duple;
+import core.ModelReader;
+import core.ModelWriter;
 import learning.decisiontree.RandomForest;
 import learning.handwriting.core.Drawing;
 import learning.handwriting.core.DrawingPoint;
+import learning.handwriting.core.PixelFeatures;
 import learning.handwriting.core.PixelUse;
 import learning.handwriting.core.PixelUsePattern;
 import learning.handwriting.gui.PixelUseVisualizer;
 import learning.handwriting.gui.PixelUser;
 
 import javax.swing.*;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 public class DrawingForest30 extends RandomForest<Drawing,String,DrawingPoint, PixelUse> implements PixelUser {
+	private final static int FORMAT_VERSION = 1;
+	private final static Codec<PixelUse> PIXEL_USE = Codec.ofEnum(PixelUse.class);
+
 	private int width, height;
 	
 	public DrawingForest30() {
-		super(30, Drawing::allFeatures, Drawing::getFeatureValue, PixelUse::successor);
+		super(30, Drawing::allFeatures, Drawing::getFeatureValue, PixelUse::successor, new PixelFeatures());
+	}
+
+	public DrawingForest30(long seed) {
+		super(30, Drawing::allFeatures, Drawing::getFeatureValue, PixelUse::successor, new PixelFeatures(), seed);
 	}
 
 	@Override
-	public void train(ArrayList<Duple<Drawing, String>> data) {
+	public void train(ArrayList<Duple<Drawing, String>> data, ForkJoinPool pool) {
 		this.width = data.get(0).getFirst().getWidth();
 		this.height = data.get(0).getFirst().getHeight();
-		super.train(data);
+		super.train(data, pool);
+	}
+
+	public void writeTo(ModelWriter out) {
+		out.writeSection("DrawingForest30", FORMAT_VERSION);
+		out.writeInt(width);
+		out.writeInt(height);
+		writeTo(out, Codec.STRING, DrawingPoint.CODEC, PIXEL_USE);
+	}
+
+	// Post: Replaces the trees with those in, ready to classify without training
+	public void readFrom(ModelReader in) throws IOException {
+		in.readSection("DrawingForest30", FORMAT_VERSION);
+		width = in.readInt();
+		height = in.readInt();
+		readFrom(in, Codec.STRING, DrawingPoint.CODEC, PIXEL_USE);
 	}
 
 	@Override
@@ -2,10 +2,12 @@ package learning.handwriting.learners;
 
 import core.Duple;
 import learning.core.Classifier;
-import learning.decisiontree.DTTrainer;
+import learning.decisiontree.ColumnarDTTrainer;
 import learning.decisiontree.DecisionTree;
+import learning.decisiontree.FlatForest;
 import learning.handwriting.core.Drawing;
 import learning.handwriting.core.DrawingPoint;
+import learning.handwriting.core.PixelFeatures;
 import learning.handwriting.core.PixelUse;
 import learning.handwriting.core.PixelUsePattern;
 import learning.handwriting.gui.PixelUseVisualizer;
@@ -19,6 +21,7 @@ import java.util.Set;
 
 public class DrawingTree implements Classifier<Drawing,String>, PixelUser {
 	private DecisionTree<Drawing,String, DrawingPoint, PixelUse> root;
+	private FlatForest<Drawing,String> flat;
     // DrawingPoint is the x,y coordinate looking at currently
     // PixelUse is an Enum that can be ON or OFF
 
@@ -29,14 +32,15 @@ public class DrawingTree implements Classifier<Drawing,String>, PixelUser {
 	public void train(ArrayList<Duple<Drawing, String>> data) {
 		this.width = data.get(0).getFirst().getWidth();
 		this.height = data.get(0).getFirst().getHeight();
-		DTTrainer<Drawing,String,DrawingPoint,PixelUse> trainer = new DTTrainer<>(data, Drawing::allFeatures,
+		ColumnarDTTrainer<Drawing,String,DrawingPoint,PixelUse> trainer = new ColumnarDTTrainer<>(data, Drawing::allFeatures,
 				Drawing::getFeatureValue, PixelUse::successor);
 		root = trainer.train();
+		flat = FlatForest.compile(root, new PixelFeatures());
 	}
 
 	@Override
 	public String classify(Drawing d) {
-		return root.classify(d);
+		return flat.classify(d);
 	}
 
 	@Override
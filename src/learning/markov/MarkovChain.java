@@ -1,10 +1,17 @@
 package learning.markov;
 
+import core.Codec;
+import core.Duple;
+import core.ModelReader;
+import core.ModelWriter;
 import learning.core.Histogram;
 
+import java.io.IOException;
 import java.util.*;
 
 public class MarkovChain<L,S> {
+    private final static int FORMAT_VERSION = 1;
+
     private LinkedHashMap<L, HashMap<Optional<S>, Histogram<S>>> label2symbol2symbol = new LinkedHashMap<>();
 
     public Set<L> allLabels() {return label2symbol2symbol.keySet();}
@@ -30,7 +37,81 @@ public class MarkovChain<L,S> {
     // Increase the count for the transition from prev to next.
     // Should pass SimpleMarkovTest.testCreateChains().
     public void count(Optional<S> prev, L label, S next) {
-        // TODO: YOUR CODE HERE
+        // HashMap.computeIfAbsent puts new keys at the head of their bucket, so
+        // it would list them in a different order than put does.
+        HashMap<Optional<S>, Histogram<S>> symbol2symbol = label2symbol2symbol.get(label);
+        if (symbol2symbol == null) {
+            symbol2symbol = new HashMap<>();
+            label2symbol2symbol.put(label, symbol2symbol);
+        }
+        Histogram<S> following = symbol2symbol.get(prev);
+        if (following == null) {
+            following = new Histogram<>();
+            symbol2symbol.put(prev, following);
+        }
+        following.bump(next);
+    }
+
+    // Counts every transition in sequence, starting from no symbol, on top
+    // of the counts already made. Memory grows with the number of distinct
+    // transitions, not with the number of sequences.
+    public void learnOne(ArrayList<S> sequence, L label) {
+        Optional<S> prev = Optional.empty();
+        for (S next: sequence) {
+            count(prev, label, next);
+            prev = Optional.of(next);
+        }
+    }
+
+    public void partialTrain(Iterable<Duple<ArrayList<S>, L>> data) {
+        for (Duple<ArrayList<S>, L> datum: data) {
+            learnOne(datum.getFirst(), datum.getSecond());
+        }
+    }
+
+    // Post: Writes every count, labels in order and each label's
+    //       transitions in the order toString() lists them
+    public void writeTo(ModelWriter out, Codec<L> labelCodec, Codec<S> symbolCodec) {
+        out.writeSection("MarkovChain", FORMAT_VERSION);
+        out.writeInt(label2symbol2symbol.size());
+        for (Map.Entry<L, HashMap<Optional<S>, Histogram<S>>> labelEntry: label2symbol2symbol.entrySet()) {
+            labelCodec.write(out, labelEntry.getKey());
+            out.writeInt(labelEntry.getValue().size());
+            for (Map.Entry<Optional<S>, Histogram<S>> entry: labelEntry.getValue().entrySet()) {
+                out.writeBoolean(entry.getKey().isPresent());
+                entry.getKey().ifPresent(prev -> symbolCodec.write(out, prev));
+                Histogram<S> following = entry.getValue();
+                out.writeInt(following.size());
+                for (S next: following) {
+                    symbolCodec.write(out, next);
+                    out.writeInt(following.getCountFor(next));
+                }
+            }
+        }
+    }
+
+    // Post: Replaces the counts with those in; counting can continue from
+    //       there
+    public void readFrom(ModelReader in, Codec<L> labelCodec, Codec<S> symbolCodec) throws IOException {
+        in.readSection("MarkovChain", FORMAT_VERSION);
+        LinkedHashMap<L, HashMap<Optional<S>, Histogram<S>>> counts = new LinkedHashMap<>();
+        int numLabels = in.readInt();
+        for (int i = 0; i < numLabels; i++) {
+            L label = labelCodec.read(in);
+            HashMap<Optional<S>, Histogram<S>> symbol2symbol = new HashMap<>();
+            int numPrevs = in.readInt();
+            for (int j = 0; j < numPrevs; j++) {
+                Optional<S> prev = in.readBoolean() ? Optional.of(symbolCodec.read(in)) : Optional.empty();
+                Histogram<S> following = new Histogram<>();
+                int numNexts = in.readInt();
+                for (int n = 0; n < numNexts; n++) {
+                    following.bumpBy(symbolCodec.read(in), in.readInt());
+                }
+                symbol2symbol.put(prev, following);
+            }
+            counts.put(label, symbol2symbol);
+        }
+        label2symbol2symbol = counts;
     }
 
     // Returns P(sequence | label)
@@ -1,5 +1,8 @@
 package learning.markov;
 
+import core.Codec;
+import core.ModelReader;
+import core.ModelWriter;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -7,6 +10,8 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 
 import static org.junit.Assert.assertEquals;
@@ -86,6 +91,14 @@ public class SimpleMarkovTest {
         }
     }
 
+    @Test
+    public void testLearnOne() throws IOException {
+        MarkovLanguage learned = new MarkovLanguage();
+        learned.learnOne(file2chars("books/english_test.txt"), "English");
+        learned.learnOne(file2chars("books/spanish_test.txt"), "Spanish");
+        assertEquals(chains.toString(), learned.toString());
+    }
+
     public static ArrayList<Character> file2chars(String filename) throws IOException {
         BufferedReader reader = new BufferedReader(new FileReader(filename));
         StringBuilder result = new StringBuilder();
@@ -98,4 +111,21 @@ public class SimpleMarkovTest {
             }
         }
     }
+
+    @Test
+    public void testSaveLoad() throws IOException {
+        Path file = Files.createTempFile("markov", ".model");
+        try {
+            try (ModelWriter out = new ModelWriter(file)) {
+                chains.writeTo(out, Codec.STRING, Codec.CHARACTER);
+            }
+            MarkovLanguage loaded = new MarkovLanguage();
+            try (ModelReader in = new ModelReader(file)) {
+                loaded.readFrom(in, Codec.STRING, Codec.CHARACTER);
+            }
+            assertEquals(chains.toString(), loaded.toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
@@ -18,9 +18,15 @@ public class BagOfWordsFuncs {
     }
 
     public static <K, N extends Number> double dotProduct(Map<K, N> a, Map<K, N> b) {
+        if (a.size() > b.size()) {
+            return dotProduct(b, a);
+        }
         double result = 0.0;
-        for (K key: keysFromBoth(a, b)) {
-            result += a.get(key).doubleValue() * b.get(key).doubleValue();
+        for (Map.Entry<K, N> entry: a.entrySet()) {
+            N other = b.get(entry.getKey());
+            if (other != null) {
+                result += entry.getValue().doubleValue() * other.doubleValue();
+            }
         }
         return result;
     }
@@ -0,0 +1,111 @@
+package learning.sentiment.core;
+
+import learning.classifiers.LinearScanIndex;
+import learning.classifiers.LshIndex;
+import learning.classifiers.RecallAtK;
+import learning.core.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Locality-sensitive hashing for the cosine distance between bags of words.
+// Each key bit is the side of a random hyperplane through the origin that a
+// bag lies on, so two bags at angle theta agree on a bit with probability
+// 1 - theta/pi. The vocabulary is open-ended, so rather than storing the
+// hyperplanes, each word gets its Gaussian components from a generator
+// seeded by the word, cached on first use. Candidates are ranked by
+// Histogram.cosineDistance.
+public class HyperplaneLsh extends LshIndex<Histogram<String>> {
+    private int bitsPerKey;
+    private long seed;
+    private ConcurrentHashMap<String, float[]> components = new ConcurrentHashMap<>();
+
+    // Pre: 1 <= bitsPerKey <= 64
+    public HyperplaneLsh(int numTables, int bitsPerKey, long seed) {
+        super(Histogram::cosineDistance, numTables);
+        if (bitsPerKey < 1 || bitsPerKey > 64) {
+            throw new IllegalArgumentException("Keys hold 1 to 64 bits, got " + bitsPerKey);
+        }
+        this.bitsPerKey = bitsPerKey;
+        this.seed = seed;
+    }
+
+    public HyperplaneLsh(int numTables, int bitsPerKey) {
+        this(numTables, bitsPerKey, 0);
+    }
+
+    @Override
+    protected long[] keys(Histogram<String> bag) {
+        double[] projections = new double[getNumTables() * bitsPerKey];
+        for (String word: bag) {
+            int count = bag.getCountFor(word);
+            float[] c = components.computeIfAbsent(word, this::componentsFor);
+            for (int p = 0; p < projections.length; p++) {
+                projections[p] += count * c[p];
+            }
+        }
+        long[] keys = new long[getNumTables()];
+        for (int t = 0; t < keys.length; t++) {
+            long key = 0;
+            for (int b = 0; b < bitsPerKey; b++) {
+                if (projections[t * bitsPerKey + b] >= 0) {
+                    key |= 1L << b;
+                }
+            }
+            keys[t] = key;
+        }
+        return keys;
+    }
+
+    // Post: Returns the component of word along each hyperplane's normal
+    private float[] componentsFor(String word) {
+        Random random = new Random(seed ^ (word.hashCode() * 0x9E3779B97F4A7C15L));
+        float[] result = new float[getNumTables() * bitsPerKey];
+        for (int p = 0; p < result.length; p++) {
+            result[p] = (float)random.nextGaussian();
+        }
+        return result;
+    }
+
+    // Compares indices with 1, 2, 4, ... maxTables tables against the exact
+    // scan. Every tenth sentence of the files (one "text<TAB>label" per
+    // line) is a query and the rest are indexed.
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.out.println("Usage: HyperplaneLsh k bitsPerKey maxTables sentenceFile...");
+            System.exit(1);
+        }
+        int k = Integer.parseInt(args[0]);
+        int bitsPerKey = Integer.parseInt(args[1]);
+        int maxTables = Integer.parseInt(args[2]);
+        ArrayList<Histogram<String>> indexed = new ArrayList<>();
+        ArrayList<Histogram<String>> queries = new ArrayList<>();
+        int numRead = 0;
+        for (int f = 3; f < args.length; f++) {
+            for (String line: Files.readAllLines(Path.of(args[f]))) {
+                int tab = line.lastIndexOf('\t');
+                Histogram<String> bag = new Sentence(tab < 0 ? line : line.substring(0, tab)).wordCounts();
+                numRead += 1;
+                if (numRead % 10 == 0) {
+                    queries.add(bag);
+                } else {
+                    indexed.add(bag);
+                }
+            }
+        }
+
+        LinearScanIndex<Histogram<String>> exact = new LinearScanIndex<>(Histogram::cosineDistance);
+        indexed.forEach(exact::add);
+        RecallAtK<Histogram<String>> recall = new RecallAtK<>(exact, queries, k);
+        System.out.printf("%d indexed, %d queries, k = %d, %d bits per key%n", indexed.size(), queries.size(), k, bitsPerKey);
+        for (int numTables = 1; numTables <= maxTables; numTables *= 2) {
+            HyperplaneLsh lsh = new HyperplaneLsh(numTables, bitsPerKey);
+            indexed.forEach(lsh::add);
+            System.out.printf("%3d tables: %s%n", numTables, recall.measure(lsh));
+        }
+    }
+}
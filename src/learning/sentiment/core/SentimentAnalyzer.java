@@ -4,25 +4,41 @@ import core.AIReflector;
 import core.Duple;
 import learning.core.Assessment;
 import learning.core.Classifier;
+import learning.core.CrossValidation;
 import learning.core.Histogram;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
 
 public class SentimentAnalyzer {
-    public static void main(String[] args) throws InvocationTargetException, InstantiationException, IllegalAccessException, NoSuchMethodException, FileNotFoundException, InterruptedException {
-        if (args.length != 2) {
-            System.out.println("Usage: SentimentAnalyzer ClassifierClassName numDataSegments");
-        } else {
-            AIReflector<Classifier<Histogram<String>,String>> reflector = new AIReflector<>(Classifier.class, "learning.sentiment.learners");
-            ArrayList<Duple<Histogram<String>,String>> sentimentStrings = openSentimentStrings("tagged_selections_by_sentence_simplified.csv");
-            ArrayList<ArrayList<Duple<Histogram<String>,String>>> partitions = Assessment.partition(Integer.parseInt(args[1]), sentimentStrings);
-            ArrayList<Assessment<String>> assessments = Assessment.multiTrial(() -> reflector.optionalInstanceOf(args[0]).get(), partitions);
+    public final static String[] DEFAULT_FILES = {
+            "sentiment_labelled_sentences/amazon_cells_labelled.txt",
+            "sentiment_labelled_sentences/imdb_labelled.txt",
+            "sentiment_labelled_sentences/yelp_labelled.txt"};
 
+    public static void main(String[] args) throws InvocationTargetException, InstantiationException, IllegalAccessException, NoSuchMethodException, IOException, InterruptedException, ExecutionException {
+        if (args.length < 2) {
+            System.out.println("Usage: SentimentAnalyzer ClassifierClassName numDataSegments [sentenceFile...]");
+        } else {
+            AIReflector<Classifier<SparseVector,String>> reflector = new AIReflector<>(Classifier.class, "learning.sentiment.learners");
+            String[] files = args.length > 2 ? Arrays.copyOfRange(args, 2, args.length) : DEFAULT_FILES;
+            ArrayList<Duple<SparseVector,String>> sentimentStrings = openSentimentStrings(new Vocabulary(), files);
+            ArrayList<ArrayList<Duple<SparseVector,String>>> partitions = Assessment.partition(Integer.parseInt(args[1]), sentimentStrings);
+            ArrayList<CrossValidation.Fold<String>> folds =
+                    new CrossValidation<SparseVector,String>(() -> reflector.optionalInstanceOf(args[0]).get()).run(partitions);
+            for (int i = 0; i < folds.size(); i++) {
+                System.out.println("Fold " + (i + 1) + ": " + folds.get(i));
+            }
+            Assessment<String> combined = CrossValidation.combined(folds);
+            for (int i = 0; i < combined.numLabels(); i++) {
+                String label = combined.getLabel(i);
+                System.out.println(label + ": " + combined.getCorrectFor(label) + "/" + combined.getTotalFor(label));
+            }
         }
     }
 
@@ -37,22 +53,25 @@ public class SentimentAnalyzer {
         return result;
     }
 
-    public static ArrayList<Duple<Histogram<String>,String>> openSentimentStrings(String filename) throws FileNotFoundException {
-        Scanner s = new Scanner(new File(filename));
-        ArrayList<Duple<Histogram<String>,String>> result = new ArrayList<>();
-        while (s.hasNextLine()) {
-            String[] label_text = s.nextLine().split(",", 2);
-            result.add(new Duple<>(bagOfWordsFrom(label_text[1]), label_text[0]));
+    public static SparseVector vectorFrom(String line, Vocabulary vocabulary) {
+        return vocabulary.tokenizer().vectorOf(line);
+    }
+
+    public static ArrayList<Duple<SparseVector,String>> openSentimentStrings(Vocabulary vocabulary, String... filenames) throws IOException {
+        Path[] files = new Path[filenames.length];
+        for (int i = 0; i < filenames.length; i++) {
+            files[i] = Path.of(filenames[i]);
         }
-        return result;
+        return SentimentReader.readAll(vocabulary, files);
     }
 
-    public static ArrayList<Duple<String, Integer>> allFeatures(ArrayList<Duple<Histogram<String>,String>> data) {
-        HashSet<Duple<String,Integer>> features = new HashSet<>();
-        for (Duple<Histogram<String>,String> datum: data) {
-            for (String key: datum.getFirst()) {
-                features.add(new Duple<>(key, 0));
-                features.add(new Duple<>(key, datum.getFirst().getCountFor(key)));
+    public static ArrayList<Duple<Integer, Float>> allFeatures(ArrayList<Duple<SparseVector,String>> data) {
+        HashSet<Duple<Integer,Float>> features = new HashSet<>();
+        for (Duple<SparseVector,String> datum: data) {
+            SparseVector v = datum.getFirst();
+            for (int i = 0; i < v.size(); i++) {
+                features.add(new Duple<>(v.getTerm(i), 0f));
+                features.add(new Duple<>(v.getTerm(i), v.getWeight(i)));
             }
         }
         return new ArrayList<>(features);
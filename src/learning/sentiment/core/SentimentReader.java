@@ -0,0 +1,166 @@
+package learning.sentiment.core;
+
+import core.Duple;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Reads labelled sentences, one "text<TAB>label" per line as in
+// sentiment_labelled_sentences, and yields them one at a time as sparse
+// vectors. The file is decoded as UTF-8 through fixed 64 KB buffers and
+// each line is tokenized in place, so memory use does not grow with the
+// file. Lines without a label are skipped and counted. Labels 0 and 1
+// become NEGATIVE and POSITIVE; other labels are kept as written.
+public class SentimentReader implements Iterator<Duple<SparseVector,String>>, Closeable {
+    private final static int BUFFER_SIZE = 1 << 16;
+
+    private FileChannel channel;
+    private CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private boolean endOfInput = false;
+    private char[] line = new char[256];
+    private int lineLength;
+    private Tokenizer tokenizer;
+    private Duple<SparseVector,String> pending;
+    private int numSkipped = 0;
+
+    public SentimentReader(Path file, Vocabulary vocabulary) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        tokenizer = new Tokenizer(vocabulary);
+        chars.flip();
+    }
+
+    // Post: Returns every labelled sentence in files, in order
+    public static ArrayList<Duple<SparseVector,String>> readAll(Vocabulary vocabulary, Path... files) throws IOException {
+        ArrayList<Duple<SparseVector,String>> result = new ArrayList<>();
+        for (Path file: files) {
+            try (SentimentReader reader = new SentimentReader(file, vocabulary)) {
+                reader.forEachRemaining(result::add);
+            }
+        }
+        return result;
+    }
+
+    public static String labelFor(String score) {
+        return switch (score) {
+            case "0" -> "NEGATIVE";
+            case "1" -> "POSITIVE";
+            default -> score;
+        };
+    }
+
+    // Number of non-blank lines so far that had no label
+    public int getNumSkipped() {return numSkipped;}
+
+    // Throws UncheckedIOException if the file cannot be read
+    @Override
+    public boolean hasNext() {
+        if (pending == null) {
+            pending = readNext();
+        }
+        return pending != null;
+    }
+
+    @Override
+    public Duple<SparseVector,String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Duple<SparseVector,String> result = pending;
+        pending = null;
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Duple<SparseVector,String> readNext() {
+        while (readLine()) {
+            int tab = lineLength - 1;
+            while (tab >= 0 && line[tab] != '\t') {
+                tab -= 1;
+            }
+            if (tab >= 0) {
+                String score = new String(line, tab + 1, lineLength - tab - 1).strip();
+                if (!score.isEmpty()) {
+                    return new Duple<>(tokenizer.vectorOf(CharBuffer.wrap(line, 0, tab)), labelFor(score));
+                }
+            }
+            if (lineLength > 0) {
+                numSkipped += 1;
+            }
+        }
+        return null;
+    }
+
+    // Post: Reads the next line, without its terminator, into line; returns
+    //       false at the end of the file
+    private boolean readLine() {
+        lineLength = 0;
+        boolean readAny = false;
+        for (;;) {
+            char[] buffer = chars.array();
+            int limit = chars.limit();
+            for (int i = chars.position(); i < limit; i++) {
+                char c = buffer[i];
+                readAny = true;
+                if (c == '\n') {
+                    chars.position(i + 1);
+                    return true;
+                } else if (c != '\r') {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, 2 * line.length);
+                    }
+                    line[lineLength++] = c;
+                }
+            }
+            chars.position(limit);
+            if (!fill()) {
+                return readAny;
+            }
+        }
+    }
+
+    // Post: Decodes more of the file into chars; returns false if there is
+    //       nothing left
+    private boolean fill() {
+        if (endOfInput) {
+            return false;
+        }
+        chars.clear();
+        try {
+            while (chars.position() == 0 && !endOfInput) {
+                int numRead = channel.read(bytes);
+                endOfInput = numRead < 0;
+                bytes.flip();
+                decoder.decode(bytes, chars, endOfInput);
+                if (endOfInput) {
+                    decoder.flush(chars);
+                }
+                bytes.compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+}
@@ -0,0 +1,55 @@
+package learning.sentiment.core;
+
+import core.Duple;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SentimentReaderTest {
+    @Test
+    public void testRead() throws IOException {
+        String longSentence = "café ".repeat(20000);
+        String text = "Great phone, great battery!\t1\r\n"
+                + "No label here.\t\n"
+                + "\n"
+                + longSentence + "\t0\n"
+                + "It's fine\tNEUTRAL";
+        Path file = Files.createTempFile("sentiment", ".txt");
+        try {
+            Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+            Vocabulary vocabulary = new Vocabulary();
+            ArrayList<Duple<SparseVector,String>> data = new ArrayList<>();
+            int numSkipped;
+            try (SentimentReader reader = new SentimentReader(file, vocabulary)) {
+                reader.forEachRemaining(data::add);
+                numSkipped = reader.getNumSkipped();
+            }
+
+            assertEquals(3, data.size());
+            assertEquals(1, numSkipped);
+            assertEquals("POSITIVE", data.get(0).getSecond());
+            assertEquals("NEGATIVE", data.get(1).getSecond());
+            assertEquals("NEUTRAL", data.get(2).getSecond());
+
+            SparseVector first = data.get(0).getFirst();
+            assertEquals(3, first.size());
+            assertEquals(2.0f, first.weightOf(vocabulary.idOf("great")), 0.0f);
+            assertEquals(1.0f, first.weightOf(vocabulary.idOf("phone")), 0.0f);
+            assertEquals(1, data.get(1).getFirst().size());
+            assertEquals(20000.0f, data.get(1).getFirst().weightOf(vocabulary.idOf("café")), 0.0f);
+            assertEquals(3, data.get(2).getFirst().size());
+            assertEquals(data.get(0).getFirst(), SentimentAnalyzer.vectorFrom("GREAT battery; phone great", vocabulary));
+            assertEquals(data.get(0).getFirst(), SentimentAnalyzer.vectorFrom("great phone, battery great!", vocabulary));
+            assertSame(vocabulary.tokenizer(), vocabulary.tokenizer());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package learning.sentiment.core;
+
+import learning.core.Histogram;
+
+import java.util.Arrays;
+
+// A bag of words as parallel arrays of term ids, in ascending order, and
+// their weights, with the L2 norm computed once. A dot product walks both
+// id arrays together, so comparing two vectors allocates nothing, unlike
+// BagOfWordsFuncs on a pair of Histograms.
+public class SparseVector {
+    private int[] terms;
+    private float[] weights;
+    private double norm;
+
+    // Pre: terms is strictly ascending and as long as weights
+    public SparseVector(int[] terms, float[] weights) {
+        if (terms.length != weights.length) {
+            throw new IllegalArgumentException(terms.length + " terms but " + weights.length + " weights");
+        }
+        for (int i = 1; i < terms.length; i++) {
+            if (terms[i - 1] >= terms[i]) {
+                throw new IllegalArgumentException("Term ids out of order at " + i);
+            }
+        }
+        this.terms = terms;
+        this.weights = weights;
+        double squares = 0;
+        for (float w: weights) {
+            squares += w * w;
+        }
+        this.norm = Math.sqrt(squares);
+    }
+
+    // Post: Returns the vector of word counts in bag, numbering new words
+    //       in vocabulary
+    public static SparseVector of(Histogram<String> bag, Vocabulary vocabulary) {
+        // Sorting (id, count) pairs packed into longs sorts by id.
+        long[] pairs = new long[bag.size()];
+        int n = 0;
+        for (String word: bag) {
+            pairs[n++] = (long)vocabulary.idOf(word) << 32 | bag.getCountFor(word);
+        }
+        Arrays.sort(pairs);
+        int[] terms = new int[n];
+        float[] weights = new float[n];
+        for (int i = 0; i < n; i++) {
+            terms[i] = (int)(pairs[i] >>> 32);
+            weights[i] = (int)pairs[i];
+        }
+        return new SparseVector(terms, weights);
+    }
+
+    // Number of terms with a stored weight
+    public int size() {return terms.length;}
+
+    public int getTerm(int i) {return terms[i];}
+
+    public float getWeight(int i) {return weights[i];}
+
+    // Post: Returns the weight of term, or 0 if it is absent
+    public float weightOf(int term) {
+        int i = Arrays.binarySearch(terms, term);
+        return i >= 0 ? weights[i] : 0;
+    }
+
+    public double norm() {return norm;}
+
+    public double dot(SparseVector other) {
+        int[] t1 = this.terms, t2 = other.terms;
+        float[] w1 = this.weights, w2 = other.weights;
+        double result = 0;
+        int i = 0, j = 0;
+        while (i < t1.length && j < t2.length) {
+            if (t1[i] < t2[j]) {
+                i += 1;
+            } else if (t1[i] > t2[j]) {
+                j += 1;
+            } else {
+                result += (double)w1[i++] * w2[j++];
+            }
+        }
+        return result;
+    }
+
+    // Post: Returns the cosine of the angle between the vectors, or 0 if
+    //       either one is all zeros
+    public double cosineSimilarity(SparseVector other) {
+        double norms = this.norm * other.norm;
+        return norms == 0 ? 0 : dot(other) / norms;
+    }
+
+    public double cosineDistance(SparseVector other) {
+        return 1.0 - cosineSimilarity(other);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof SparseVector that
+                && Arrays.equals(this.terms, that.terms) && Arrays.equals(this.weights, that.weights);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(terms) + Arrays.hashCode(weights);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < terms.length; i++) {
+            result.append("(").append(terms[i]).append(":").append(weights[i]).append(")");
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,22 @@
+package learning.sentiment.core;
+
+import learning.decisiontree.FlatFeatures;
+
+// A term's index is its id, and its value is its weight, encoded with
+// FlatFeatures.sortableBits().
+public class TermFeatures implements FlatFeatures<SparseVector, Integer, Float> {
+    @Override
+    public int indexOf(Integer feature) {
+        return feature;
+    }
+
+    @Override
+    public int valueAt(SparseVector value, int index) {
+        return FlatFeatures.sortableBits(value.weightOf(index));
+    }
+
+    @Override
+    public int encode(Float featureValue) {
+        return FlatFeatures.sortableBits(featureValue);
+    }
+}
@@ -0,0 +1,102 @@
+package learning.sentiment.core;
+
+import java.util.Arrays;
+
+// Turns text into sparse vectors of word counts without regular
+// expressions. A word is a maximal run of characters that are neither
+// whitespace nor ASCII punctuation (what \p{Punct} matches), lowercased.
+// Words are built in a char[] and looked up first in a small direct-mapped
+// cache of recent words, so a common word costs no String allocation. A
+// Tokenizer reuses its buffers, so each thread needs its own; they may
+// share a Vocabulary.
+public class Tokenizer {
+    private final static int CACHE_SIZE = 1 << 12;
+
+    private Vocabulary vocabulary;
+    private char[] word = new char[32];
+    private int wordLength = 0;
+    private int wordHash = 0;
+    private int[] ids = new int[64];
+    private String[] cachedWords = new String[CACHE_SIZE];
+    private int[] cachedIds = new int[CACHE_SIZE];
+
+    public Tokenizer(Vocabulary vocabulary) {
+        this.vocabulary = vocabulary;
+    }
+
+    public Vocabulary getVocabulary() {return vocabulary;}
+
+    public SparseVector vectorOf(CharSequence text) {
+        int numIds = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isSeparator(c)) {
+                numIds = endWord(numIds);
+            } else {
+                if (wordLength == word.length) {
+                    word = Arrays.copyOf(word, 2 * word.length);
+                }
+                c = Character.toLowerCase(c);
+                word[wordLength++] = c;
+                wordHash = 31 * wordHash + c;
+            }
+        }
+        numIds = endWord(numIds);
+
+        Arrays.sort(ids, 0, numIds);
+        int numTerms = 0;
+        for (int i = 0; i < numIds; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                numTerms += 1;
+            }
+        }
+        int[] terms = new int[numTerms];
+        float[] weights = new float[numTerms];
+        int t = -1;
+        for (int i = 0; i < numIds; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                t += 1;
+                terms[t] = ids[i];
+            }
+            weights[t] += 1;
+        }
+        return new SparseVector(terms, weights);
+    }
+
+    // Post: Adds the id of the word in progress, if any, and returns the
+    //       new number of ids
+    private int endWord(int numIds) {
+        if (wordLength == 0) {
+            return numIds;
+        }
+        if (numIds == ids.length) {
+            ids = Arrays.copyOf(ids, 2 * ids.length);
+        }
+        int slot = (wordHash ^ (wordHash >>> 16)) & (CACHE_SIZE - 1);
+        if (!isWord(cachedWords[slot])) {
+            cachedWords[slot] = new String(word, 0, wordLength);
+            cachedIds[slot] = vocabulary.idOf(cachedWords[slot]);
+        }
+        ids[numIds] = cachedIds[slot];
+        wordLength = 0;
+        wordHash = 0;
+        return numIds + 1;
+    }
+
+    private boolean isWord(String s) {
+        if (s == null || s.length() != wordLength) {
+            return false;
+        }
+        for (int i = 0; i < wordLength; i++) {
+            if (s.charAt(i) != word[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean isSeparator(char c) {
+        return Character.isWhitespace(c)
+                || (c >= '!' && c <= '/') || (c >= ':' && c <= '@') || (c >= '[' && c <= '`') || (c >= '{' && c <= '~');
+    }
+}
@@ -0,0 +1,68 @@
+package learning.sentiment.core;
+
+import core.ModelReader;
+import core.ModelWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Numbers each distinct term in the order it is first seen, so that bags of
+// words can be stored as sorted arrays of term ids. Vectors are comparable
+// only if they were built with the same Vocabulary. Safe to share between
+// threads; looking up a known term takes no lock.
+public class Vocabulary {
+    private final static int FORMAT_VERSION = 1;
+
+    private ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private ArrayList<String> terms = new ArrayList<>();
+    private ThreadLocal<Tokenizer> tokenizers = ThreadLocal.withInitial(() -> new Tokenizer(this));
+
+    // Post: Returns the id of term, numbering it first if it is new
+    public int idOf(String term) {
+        Integer id = ids.get(term);
+        return id != null ? id : intern(term);
+    }
+
+    private synchronized int intern(String term) {
+        return ids.computeIfAbsent(term, t -> {
+            terms.add(t);
+            return terms.size() - 1;
+        });
+    }
+
+    // Pre: 0 <= id < size()
+    public synchronized String termOf(int id) {
+        return terms.get(id);
+    }
+
+    public int size() {return ids.size();}
+
+    // Post: Returns the calling thread's Tokenizer for this Vocabulary, so
+    //       that one-off lines reuse its word cache. Ids never change, so
+    //       what it has cached stays right.
+    public Tokenizer tokenizer() {return tokenizers.get();}
+
+    // Models that store term ids, like SentimentForest30, need the
+    // Vocabulary saved alongside them.
+    public synchronized void writeTo(ModelWriter out) {
+        out.writeSection("Vocabulary", FORMAT_VERSION);
+        out.writeInt(terms.size());
+        for (String term: terms) {
+            out.writeString(term);
+        }
+    }
+
+    public static Vocabulary readFrom(ModelReader in) throws IOException {
+        in.readSection("Vocabulary", FORMAT_VERSION);
+        Vocabulary result = new Vocabulary();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            result.idOf(in.readString());
+        }
+        if (result.size() != size) {
+            throw new IOException("Duplicate terms in vocabulary");
+        }
+        return result;
+    }
+}
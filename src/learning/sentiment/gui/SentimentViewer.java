@@ -3,19 +3,18 @@ package learning.sentiment.gui;
 import core.AIReflector;
 import core.Duple;
 import learning.core.Classifier;
-import learning.core.Histogram;
 import learning.handwriting.gui.DrawingEditor;
-import learning.sentiment.core.Sentence;
 import learning.sentiment.core.SentimentAnalyzer;
+import learning.sentiment.core.SentimentReader;
+import learning.sentiment.core.SparseVector;
+import learning.sentiment.core.Vocabulary;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Optional;
-import java.util.Scanner;
 
 public class SentimentViewer extends JFrame {
     public static void main(String[] args) {
@@ -28,10 +27,11 @@ public class SentimentViewer extends JFrame {
     private JTextField sentiment, progress;
     private JButton classify;
     private JComboBox learner;
-    private Classifier<Histogram<String>,String> ai;
-    private AIReflector<Classifier<Histogram<String>, String>> finder;
+    private Classifier<SparseVector,String> ai;
+    private AIReflector<Classifier<SparseVector, String>> finder;
     private JFrame assessmentFrame = new JFrame();
     private JFileChooser chooser;
+    private Vocabulary vocabulary = new Vocabulary();
 
     public SentimentViewer() {
         setSize(600, 400);
@@ -71,7 +71,7 @@ public class SentimentViewer extends JFrame {
             if (ai == null) {
                 JOptionPane.showMessageDialog(SentimentViewer.this, "Train an AI first");
             } else {
-                sentiment.setText(ai.classify(SentimentAnalyzer.bagOfWordsFrom(message.getText())));
+                sentiment.setText(ai.classify(SentimentAnalyzer.vectorFrom(message.getText(), vocabulary)));
             }
         });
         add(classify);
@@ -89,26 +89,12 @@ public class SentimentViewer extends JFrame {
         add(progress);
     }
 
-    ArrayList<Duple<Histogram<String>,String>> openSentimentStrings(File f) throws FileNotFoundException {
-        ArrayList<Duple<Histogram<String>,String>> result = new ArrayList<>();
-        Scanner s = new Scanner(f);
-        while (s.hasNextLine()) {
-            String line = s.nextLine();
-            if (line.endsWith("0") || line.endsWith("1")) {
-                String[] partScore = line.split("\\t");
-                String sentiment = partScore[1].equals("0") ? "NEGATIVE" : "POSITIVE";
-                result.add(new Duple<>(new Sentence(partScore[0]).wordCounts(), sentiment));
-            }
-        }
-        return result;
-    }
-
-    private Optional<ArrayList<Duple<Histogram<String>,String>>> getSentimentStrings() {
+    private Optional<ArrayList<Duple<SparseVector,String>>> getSentimentStrings() {
         int choice = chooser.showOpenDialog(null);
         if (choice == JFileChooser.APPROVE_OPTION) {
             try {
-                return Optional.of(openSentimentStrings(chooser.getSelectedFile()));
-            } catch (FileNotFoundException e) {
+                return Optional.of(SentimentReader.readAll(vocabulary, chooser.getSelectedFile().toPath()));
+            } catch (IOException e) {
                 e.printStackTrace();
                 JOptionPane.showMessageDialog(SentimentViewer.this, "Exception: " + e.getMessage());
             }
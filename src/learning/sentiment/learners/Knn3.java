@@ -1,10 +1,10 @@
 package learning.sentiment.learners;
 
 import learning.classifiers.Knn;
-import learning.core.Histogram;
+import learning.sentiment.core.SparseVector;
 
-public class Knn3 extends Knn<Histogram<String>,String>  {
+public class Knn3 extends Knn<SparseVector,String>  {
     public Knn3() {
-        super(3, Histogram::cosineDistance);
+        super(3, SparseVector::cosineDistance);
     }
 }
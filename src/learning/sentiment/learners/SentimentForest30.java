@@ -1,11 +1,49 @@
 package learning.sentiment.learners;
 
-import learning.core.Histogram;
+import core.Codec;
+import core.Duple;
+import core.ModelReader;
+import core.ModelWriter;
+import learning.decisiontree.BinnedDTTrainer;
+import learning.decisiontree.BinnedData;
+import learning.decisiontree.DecisionTree;
 import learning.decisiontree.RandomForest;
 import learning.sentiment.core.SentimentAnalyzer;
+import learning.sentiment.core.SparseVector;
+import learning.sentiment.core.TermFeatures;
 
-public class SentimentForest30 extends RandomForest<Histogram<String>, String, String, Integer> {
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.function.Function;
+
+public class SentimentForest30 extends RandomForest<SparseVector, String, Integer, Float> {
     public SentimentForest30() {
-        super(30, SentimentAnalyzer::allFeatures, Histogram::getCountFor, i -> i + 1);
+        super(30, SentimentAnalyzer::allFeatures, SparseVector::weightOf, f -> f + 1, new TermFeatures());
+    }
+
+    public SentimentForest30(long seed) {
+        super(30, SentimentAnalyzer::allFeatures, SparseVector::weightOf, f -> f + 1, new TermFeatures(), seed);
+    }
+
+    public void writeTo(ModelWriter out) {
+        writeTo(out, Codec.STRING, Codec.INTEGER, Codec.FLOAT);
+    }
+
+    // Post: Replaces the trees with those in, ready to classify without
+    //       training. Word ids must come from the same Vocabulary as before.
+    public void readFrom(ModelReader in) throws IOException {
+        readFrom(in, Codec.STRING, Codec.INTEGER, Codec.FLOAT);
+    }
+
+    // Every word is a feature, so the trees split on histograms of the
+    // counts. The words are binned once for the whole forest, and each tree
+    // weights the rows by its own bootstrap sample.
+    @Override
+    protected Function<Random, DecisionTree<SparseVector, String, Integer, Float>> treeTrainer(
+            ArrayList<Duple<SparseVector, String>> data) {
+        BinnedData<SparseVector, String, Integer, Float> binned = new BinnedData<>(data, SentimentAnalyzer::allFeatures,
+                SparseVector::weightOf, BinnedDTTrainer.DEFAULT_MAX_BINS);
+        return random -> new BinnedDTTrainer<>(binned, binned.bootstrap(random), true, f -> f + 1, random).train();
     }
 }
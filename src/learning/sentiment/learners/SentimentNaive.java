@@ -2,16 +2,16 @@ package learning.sentiment.learners;
 
 import core.Duple;
 import learning.classifiers.NaiveBayes;
-import learning.core.Histogram;
+import learning.sentiment.core.SparseVector;
 
 import java.util.ArrayList;
 
-public class SentimentNaive extends NaiveBayes<Histogram<String>, String, String> {
+public class SentimentNaive extends NaiveBayes<SparseVector, String, Integer> {
     public SentimentNaive() {
-        super(h -> {
-            ArrayList<Duple<String,Integer>> allCounts = new ArrayList<>();
-            for (String word: h) {
-                allCounts.add(new Duple<>(word, h.getCountFor(word)));
+        super(v -> {
+            ArrayList<Duple<Integer,Integer>> allCounts = new ArrayList<>();
+            for (int i = 0; i < v.size(); i++) {
+                allCounts.add(new Duple<>(v.getTerm(i), (int)v.getWeight(i)));
             }
             return allCounts;
         });
@@ -2,26 +2,30 @@ package learning.sentiment.learners;
 
 import core.Duple;
 import learning.core.Classifier;
-import learning.core.Histogram;
-import learning.decisiontree.DTTrainer;
+import learning.decisiontree.BinnedDTTrainer;
 import learning.decisiontree.DecisionTree;
+import learning.decisiontree.FlatForest;
 import learning.sentiment.core.SentimentAnalyzer;
+import learning.sentiment.core.SparseVector;
+import learning.sentiment.core.TermFeatures;
 
 import java.util.ArrayList;
 
-public class SentimentTree implements Classifier<Histogram<String>,String> {
-    private DecisionTree<Histogram<String>, String, String, Integer> root;
+public class SentimentTree implements Classifier<SparseVector,String> {
+    private DecisionTree<SparseVector, String, Integer, Float> root;
+    private FlatForest<SparseVector, String> flat;
 
     @Override
-    public String classify(Histogram<String> value) {
-        return root.classify(value);
+    public String classify(SparseVector value) {
+        return flat.classify(value);
     }
 
     @Override
-    public void train(ArrayList<Duple<Histogram<String>, String>> data) {
-        DTTrainer<Histogram<String>, String, String, Integer> trainer =
-                new DTTrainer<>(data, SentimentAnalyzer::allFeatures, Histogram::getCountFor, i -> i + 1);
+    public void train(ArrayList<Duple<SparseVector, String>> data) {
+        BinnedDTTrainer<SparseVector, String, Integer, Float> trainer =
+                new BinnedDTTrainer<>(data, SentimentAnalyzer::allFeatures, SparseVector::weightOf, f -> f + 1);
         root = trainer.train();
+        flat = FlatForest.compile(root, new TermFeatures());
     }
 
     @Override
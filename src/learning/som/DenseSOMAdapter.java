@@ -0,0 +1,58 @@
+package learning.som;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Lets a DenseSelfOrgMap stand in for a SelfOrgMap, converting values to
+// float[] on the way in and nodes back to values on the way out. A whole
+// batch is trained with the batch SOM.
+public class DenseSOMAdapter<V> implements SOM<V> {
+    private DenseSelfOrgMap map;
+    private Function<V,float[]> toVector;
+    private Function<float[],V> fromVector;
+    private int epochs;
+
+    public DenseSOMAdapter(DenseSelfOrgMap map, Function<V,float[]> toVector, Function<float[],V> fromVector, int epochs) {
+        this.map = map;
+        this.toVector = toVector;
+        this.fromVector = fromVector;
+        this.epochs = epochs;
+    }
+
+    public DenseSOMAdapter(DenseSelfOrgMap map, Function<V,float[]> toVector, Function<float[],V> fromVector) {
+        this(map, toVector, fromVector, DenseSelfOrgMap.DEFAULT_EPOCHS);
+    }
+
+    @Override
+    public SOMPoint bestFor(V example) {
+        return map.pointOf(map.bestFor(toVector.apply(example)));
+    }
+
+    @Override
+    public SOMPoint train(V example) {
+        return map.pointOf(map.train(toVector.apply(example)));
+    }
+
+    @Override
+    public void trainAll(List<V> values) {
+        ArrayList<float[]> vectors = new ArrayList<>(values.size());
+        for (V value: values) {
+            vectors.add(toVector.apply(value));
+        }
+        map.trainBatch(vectors, epochs);
+    }
+
+    @Override
+    public V getNode(int x, int y) {
+        return fromVector.apply(map.getNode(x, y));
+    }
+
+    @Override
+    public int getMapWidth() {return map.getMapWidth();}
+
+    @Override
+    public int getMapHeight() {return map.getMapHeight();}
+
+    public DenseSelfOrgMap getMap() {return map;}
+}
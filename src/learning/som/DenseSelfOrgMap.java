@@ -0,0 +1,346 @@
+package learning.som;
+
+import core.ModelReader;
+import core.ModelWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// A self-organizing map of float vectors that all have the same dimension.
+// Every node's vector lives in one float[], node after node, with y in the
+// outer order and x in the inner, so finding the best node is one pass
+// through one array. The squared distance from node n to example x is
+// |n|^2 - 2 n.x + |x|^2. The last term is the same for every node and
+// |n|^2 is kept up to date as nodes change, so only n.x is computed for each
+// node. When x is mostly zeros, as a FloatDrawing of a Drawing is, that is a
+// sum over the indices of its other values alone.
+//
+// train() moves the map toward one example, as SelfOrgMap.train() does.
+// trainBatch() is the batch SOM. Each epoch finds every example's best node,
+// and then replaces each node by the average of all the examples, each
+// weighted by a Gaussian of the map distance from the node to the example's
+// best node. The Gaussian narrows from half the map to half a node over the
+// epochs. Both steps run in parallel, but the work is divided the same way
+// whatever the pool, so the trained map does not depend on the thread count.
+public class DenseSelfOrgMap {
+    private final static int FORMAT_VERSION = 1;
+    private final static int SPARSE_FRACTION = 3;
+    private final static int EXAMPLES_PER_TASK = 64;
+    private final static double FINAL_SIGMA = 0.5;
+
+    public final static int DEFAULT_EPOCHS = 10;
+
+    private int width, height, dimension;
+    private float[] codebook;
+    private double[] norms;
+    private boolean trained = false;
+
+    public DenseSelfOrgMap(int width, int height, int dimension) {
+        this.width = width;
+        this.height = height;
+        this.dimension = dimension;
+        codebook = new float[width * height * dimension];
+        norms = new double[width * height];
+    }
+
+    public DenseSelfOrgMap(int side, int dimension) {
+        this(side, side, dimension);
+    }
+
+    // Post: Returns the index of the node nearest to example, the lowest one
+    //       on a tie; node y * getMapWidth() + x is at (x, y)
+    public int bestFor(float[] example) {
+        checkDimension(example);
+        int numNonZero = 0;
+        for (float value: example) {
+            if (value != 0) {
+                numNonZero += 1;
+            }
+        }
+        int[] nonZero = null;
+        if (numNonZero <= dimension / SPARSE_FRACTION) {
+            nonZero = new int[numNonZero];
+            for (int i = 0, n = 0; n < numNonZero; i++) {
+                if (example[i] != 0) {
+                    nonZero[n++] = i;
+                }
+            }
+        }
+
+        int best = 0;
+        double bestScore = Double.POSITIVE_INFINITY;
+        for (int node = 0; node < numMapNodes(); node++) {
+            int offset = node * dimension;
+            double dot = nonZero == null ? dot(offset, example) : sparseDot(offset, example, nonZero);
+            double score = norms[node] - 2 * dot;
+            if (score < bestScore) {
+                best = node;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    // Eight running sums, so that each add need not wait for the one before
+    private double dot(int offset, float[] example) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0, s4 = 0, s5 = 0, s6 = 0, s7 = 0;
+        int i = 0;
+        for (; i + 7 < dimension; i += 8) {
+            s0 += codebook[offset + i] * example[i];
+            s1 += codebook[offset + i + 1] * example[i + 1];
+            s2 += codebook[offset + i + 2] * example[i + 2];
+            s3 += codebook[offset + i + 3] * example[i + 3];
+            s4 += codebook[offset + i + 4] * example[i + 4];
+            s5 += codebook[offset + i + 5] * example[i + 5];
+            s6 += codebook[offset + i + 6] * example[i + 6];
+            s7 += codebook[offset + i + 7] * example[i + 7];
+        }
+        for (; i < dimension; i++) {
+            s0 += codebook[offset + i] * example[i];
+        }
+        return ((double)s0 + s1 + s2 + s3) + ((double)s4 + s5 + s6 + s7);
+    }
+
+    private double sparseDot(int offset, float[] example, int[] nonZero) {
+        double s0 = 0, s1 = 0;
+        int n = 0;
+        for (; n + 1 < nonZero.length; n += 2) {
+            s0 += codebook[offset + nonZero[n]] * example[nonZero[n]];
+            s1 += codebook[offset + nonZero[n + 1]] * example[nonZero[n + 1]];
+        }
+        for (; n < nonZero.length; n++) {
+            s0 += codebook[offset + nonZero[n]] * example[nonZero[n]];
+        }
+        return s0 + s1;
+    }
+
+    private void updateNorm(int node) {
+        int offset = node * dimension;
+        double norm = 0;
+        for (int i = 0; i < dimension; i++) {
+            norm += codebook[offset + i] * codebook[offset + i];
+        }
+        norms[node] = norm;
+    }
+
+    // Train with example, using the same learning rates as SelfOrgMap.train()
+    // Post: Returns the best node, as found before the update
+    public int train(float[] example) {
+        int best = bestFor(example);
+        update(best, example, 0.9f);
+        for (SOMPoint neighbor: pointOf(best).neighbors()) {
+            if (inMap(neighbor)) {
+                update(indexOf(neighbor), example, 0.4f);
+            }
+        }
+        trained = true;
+        return best;
+    }
+
+    private void update(int node, float[] example, float learningRate) {
+        int offset = node * dimension;
+        for (int i = 0; i < dimension; i++) {
+            // Pixels that stay blank decay toward zero; flushing them at the
+            // bottom of the float range keeps them out of slow subnormal arithmetic.
+            float value = learningRate * example[i] + (1.0f - learningRate) * codebook[offset + i];
+            codebook[offset + i] = Math.abs(value) < Float.MIN_NORMAL ? 0.0f : value;
+        }
+        updateNorm(node);
+    }
+
+    public void trainBatch(List<float[]> data, int epochs) {
+        trainBatch(data, epochs, ForkJoinPool.commonPool());
+    }
+
+    // Post: Trains for epochs passes over data, as tasks in pool. A map
+    //       that has not been trained yet starts from examples spread
+    //       evenly through data.
+    public void trainBatch(List<float[]> data, int epochs, ForkJoinPool pool) {
+        if (data.isEmpty()) {
+            return;
+        }
+        data.forEach(this::checkDimension);
+        if (!trained) {
+            for (int node = 0; node < numMapNodes(); node++) {
+                float[] example = data.get((int)((long)node * data.size() / numMapNodes()));
+                System.arraycopy(example, 0, codebook, node * dimension, dimension);
+                updateNorm(node);
+            }
+        }
+
+        int[] bests = new int[data.size()];
+        double firstSigma = Math.max(FINAL_SIGMA, Math.max(width, height) / 2.0);
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            double sigma = epochs == 1 ? FINAL_SIGMA
+                    : firstSigma * Math.pow(FINAL_SIGMA / firstSigma, (double)epoch / (epochs - 1));
+
+            pool.invoke(new RangeTask(0, data.size(), EXAMPLES_PER_TASK, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    bests[i] = bestFor(data.get(i));
+                }
+            }));
+
+            // The examples grouped by best node, each group in data order
+            int[] starts = new int[numMapNodes() + 1];
+            for (int best: bests) {
+                starts[best + 1] += 1;
+            }
+            for (int node = 0; node < numMapNodes(); node++) {
+                starts[node + 1] += starts[node];
+            }
+            int[] members = new int[bests.length];
+            int[] next = starts.clone();
+            for (int i = 0; i < bests.length; i++) {
+                members[next[bests[i]]++] = i;
+            }
+
+            double[] sums = new double[codebook.length];
+            pool.invoke(new RangeTask(0, numMapNodes(), 1, (from, to) -> {
+                for (int node = from; node < to; node++) {
+                    int offset = node * dimension;
+                    for (int m = starts[node]; m < starts[node + 1]; m++) {
+                        float[] example = data.get(members[m]);
+                        for (int i = 0; i < dimension; i++) {
+                            sums[offset + i] += example[i];
+                        }
+                    }
+                }
+            }));
+
+            float[] smoothed = new float[codebook.length];
+            pool.invoke(new RangeTask(0, numMapNodes(), 1, (from, to) -> {
+                double[] total = new double[dimension];
+                for (int node = from; node < to; node++) {
+                    smooth(node, sigma, starts, sums, total, smoothed);
+                }
+            }));
+            codebook = smoothed;
+            for (int node = 0; node < numMapNodes(); node++) {
+                updateNorm(node);
+            }
+        }
+        trained = true;
+    }
+
+    // Post: Sets node in smoothed to the neighborhood-weighted average of
+    //       the examples, or to its current vector if the weights all vanish
+    private void smooth(int node, double sigma, int[] starts, double[] sums, double[] total, float[] smoothed) {
+        int x = node % width, y = node / width;
+        double weight = 0;
+        Arrays.fill(total, 0);
+        for (int other = 0; other < numMapNodes(); other++) {
+            int count = starts[other + 1] - starts[other];
+            if (count == 0) {
+                continue;
+            }
+            int dx = other % width - x, dy = other / width - y;
+            double h = Math.exp(-(dx * dx + dy * dy) / (2 * sigma * sigma));
+            if (h == 0) {
+                continue;
+            }
+            weight += h * count;
+            int offset = other * dimension;
+            for (int i = 0; i < dimension; i++) {
+                total[i] += h * sums[offset + i];
+            }
+        }
+        int offset = node * dimension;
+        for (int i = 0; i < dimension; i++) {
+            smoothed[offset + i] = weight > 0 ? (float)(total[i] / weight) : codebook[offset + i];
+        }
+    }
+
+    private interface Range {
+        void run(int from, int to);
+    }
+
+    // Splits [from, to) in halves until a piece holds at most grain items
+    private static class RangeTask extends RecursiveAction {
+        private final static long serialVersionUID = 1L;
+
+        private int from, to, grain;
+        private Range body;
+
+        RangeTask(int from, int to, int grain, Range body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > grain) {
+                int middle = (from + to) / 2;
+                invokeAll(new RangeTask(from, middle, grain, body), new RangeTask(middle, to, grain, body));
+            } else {
+                body.run(from, to);
+            }
+        }
+    }
+
+    private void checkDimension(float[] example) {
+        if (example.length != dimension) {
+            throw new IllegalArgumentException("Expected " + dimension + " values, got " + example.length);
+        }
+    }
+
+    // Post: Returns a copy of the vector of the node at (x, y)
+    public float[] getNode(int x, int y) {
+        int offset = (y * width + x) * dimension;
+        return Arrays.copyOfRange(codebook, offset, offset + dimension);
+    }
+
+    public SOMPoint pointOf(int node) {
+        return new SOMPoint(node % width, node / width);
+    }
+
+    public int indexOf(SOMPoint point) {
+        return point.y() * width + point.x();
+    }
+
+    public int getMapWidth() {return width;}
+
+    public int getMapHeight() {return height;}
+
+    public int getDimension() {return dimension;}
+
+    public int numMapNodes() {return width * height;}
+
+    public boolean inMap(SOMPoint point) {
+        return point.x() >= 0 && point.x() < width && point.y() >= 0 && point.y() < height;
+    }
+
+    // Post: Writes the map's size, the dimension, and then the nodes in
+    //       index order
+    public void writeTo(ModelWriter out) {
+        out.writeSection("DenseSelfOrgMap", FORMAT_VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(dimension);
+        out.writeFloats(codebook);
+    }
+
+    // Post: Replaces the map with the one in in; training can continue
+    //       from there
+    public void readFrom(ModelReader in) throws IOException {
+        in.readSection("DenseSelfOrgMap", FORMAT_VERSION);
+        int width = in.readInt(), height = in.readInt(), dimension = in.readInt();
+        float[] codebook = in.readFloats();
+        if (width <= 0 || height <= 0 || dimension <= 0 || codebook.length != (long)width * height * dimension) {
+            throw new IOException("Bad map of " + width + " x " + height + " x " + dimension + " in " + codebook.length);
+        }
+        this.width = width;
+        this.height = height;
+        this.dimension = dimension;
+        this.codebook = codebook;
+        norms = new double[width * height];
+        for (int node = 0; node < numMapNodes(); node++) {
+            updateNorm(node);
+        }
+        trained = true;
+    }
+}
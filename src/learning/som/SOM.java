@@ -0,0 +1,37 @@
+package learning.som;
+
+import java.util.List;
+
+// What SOMRecognizer and SelfOrgMapPanel need from a self-organizing map,
+// so that SelfOrgMap and a DenseSOMAdapter can stand in for each other.
+public interface SOM<V> {
+    // Post: Returns the node nearest to example, the first found scanning
+    //       y in the outer loop and x in the inner loop on a tie
+    SOMPoint bestFor(V example);
+
+    // Post: Moves the map toward example; returns its best node, as found
+    //       before the update
+    SOMPoint train(V example);
+
+    V getNode(int x, int y);
+
+    int getMapWidth();
+
+    int getMapHeight();
+
+    // Trains on every value in values. A map that can train on a whole
+    // batch at once should override this.
+    default void trainAll(List<V> values) {
+        for (V value: values) {
+            train(value);
+        }
+    }
+
+    default int numMapNodes() {
+        return getMapWidth() * getMapHeight();
+    }
+
+    default boolean inMap(SOMPoint point) {
+        return point.x() >= 0 && point.x() < getMapWidth() && point.y() >= 0 && point.y() < getMapHeight();
+    }
+}
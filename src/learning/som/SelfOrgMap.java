@@ -1,10 +1,17 @@
 package learning.som;
 
+import core.Codec;
+import core.ModelReader;
+import core.ModelWriter;
+
+import java.io.IOException;
 import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.function.ToDoubleBiFunction;
 
-public class SelfOrgMap<V> {
+public class SelfOrgMap<V> implements SOM<V> {
+    private final static int FORMAT_VERSION = 1;
+
     private V[][] map;
     private ToDoubleBiFunction<V, V> distance;
     private WeightedAverager<V> averager;
@@ -20,24 +27,76 @@ public class SelfOrgMap<V> {
         }
     }
 
-    // TODO: Return a SOMPoint corresponding to the map square which has the
-    //  smallest distance compared to example.
+    // Return a SOMPoint corresponding to the map square which has the
+    // smallest distance compared to example.
     // NOTE: The unit tests assume that the map is traversed in row-major order,
     //  that is, the y-coordinate is updated in the outer loop, and the x-coordinate
-    //  is updated in the inner loop.
+    //  is updated in the inner loop. Ties go to the first square found.
     public SOMPoint bestFor(V example) {
-		// Your code here.
-        return null;
+        SOMPoint best = null;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int y = 0; y < getMapHeight(); y++) {
+            for (int x = 0; x < getMapWidth(); x++) {
+                double d = distance.applyAsDouble(map[x][y], example);
+                if (best == null || d < bestDistance) {
+                    best = new SOMPoint(x, y);
+                    bestDistance = d;
+                }
+            }
+        }
+        return best;
     }
 
-    // TODO: Train this SOM with example.
+    // Train this SOM with example.
     //  1. Find the best matching node.
     //  2. Update the best matching node with the average of itself and example,
     //     using a learning rate of 0.9.
     //  3. Update each neighbor of the best matching node that is in the map,
     //     using a learning rate of 0.4.
-    public void train(V example) {
-        // Your code here
+    // Post: Returns the best matching node, as found before the update
+    public SOMPoint train(V example) {
+        SOMPoint best = bestFor(example);
+        update(best, example, 0.9);
+        for (SOMPoint neighbor: best.neighbors()) {
+            if (inMap(neighbor)) {
+                update(neighbor, example, 0.4);
+            }
+        }
+        return best;
+    }
+
+    private void update(SOMPoint p, V example, double learningRate) {
+        map[p.x()][p.y()] = averager.weightedAverage(example, map[p.x()][p.y()], learningRate);
+    }
+
+    // Post: Writes the map's size and then its nodes, x outer, y inner
+    public void writeTo(ModelWriter out, Codec<V> nodeCodec) {
+        out.writeSection("SelfOrgMap", FORMAT_VERSION);
+        out.writeInt(getMapWidth());
+        out.writeInt(getMapHeight());
+        for (V[] column: map) {
+            for (V node: column) {
+                nodeCodec.write(out, node);
+            }
+        }
+    }
+
+    // Post: Replaces the nodes with those in, resizing the map to match;
+    //       training can continue from there
+    @SuppressWarnings("unchecked")
+    public void readFrom(ModelReader in, Codec<V> nodeCodec) throws IOException {
+        in.readSection("SelfOrgMap", FORMAT_VERSION);
+        int width = in.readInt(), height = in.readInt();
+        if (width <= 0 || height <= 0) {
+            throw new IOException("Bad map size " + width + " x " + height);
+        }
+        V[][] nodes = (V[][])new Object[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                nodes[x][y] = nodeCodec.read(in);
+            }
+        }
+        map = nodes;
     }
 
     public V getNode(int x, int y) {
@@ -52,14 +111,6 @@ public class SelfOrgMap<V> {
         return map[0].length;
     }
 
-    public int numMapNodes() {
-        return getMapHeight() * getMapWidth();
-    }
-
-    public boolean inMap(SOMPoint point) {
-        return point.x() >= 0 && point.x() < getMapWidth() && point.y() >= 0 && point.y() < getMapHeight();
-    }
-
     @Override
     public boolean equals(Object other) {
         if (other instanceof SelfOrgMap that) {
@@ -1,14 +1,23 @@
 package learning.som;
 
 import core.Duple;
+import core.ModelReader;
+import core.ModelWriter;
 import learning.handwriting.core.Drawing;
 import learning.handwriting.core.FloatDrawing;
 import learning.classifiers.SOMRecognizer;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
 
 public class SelfOrgMapTest {
     final static int TEST_WIDTH = 3;
@@ -107,4 +116,150 @@ public class SelfOrgMapTest {
         samples.add(new Duple<>(new FloatDrawing(new Drawing("2|2|XX|OX")), "B"));
         assertEquals("B", SOMRecognizer.findLabelFor(n0, 1, samples, FloatDrawing::euclideanDistance));
     }
+
+    @Test
+    public void testOnline() {
+        SOMRecognizer<FloatDrawing,String> recognizer = new SOMRecognizer<>(4, () -> new FloatDrawing(2, 2),
+                FloatDrawing::euclideanDistance, FloatDrawing::weightedAverageOf);
+        FloatDrawing left = new FloatDrawing(new Drawing("2|2|XO|XO"));
+        FloatDrawing right = new FloatDrawing(new Drawing("2|2|OX|OX"));
+        for (int i = 0; i < 20; i++) {
+            recognizer.learnOne(left, "L");
+            recognizer.learnOne(right, "R");
+        }
+        assertEquals("L", recognizer.classify(left));
+        assertEquals("R", recognizer.classify(right));
+        assertEquals("L", recognizer.classify(new FloatDrawing(new Drawing("2|2|XO|OO"))));
+    }
+
+    static ArrayList<float[]> randomVectors(Random random, int count, int dimension, boolean sparse) {
+        ArrayList<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            float[] v = new float[dimension];
+            for (int j = 0; j < dimension; j++) {
+                v[j] = sparse ? (random.nextInt(5) == 0 ? 1 : 0) : random.nextFloat();
+            }
+            vectors.add(v);
+        }
+        return vectors;
+    }
+
+    static int nearestNode(DenseSelfOrgMap map, float[] v) {
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int y = 0; y < map.getMapHeight(); y++) {
+            for (int x = 0; x < map.getMapWidth(); x++) {
+                float[] node = map.getNode(x, y);
+                double d = 0;
+                for (int i = 0; i < node.length; i++) {
+                    d += ((double)node[i] - v[i]) * ((double)node[i] - v[i]);
+                }
+                if (d < bestDistance) {
+                    best = map.indexOf(new SOMPoint(x, y));
+                    bestDistance = d;
+                }
+            }
+        }
+        return best;
+    }
+
+    @Test
+    public void testDenseBestFor() {
+        Random random = new Random(335);
+        for (boolean sparse: new boolean[]{false, true}) {
+            ArrayList<float[]> data = randomVectors(random, 300, 50, sparse);
+            DenseSelfOrgMap map = new DenseSelfOrgMap(5, 4, 50);
+            assertEquals(0, map.bestFor(data.get(0)));
+            for (float[] v: data) {
+                map.train(v);
+            }
+            for (float[] v: data) {
+                assertEquals(nearestNode(map, v), map.bestFor(v));
+            }
+        }
+    }
+
+    @Test
+    public void testDenseBatch() {
+        ArrayList<float[]> data = randomVectors(new Random(335), 500, 30, false);
+        DenseSelfOrgMap sequential = new DenseSelfOrgMap(4, 30);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        sequential.trainBatch(data, 5, pool);
+        pool.shutdown();
+        DenseSelfOrgMap parallel = new DenseSelfOrgMap(4, 30);
+        pool = new ForkJoinPool(3);
+        parallel.trainBatch(data, 5, pool);
+        pool.shutdown();
+        for (int x = 0; x < 4; x++) {
+            for (int y = 0; y < 4; y++) {
+                assertArrayEquals(sequential.getNode(x, y), parallel.getNode(x, y), 0.0f);
+            }
+        }
+        for (float[] v: data) {
+            assertEquals(nearestNode(parallel, v), parallel.bestFor(v));
+        }
+    }
+
+    @Test
+    public void testDenseRecognizer() {
+        DenseSOMAdapter<FloatDrawing> adapter = new DenseSOMAdapter<>(new DenseSelfOrgMap(3, 4),
+                FloatDrawing::toFloats, values -> FloatDrawing.fromFloats(values, 2, 2));
+        SOMRecognizer<FloatDrawing,String> recognizer = new SOMRecognizer<>(adapter, FloatDrawing::euclideanDistance);
+        FloatDrawing left = new FloatDrawing(new Drawing("2|2|XO|XO"));
+        FloatDrawing right = new FloatDrawing(new Drawing("2|2|OX|OX"));
+        ArrayList<Duple<FloatDrawing,String>> data = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            data.add(new Duple<>(left, "L"));
+            data.add(new Duple<>(right, "R"));
+        }
+        recognizer.train(data);
+        assertEquals("L", recognizer.classify(left));
+        assertEquals("R", recognizer.classify(right));
+        assertEquals(left, FloatDrawing.fromFloats(left.toFloats(), 2, 2));
+
+        recognizer.learnOne(new FloatDrawing(new Drawing("2|2|XX|OO")), "T");
+        assertEquals("T", recognizer.classify(new FloatDrawing(new Drawing("2|2|XX|OO"))));
+    }
+
+    @Test
+    public void testSaveLoad() throws IOException {
+        SelfOrgMap<FloatDrawing> som = new SelfOrgMap<>(3, () -> new FloatDrawing(TEST_WIDTH, TEST_HEIGHT),
+                FloatDrawing::euclideanDistance, FloatDrawing::weightedAverageOf);
+        som.train(fd1);
+        som.train(fd2);
+
+        Path file = Files.createTempFile("som", ".model");
+        try {
+            try (ModelWriter out = new ModelWriter(file)) {
+                som.writeTo(out, FloatDrawing.CODEC);
+            }
+            SelfOrgMap<FloatDrawing> loaded = new SelfOrgMap<>(1, () -> new FloatDrawing(TEST_WIDTH, TEST_HEIGHT),
+                    FloatDrawing::euclideanDistance, FloatDrawing::weightedAverageOf);
+            try (ModelReader in = new ModelReader(file)) {
+                loaded.readFrom(in, FloatDrawing.CODEC);
+            }
+            assertEquals(som, loaded);
+            assertEquals(som.bestFor(fd1), loaded.bestFor(fd1));
+
+            DenseSelfOrgMap dense = new DenseSelfOrgMap(3, 2, TEST_VALUES);
+            dense.train(fd1.toFloats());
+            dense.train(fd2.toFloats());
+            try (ModelWriter out = new ModelWriter(file)) {
+                dense.writeTo(out);
+            }
+            DenseSelfOrgMap loadedDense = new DenseSelfOrgMap(1, 1);
+            try (ModelReader in = new ModelReader(file)) {
+                loadedDense.readFrom(in);
+            }
+            assertEquals(3, loadedDense.getMapWidth());
+            for (int x = 0; x < 3; x++) {
+                for (int y = 0; y < 2; y++) {
+                    assertArrayEquals(dense.getNode(x, y), loadedDense.getNode(x, y), 0.0f);
+                }
+            }
+            assertEquals(dense.bestFor(fd2.toFloats()), loadedDense.bestFor(fd2.toFloats()));
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
@@ -0,0 +1,12 @@
+package maze.core;
+
+import search.bestfirst.BestFirstSearcher;
+
+import java.util.function.ToIntFunction;
+
+public class JumpPointSearcher extends BestFirstSearcher<MazeExplorer> {
+    public JumpPointSearcher(ToIntFunction<MazeExplorer> heuristic) {
+        super(heuristic, MazeExplorer::getJumpSuccessors, MazeExplorer::achievesGoal,
+                (from, to) -> from.getLocation().getManhattanDist(to.getLocation()));
+    }
+}
@@ -3,6 +3,7 @@ package maze.core;
 import core.Direction;
 import core.Pos;
 
+import java.nio.LongBuffer;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -10,26 +11,52 @@ public class Maze {
     private int xSize, ySize;
     private Pos start, end;
     
-    private EnumSet<Direction>[][] barriers;
-    private Pos[][] cells;
+    // Walls are packed two bits per cell: bit 0 is the east wall and bit 1
+    // is the south wall. North and west walls are the south and east walls
+    // of the neighboring cells, or the outer boundary. Each row starts on a
+    // fresh long, so a maze costs 2 bits per cell plus at most 62 bits of
+    // padding per row; a 10k x 10k maze needs about 25 MB. The words are a
+    // LongBuffer so that MazeFile can back a maze with a mapped file.
+    private LongBuffer walls;
+    private int wordsPerRow;
     private Set<Pos> treasures;
     
-    @SuppressWarnings("unchecked")
+    private final static int CELLS_PER_WORD = 32;
+    private final static long EAST_WALL = 1, SOUTH_WALL = 2;
+    
     public Maze(int xSize, int ySize) {
         this.xSize = xSize;
         this.ySize = ySize;
         start = end = null;
-        cells = new Pos[xSize][ySize];
-        barriers = new EnumSet[xSize][ySize];
-        for (int x = 0; x < xSize; ++x) {
-            for (int y = 0; y < ySize; ++y) {
-                cells[x][y] = new Pos(x, y);
-                barriers[x][y] = EnumSet.allOf(Direction.class);
-            }
-        }
+        wordsPerRow = wordsPerRow(xSize);
+        long[] words = new long[wordsPerRow * ySize];
+        Arrays.fill(words, -1L);
+        walls = LongBuffer.wrap(words);
         
         treasures = new LinkedHashSet<>();
     }
+    
+    // Pre: walls holds wordsPerRow(xSize) * ySize words in the layout above
+    // Post: A finished maze backed by walls; see MazeFile.map()
+    Maze(int xSize, int ySize, Pos start, Pos end, Set<Pos> treasures, LongBuffer walls) {
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.start = start;
+        this.end = end;
+        this.treasures = new LinkedHashSet<>(treasures);
+        this.wordsPerRow = wordsPerRow(xSize);
+        this.walls = walls;
+    }
+    
+    static int wordsPerRow(int xSize) {
+        return (xSize + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+    }
+    
+    // Pre: 0 <= y < getYSize(); 0 <= i < wordsPerRow(getXSize())
+    // Post: Returns the ith packed wall word of row y
+    long wallWord(int y, int i) {
+        return walls.get(y * wordsPerRow + i);
+    }
 
     public MazeExplorer getGoal() {
         MazeExplorer endNode = new MazeExplorer(this, this.getEnd());
@@ -42,50 +69,108 @@ public class Maze {
     //       and ending at end; if perfection = 1, the maze is perfect; if
     //       perfection = 0, the maze has very few walls
     public void makeMaze(Pos start, Pos end, int numTreasures, double perfection) {
+        makeMaze(start, end, numTreasures, perfection, new Random());
+    }
+    
+    // Pre: 0 <= perfection <= 1.0
+    // Post: As above, but the same seed always yields the same maze
+    public void makeMaze(Pos start, Pos end, int numTreasures, double perfection, long seed) {
+        makeMaze(start, end, numTreasures, perfection, new Random(seed));
+    }
+    
+    // Randomized depth-first search from end. Cells are int indices
+    // (y * xSize + x); each stack entry packs a cell with the direction back
+    // to the cell that pushed it. Besides the walls, generation uses one
+    // visited bit per cell and at most 2 stack ints per cell.
+    private void makeMaze(Pos start, Pos end, int numTreasures, double perfection, Random random) {
+        if ((long)xSize * ySize > Integer.MAX_VALUE / 4) {
+            throw new IllegalArgumentException("Maze too large to generate: " + xSize + " x " + ySize);
+        }
         this.start = start;
         this.end = end;
         
-        ArrayList<Pos> openList = new ArrayList<>();
-        Map<Pos,Pos> predecessors = new HashMap<>();
-        Set<Pos> visited = new LinkedHashSet<>();
-        openList.add(end);
-        while (openList.size() > 0) {
-            Pos current = openList.remove(openList.size() - 1);
-            if (!visited.contains(current)) {
-                visited.add(current);
-                if (predecessors.containsKey(current)) {
-                    knockDownBetween(current, predecessors.get(current));
-                }
-                ArrayList<Pos> neighbors = getNeighbors(current);
-                Collections.shuffle(neighbors);
-                for (Pos neighbor: neighbors) {
-                    openList.add(neighbor);
-                    predecessors.put(neighbor, current);
+        int numCells = xSize * ySize;
+        long[] visited = new long[(numCells + 63) / 64];
+        int numVisited = 0;
+        int[] stack = new int[Math.max(16, Math.min(numCells, 1 << 20))];
+        int stackSize = 0;
+        Direction[] directions = Direction.values();
+        Direction[] order = Direction.values();
+        
+        stack[stackSize++] = (end.getY() * xSize + end.getX()) << 2 | 3;
+        boolean hasPredecessor = false;
+        while (stackSize > 0) {
+            int entry = stack[--stackSize];
+            int current = entry >>> 2;
+            Direction back = directions[entry & 3];
+            int x = current % xSize, y = current / xSize;
+            if (!isVisited(visited, current)) {
+                visited[current >>> 6] |= 1L << current;
+                numVisited += 1;
+                if (hasPredecessor) {
+                    knockDown(x, y, back);
                 }
-            } else if (Math.random() > perfection) {
-                if (predecessors.keySet().contains(current)) {
-                    knockDownBetween(current, predecessors.get(current));
+                hasPredecessor = true;
+                shuffle(order, random);
+                for (Direction d: order) {
+                    int neighbor = neighborOf(x, y, d);
+                    if (neighbor < 0) {
+                        continue;
+                    }
+                    if (!isVisited(visited, neighbor)) {
+                        if (stackSize == stack.length) {
+                            stack = Arrays.copyOf(stack, (int)Math.min(2L * stack.length, 2L * numCells + 1));
+                        }
+                        stack[stackSize++] = neighbor << 2 | d.opposite().ordinal();
+                    } else if (d != back && random.nextDouble() > perfection) {
+                        knockDown(x, y, d);
+                    }
                 }
+            } else if (random.nextDouble() > perfection) {
+                knockDown(x, y, back);
             }
         }
         
-        if (visited.size() != xSize * ySize) {
+        if (numVisited != numCells) {
         	throw new IllegalStateException("Some cells weren't visited");
         }
         
-        addTreasure(numTreasures);
+        addTreasure(numTreasures, random);
+    }
+    
+    private static boolean isVisited(long[] visited, int cell) {
+        return (visited[cell >>> 6] & 1L << cell) != 0;
+    }
+    
+    private static void shuffle(Direction[] directions, Random random) {
+        for (int i = directions.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Direction tmp = directions[i];
+            directions[i] = directions[j];
+            directions[j] = tmp;
+        }
+    }
+    
+    // Post: Returns the cell index next to (x, y) in direction d, or -1 if
+    //       that is outside the maze
+    private int neighborOf(int x, int y, Direction d) {
+        return switch (d) {
+            case N -> y > 0 ? (y - 1) * xSize + x : -1;
+            case S -> y < ySize - 1 ? (y + 1) * xSize + x : -1;
+            case E -> x < xSize - 1 ? y * xSize + x + 1 : -1;
+            case W -> x > 0 ? y * xSize + x - 1 : -1;
+        };
     }
 
-    private void addTreasure(int numTreasures) {
+    private void addTreasure(int numTreasures, Random random) {
         treasures = new LinkedHashSet<>();
-        int numUntried = xSize * ySize - 2;
-        for (int i = 0; i < xSize; ++i) {
+        long numUntried = (long)xSize * ySize - 2;
+        for (int i = 0; i < xSize && numTreasures > 0; ++i) {
             for (int j = 0; j < ySize; ++j) {
-                Pos candidate = new Pos(i, j);
-                if (!candidate.equals(getStart()) && !candidate.equals(getEnd())) {
+                if (!isAt(getStart(), i, j) && !isAt(getEnd(), i, j)) {
                     double prob = (double)numTreasures / (double)numUntried;
-                    if (Math.random() < prob) {
-                        treasures.add(candidate);
+                    if (random.nextDouble() < prob) {
+                        treasures.add(new Pos(i, j));
                         numTreasures--;
                     }
                     numUntried--;
@@ -94,6 +179,10 @@ public class Maze {
         }
     }
     
+    private static boolean isAt(Pos p, int x, int y) {
+        return p.getX() == x && p.getY() == y;
+    }
+    
     public Pos getStart() {return start;}
     public Pos getEnd() {return end;}
     
@@ -122,7 +211,7 @@ public class Maze {
             throw new IllegalArgumentException(c + " is not a neighbor to " + n);
         }
         
-        return barriers[c.getX()][c.getY()].contains(Direction.between(c, n));
+        return blocked(c.getX(), c.getY(), Direction.between(c, n));
     }
     
     public boolean blocked(Pos c, Direction d) {
@@ -130,11 +219,20 @@ public class Maze {
     }
     
     public boolean blocked(int x, int y, Direction d) {
-    	return barriers[x][y].contains(d);
+    	return switch (d) {
+    		case N -> y == 0 || wallBits(x, y - 1, SOUTH_WALL);
+    		case S -> wallBits(x, y, SOUTH_WALL);
+    		case E -> wallBits(x, y, EAST_WALL);
+    		case W -> x == 0 || wallBits(x - 1, y, EAST_WALL);
+    	};
+    }
+    
+    private boolean wallBits(int x, int y, long wall) {
+    	return (walls.get(y * wordsPerRow + x / CELLS_PER_WORD) & wall << 2 * (x % CELLS_PER_WORD)) != 0;
     }
     
     public String toString() {
-    	StringBuilder result = new StringBuilder();
+    	StringBuilder result = new StringBuilder((2 * xSize + 2) * (2 * ySize + 1));
     	for (int row = 0; row < ySize; ++row) {
     		for (int col = 0; col < xSize; ++col) {
     			result.append('#');
@@ -162,17 +260,22 @@ public class Maze {
     	result.append(wall ? '#' : ' ');
     }
     
-    // Pre: first and second are Manhattan neighbors
-    // Post: Knocks down a wall between them, if it exists
-    private void knockDownBetween(Pos first, Pos second) {
-    	barriers[first.getX()][first.getY()].remove(Direction.between(first, second));
-    	barriers[second.getX()][second.getY()].remove(Direction.between(second, first));
-    	
-    	if (blocked(first, second) || blocked(second, first)) {
-    		throw new IllegalStateException("knock down did not work");
+    // Pre: d.successor((x, y)) is within the maze
+    // Post: Knocks down the wall on side d of (x, y), if it exists
+    private void knockDown(int x, int y, Direction d) {
+    	switch (d) {
+    		case N -> clearWall(x, y - 1, SOUTH_WALL);
+    		case S -> clearWall(x, y, SOUTH_WALL);
+    		case E -> clearWall(x, y, EAST_WALL);
+    		case W -> clearWall(x - 1, y, EAST_WALL);
     	}
     }
     
+    private void clearWall(int x, int y, long wall) {
+    	int i = y * wordsPerRow + x / CELLS_PER_WORD;
+    	walls.put(i, walls.get(i) & ~(wall << 2 * (x % CELLS_PER_WORD)));
+    }
+    
     // Pre: none
     // Post: Returns all legal neighbors of current in an arbitrary
     //       ordering, disregarding walls completely.
@@ -0,0 +1,158 @@
+package maze.core;
+
+import core.AIReflector;
+import core.Pos;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ToIntFunction;
+
+// Headless harness for comparing maze heuristics. It generates seeded mazes,
+// solves all of them in parallel with every heuristic in maze.heuristics, and
+// reports throughput, peak heap use, and how often each heuristic's solution
+// is as short as the breadth-first one.
+public class MazeBenchmark {
+    private ArrayList<Maze> mazes;
+    private int[] optimalLengths;
+    private int numThreads;
+
+    public MazeBenchmark(int numMazes, int xSize, int ySize, int numTreasures, double perfection, long seed, int numThreads)
+            throws InterruptedException, ExecutionException {
+        this.numThreads = numThreads;
+        mazes = new ArrayList<>();
+        for (int i = 0; i < numMazes; i++) {
+            Maze m = new Maze(xSize, ySize);
+            m.makeMaze(new Pos(0, 0), new Pos(xSize - 1, ySize - 1), numTreasures, perfection, seed + i);
+            mazes.add(m);
+        }
+        optimalLengths = new int[numMazes];
+        Result breadthFirst = run("(optimal)", () -> node -> 0);
+        for (int i = 0; i < numMazes; i++) {
+            optimalLengths[i] = breadthFirst.lengths[i];
+        }
+    }
+
+    public static class Result {
+        private String name;
+        private int[] lengths;
+        private long numNodes;
+        private double seconds;
+        private long peakBytes;
+
+        Result(String name, int numMazes) {
+            this.name = name;
+            this.lengths = new int[numMazes];
+        }
+
+        public double mazesPerSecond() {return lengths.length / seconds;}
+        public double nodesPerSecond() {return numNodes / seconds;}
+        public long getPeakBytes() {return peakBytes;}
+    }
+
+    public interface HeuristicMaker {
+        ToIntFunction<MazeExplorer> make() throws Exception;
+    }
+
+    public Result run(String name, HeuristicMaker heuristicMaker) throws InterruptedException, ExecutionException {
+        Result result = new Result(name, mazes.size());
+        List<Callable<MazeSearcher>> tasks = new ArrayList<>();
+        for (Maze m: mazes) {
+            tasks.add(() -> {
+                MazeSearcher searcher = new MazeSearcher(heuristicMaker.make());
+                searcher.solve(new MazeExplorer(m, m.getStart()));
+                return searcher;
+            });
+        }
+
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = heapPools();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        long before = System.nanoTime();
+        try {
+            List<Future<MazeSearcher>> solved = executor.invokeAll(tasks);
+            for (int i = 0; i < solved.size(); i++) {
+                MazeSearcher searcher = solved.get(i).get();
+                result.lengths[i] = searcher.success() ? searcher.getSolutionLength() : -1;
+                result.numNodes += searcher.getNumNodes();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        result.seconds = (System.nanoTime() - before) / 1e9;
+        for (MemoryPoolMXBean pool: heapPools) {
+            result.peakBytes += pool.getPeakUsage().getUsed();
+        }
+        return result;
+    }
+
+    // Post: Returns the portion of mazes for which result found a shortest path
+    public double agreement(Result result) {
+        int agree = 0;
+        for (int i = 0; i < optimalLengths.length; i++) {
+            if (result.lengths[i] == optimalLengths[i]) {
+                agree += 1;
+            }
+        }
+        return (double)agree / optimalLengths.length;
+    }
+
+    // Post: Returns the mean of solution length / shortest length over the
+    //       solved mazes
+    public double meanLengthRatio(Result result) {
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < optimalLengths.length; i++) {
+            if (result.lengths[i] > 0) {
+                sum += (double)result.lengths[i] / optimalLengths[i];
+                count += 1;
+            }
+        }
+        return sum / count;
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> result = new ArrayList<>();
+        for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                result.add(pool);
+            }
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        if (args.length < 5 || args.length > 7) {
+            System.out.println("Usage: MazeBenchmark numMazes xSize ySize numTreasures perfection [seed] [numThreads]");
+            System.exit(1);
+        }
+        int numMazes = Integer.parseInt(args[0]);
+        int xSize = Integer.parseInt(args[1]);
+        int ySize = Integer.parseInt(args[2]);
+        int numTreasures = Integer.parseInt(args[3]);
+        double perfection = Double.parseDouble(args[4]);
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 0;
+        int numThreads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+
+        AIReflector<ToIntFunction<MazeExplorer>> heuristics = new AIReflector<>(ToIntFunction.class, "maze.heuristics");
+        MazeBenchmark benchmark = new MazeBenchmark(numMazes, xSize, ySize, numTreasures, perfection, seed, numThreads);
+        System.out.printf("%d mazes, %d x %d, %d treasures, perfection %.2f, seed %d, %d threads%n",
+                numMazes, xSize, ySize, numTreasures, perfection, seed, numThreads);
+        System.out.printf("%-24s %12s %14s %10s %10s %10s%n",
+                "Heuristic", "mazes/sec", "nodes/sec", "peak MB", "optimal", "length");
+        for (String name: heuristics.getTypeNames()) {
+            Result result = benchmark.run(name, () -> heuristics.newInstanceOf(name));
+            System.out.printf("%-24s %12.2f %14.0f %10.1f %9.1f%% %9.3fx%n",
+                    name, result.mazesPerSecond(), result.nodesPerSecond(), result.getPeakBytes() / 1048576.0,
+                    100 * benchmark.agreement(result), benchmark.meanLengthRatio(result));
+        }
+    }
+}
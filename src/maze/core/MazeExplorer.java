@@ -2,6 +2,7 @@ package maze.core;
 
 import java.util.*;
 
+import core.Direction;
 import core.Pos;
 
 public class MazeExplorer {
@@ -9,11 +10,15 @@ public class MazeExplorer {
 	private Pos location;
 	private TreeSet<Pos> treasureFound;
 	private MazeExplorer goal;
+	// Direction of the jump that produced this explorer; empty at the start
+	// and right after picking up a treasure. Not part of the search state.
+	private Optional<Direction> heading;
 	
 	public MazeExplorer(Maze m, Pos location) {
 		this.m = m;
 		this.location = location;
 		treasureFound = new TreeSet<>();
+		heading = Optional.empty();
 	}
 	
 	public Pos getLocation() {return location;}
@@ -52,6 +57,65 @@ public class MazeExplorer {
         }
         return result;
 	}
+
+	// Jump Point Search successors: instead of single steps, each successor
+	// is the next jump point reached by running straight in one direction.
+	// Runs stop at the end, at uncollected treasures, at cells with forced
+	// neighbors, and (for horizontal runs) at cells from which a vertical run
+	// finds a jump point. The cost of a successor is the Manhattan distance
+	// to it, so these must be searched with that step cost; see JumpPointSearcher.
+	public ArrayList<MazeExplorer> getJumpSuccessors() {
+		ArrayList<MazeExplorer> result = new ArrayList<>();
+		for (Direction d: Direction.values()) {
+			if (heading.isEmpty() || d != heading.get().opposite()) {
+				jump(location, d).ifPresent(jumpPoint -> {
+					MazeExplorer next = new MazeExplorer(m, jumpPoint);
+					next.addTreasures(this.getAllTreasureFound());
+					if (m.isTreasure(jumpPoint) && !treasureFound.contains(jumpPoint)) {
+						next.addTreasures(Collections.singleton(jumpPoint));
+					} else {
+						next.heading = Optional.of(d);
+					}
+					result.add(next);
+				});
+			}
+		}
+		return result;
+	}
+
+	// Pre: start is within the maze
+	// Post: Returns the first jump point reached by moving straight from start
+	//       in direction d, or empty if a wall is reached first
+	private Optional<Pos> jump(Pos start, Direction d) {
+		Pos current = start;
+		while (!m.blocked(current, d)) {
+			Pos next = d.successor(current);
+			if (isJumpTarget(next) || hasForcedNeighbor(current, next, d)) {
+				return Optional.of(next);
+			}
+			if (d.isHorizontal() && (jump(next, Direction.N).isPresent() || jump(next, Direction.S).isPresent())) {
+				return Optional.of(next);
+			}
+			current = next;
+		}
+		return Optional.empty();
+	}
+
+	private boolean isJumpTarget(Pos p) {
+		return m.isEnd(p) || (m.isTreasure(p) && !treasureFound.contains(p));
+	}
+
+	// Pre: next == d.successor(prev)
+	// Post: Returns true if some side of next is open but cannot be reached
+	//       as cheaply by first stepping sideways from prev
+	private boolean hasForcedNeighbor(Pos prev, Pos next, Direction d) {
+		for (Direction side: d.perpendicular()) {
+			if (!m.blocked(next, side) && (m.blocked(prev, side) || m.blocked(side.successor(prev), d))) {
+				return true;
+			}
+		}
+		return false;
+	}
 	
 	public void addTreasures(Collection<Pos> treasures) {
 		treasureFound.addAll(treasures);
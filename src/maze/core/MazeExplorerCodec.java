@@ -0,0 +1,48 @@
+package maze.core;
+
+import core.Pos;
+import search.breadthfirst.LongCodec;
+
+import java.util.ArrayList;
+
+// Packs a MazeExplorer into a long: the cell number y * xSize + x in the low
+// 32 bits, and one bit per treasure found in the high 32 bits.
+public class MazeExplorerCodec implements LongCodec<MazeExplorer> {
+    private Maze m;
+    private ArrayList<Pos> treasures;
+
+    // Pre: m has at most 32 treasures
+    public MazeExplorerCodec(Maze m) {
+        if (m.getTreasures().size() > 32) {
+            throw new IllegalArgumentException("Too many treasures to encode: " + m.getTreasures().size());
+        }
+        this.m = m;
+        this.treasures = new ArrayList<>(m.getTreasures());
+    }
+
+    @Override
+    public long encode(MazeExplorer state) {
+        Pos p = state.getLocation();
+        long found = 0;
+        for (int i = 0; i < treasures.size(); i++) {
+            if (state.getAllTreasureFound().contains(treasures.get(i))) {
+                found |= 1L << i;
+            }
+        }
+        return found << 32 | ((long)p.getY() * m.getXSize() + p.getX());
+    }
+
+    @Override
+    public MazeExplorer decode(long code) {
+        int cell = (int)code;
+        MazeExplorer result = new MazeExplorer(m, new Pos(cell % m.getXSize(), cell / m.getXSize()));
+        ArrayList<Pos> found = new ArrayList<>();
+        for (int i = 0; i < treasures.size(); i++) {
+            if ((code >>> (32 + i) & 1) != 0) {
+                found.add(treasures.get(i));
+            }
+        }
+        result.addTreasures(found);
+        return result;
+    }
+}
@@ -0,0 +1,130 @@
+package maze.core;
+
+import core.Pos;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Compact binary maze files. All values are little-endian:
+//   int magic, int version, int xSize, int ySize,
+//   int startX, int startY, int endX, int endY,
+//   int numTreasures, numTreasures * (int x, int y),
+//   zero padding to a multiple of 8 bytes,
+//   ySize rows of packed wall words, in the layout Maze uses in memory.
+// A 10k x 10k maze takes about 25 MB.
+public class MazeFile {
+    public final static int MAGIC = 0x4D415A45; // "MAZE"
+    public final static int VERSION = 1;
+
+    // Pre: m has been made
+    // Post: Writes m to target, one row of walls at a time
+    public static void write(Maze m, Path target) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Set<Pos> treasures = m.getTreasures();
+            ByteBuffer header = ByteBuffer.allocate(headerSize(treasures.size())).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(m.getXSize()).putInt(m.getYSize());
+            header.putInt(m.getStart().getX()).putInt(m.getStart().getY());
+            header.putInt(m.getEnd().getX()).putInt(m.getEnd().getY());
+            header.putInt(treasures.size());
+            for (Pos t: treasures) {
+                header.putInt(t.getX()).putInt(t.getY());
+            }
+            header.position(header.capacity());
+            writeFully(out, header.flip());
+
+            int wordsPerRow = Maze.wordsPerRow(m.getXSize());
+            ByteBuffer row = ByteBuffer.allocate(wordsPerRow * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int y = 0; y < m.getYSize(); y++) {
+                row.clear();
+                for (int i = 0; i < wordsPerRow; i++) {
+                    row.putLong(m.wallWord(y, i));
+                }
+                writeFully(out, row.flip());
+            }
+        }
+    }
+
+    // Post: Returns the maze stored in source. Its walls stay in the mapped
+    //       file rather than on the heap, so the maze is read-only.
+    public static Maze map(Path source) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.remaining() < headerSize(0) || mapped.getInt() != MAGIC) {
+                throw new IOException(source + " is not a maze file");
+            }
+            int version = mapped.getInt();
+            if (version != VERSION) {
+                throw new IOException(source + " has unsupported maze file version " + version);
+            }
+            int xSize = mapped.getInt();
+            int ySize = mapped.getInt();
+            Pos start = new Pos(mapped.getInt(), mapped.getInt());
+            Pos end = new Pos(mapped.getInt(), mapped.getInt());
+            int numTreasures = mapped.getInt();
+            if (xSize <= 0 || ySize <= 0 || numTreasures < 0
+                    || (long)numTreasures * 2 * Integer.BYTES > mapped.remaining()) {
+                throw new IOException(source + " has a bad header: " + xSize + " x " + ySize + " with "
+                        + numTreasures + " treasures in " + in.size() + " bytes");
+            }
+            Set<Pos> treasures = new LinkedHashSet<>();
+            for (int i = 0; i < numTreasures; i++) {
+                treasures.add(new Pos(mapped.getInt(), mapped.getInt()));
+            }
+
+            long wallBytes = (long)Maze.wordsPerRow(xSize) * ySize * Long.BYTES;
+            int header = headerSize(numTreasures);
+            if (wallBytes != in.size() - header) {
+                throw new IOException(source + " is truncated or has trailing data");
+            }
+            mapped.position(header);
+            return new Maze(xSize, ySize, start, end, treasures,
+                    mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer());
+        }
+    }
+
+    private static int headerSize(int numTreasures) {
+        int unpadded = Integer.BYTES * (9 + 2 * numTreasures);
+        return (unpadded + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 7) {
+            System.out.println("Usage: MazeFile directory numMazes xSize ySize numTreasures perfection seed");
+            System.exit(1);
+        }
+
+        File dir = new File(args[0]);
+        int numMazes = Integer.parseInt(args[1]);
+        int xSize = Integer.parseInt(args[2]);
+        int ySize = Integer.parseInt(args[3]);
+        int numTreasures = Integer.parseInt(args[4]);
+        double perfection = Double.parseDouble(args[5]);
+        long seed = Long.parseLong(args[6]);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        for (int i = 0; i < numMazes; i++) {
+            Maze m = new Maze(xSize, ySize);
+            m.makeMaze(new Pos(0, 0), new Pos(xSize - 1, ySize - 1), numTreasures, perfection, seed + i);
+            Path target = new File(dir, String.format("maze_%d_%d_%d.maze", xSize, ySize, seed + i)).toPath();
+            write(m, target);
+            System.out.println("Wrote " + target);
+        }
+    }
+}
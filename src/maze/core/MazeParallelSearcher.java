@@ -0,0 +1,111 @@
+package maze.core;
+
+import core.Direction;
+import core.Pos;
+import search.breadthfirst.ParallelBreadthFirstSearcher;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Parallel breadth-first search over the cells of a treasure-free maze.
+// Cells are numbered y * xSize + x.
+public class MazeParallelSearcher {
+    private Maze m;
+    private ParallelBreadthFirstSearcher searcher;
+
+    public MazeParallelSearcher(Maze m, ForkJoinPool pool, int chunkSize) {
+        if (!m.getTreasures().isEmpty()) {
+            throw new IllegalArgumentException("Parallel search only handles mazes without treasure");
+        }
+        if ((long)m.getXSize() * m.getYSize() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maze too large: " + m.getXSize() + " x " + m.getYSize());
+        }
+        this.m = m;
+        int endCell = cellOf(m.getEnd());
+        searcher = new ParallelBreadthFirstSearcher(m.getXSize() * m.getYSize(), Direction.values().length,
+                this::successors, cell -> cell == endCell, pool, chunkSize);
+    }
+
+    public MazeParallelSearcher(Maze m, ForkJoinPool pool) {
+        this(m, pool, ParallelBreadthFirstSearcher.DEFAULT_CHUNK_SIZE);
+    }
+
+    public MazeParallelSearcher(Maze m) {
+        this(m, ForkJoinPool.commonPool());
+    }
+
+    public void solve() {
+        searcher.solve(cellOf(m.getStart()));
+    }
+
+    public boolean success() {return searcher.success();}
+
+    public int getNumNodes() {return searcher.getNumNodes();}
+
+    public int getMaxDepth() {return searcher.getMaxDepth();}
+
+    public int getSolutionLength() {return searcher.getSolutionLength();}
+
+    // Pre: success()
+    public MazePath getPath() {
+        int[] cells = searcher.getPath();
+        MazePath path = new MazePath(m.getStart().getX(), m.getStart().getY());
+        for (int i = 1; i < cells.length; i++) {
+            path.append(new Pos(cells[i] % m.getXSize(), cells[i] / m.getXSize()));
+        }
+        return path;
+    }
+
+    private int cellOf(Pos p) {
+        return p.getY() * m.getXSize() + p.getX();
+    }
+
+    private int successors(int cell, int[] out) {
+        int xSize = m.getXSize();
+        int x = cell % xSize, y = cell / xSize;
+        int n = 0;
+        if (!m.blocked(x, y, Direction.N)) {out[n++] = cell - xSize;}
+        if (!m.blocked(x, y, Direction.S)) {out[n++] = cell + xSize;}
+        if (!m.blocked(x, y, Direction.E)) {out[n++] = cell + 1;}
+        if (!m.blocked(x, y, Direction.W)) {out[n++] = cell - 1;}
+        return n;
+    }
+
+    // Compares this search with the single-threaded GenericSearcher BFS.
+    // The GenericSearcher keeps a MazeExplorer per cell, so 4k x 4k mazes
+    // need a heap of several GB for it (e.g. -Xmx8g).
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 4) {
+            System.out.println("Usage: MazeParallelSearcher xSize ySize [perfection] [seed]");
+            System.exit(1);
+        }
+        int xSize = Integer.parseInt(args[0]);
+        int ySize = Integer.parseInt(args[1]);
+        double perfection = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        Maze m = new Maze(xSize, ySize);
+        m.makeMaze(new Pos(0, 0), new Pos(xSize - 1, ySize - 1), 0, perfection, seed);
+
+        long before = System.nanoTime();
+        MazeTestSearcher generic = new MazeTestSearcher();
+        generic.solve(new MazeExplorer(m, m.getStart()));
+        double genericMs = (System.nanoTime() - before) / 1e6;
+        System.out.printf("GenericSearcher: %8.1f ms, %d nodes, solution length %d%n",
+                genericMs, generic.getNumNodes(), generic.getSolutionLength());
+
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            MazeParallelSearcher parallel = new MazeParallelSearcher(m, pool);
+            before = System.nanoTime();
+            parallel.solve();
+            double parallelMs = (System.nanoTime() - before) / 1e6;
+            pool.shutdown();
+            System.out.printf("Parallel, %2d threads: %8.1f ms, %d nodes, solution length %d, speedup %5.2fx%n",
+                    threads, parallelMs, parallel.getNumNodes(), parallel.getSolutionLength(), genericMs / parallelMs);
+            if (parallel.getSolutionLength() != generic.getSolutionLength()) {
+                System.out.println("Solution lengths disagree!");
+            }
+        }
+    }
+}
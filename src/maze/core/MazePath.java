@@ -1,4 +1,5 @@
 package maze.core;
+import core.Direction;
 import core.Pos;
 import search.SearchNode;
 import search.bestfirst.BestFirstSearcher;
@@ -18,7 +19,7 @@ public class MazePath {
     public MazePath(SearchNode<MazeExplorer> searchResult, Maze m) {
     	this(m.getStart().getX(), m.getStart().getY());
         for (MazeExplorer me: searchResult.searchPath()) {
-            append(me.getLocation());
+            appendRun(me.getLocation());
         }
     }
     
@@ -41,6 +42,15 @@ public class MazePath {
         }
     }
     
+    // Pre: next is in the same row or column as getEnd()
+    // Post: Appends every cell on the straight run from getEnd() to next;
+    //       jump point searches skip these cells
+    private void appendRun(Pos next) {
+        while (!getEnd().equals(next)) {
+            append(Direction.between(getEnd(), next).successor(getEnd()));
+        }
+    }
+    
     public boolean solvesMaze(Maze target) {
         if (!getStart().equals(target.getStart()) || !getEnd().equals(target.getEnd())) {
             return false;
@@ -4,6 +4,22 @@ import static org.junit.Assert.*;
 
 import core.Pos;
 import org.junit.Test;
+import search.NodeArena;
+import search.SearchListener;
+import search.SearchNode;
+import search.beam.BeamSearcher;
+import search.bestfirst.AnytimeWeightedSearcher;
+import search.bestfirst.MemoryBoundedSearcher;
+import search.breadthfirst.ExternalBreadthFirstSearcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 public class MazeTest {
 	final static int NUM_TESTS = 100;
@@ -57,4 +73,207 @@ public class MazeTest {
 		}
 		assertTrue(totalBest < totalBreadth);
 	}
+
+	@Test
+	public void testJumpPoint() {
+		for (double perfection: new double[]{1.0, 0.5, 0.0}) {
+			for (int treasures = 0; treasures <= 2; treasures += 2) {
+				for (int i = 0; i < NUM_TESTS; ++i) {
+					Maze m = new Maze(WIDTH, HEIGHT);
+					m.makeMaze(new Pos(0, 0), new Pos(WIDTH - 1, HEIGHT - 1), treasures, perfection);
+					MazeTestSearcher breadthFirst = new MazeTestSearcher();
+					JumpPointSearcher jumper = new JumpPointSearcher(new maze.heuristics.BreadthFirst());
+					breadthFirst.solve(new MazeExplorer(m, m.getStart()));
+					jumper.solve(new MazeExplorer(m, m.getStart()));
+					assertTrue(jumper.success());
+					MazePath path = new MazePath(jumper.getResult().get(), m);
+					assertTrue(path.solvesMaze(m));
+					assertEquals(breadthFirst.getSolutionLength(), jumper.getSolutionLength());
+					assertEquals(breadthFirst.getSolutionLength(), path.getLength());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testAnytimeWeighted() {
+		for (int i = 0; i < NUM_TESTS; ++i) {
+			Maze m = new Maze(WIDTH, HEIGHT);
+			m.makeMaze(new Pos(0, 0), new Pos(WIDTH - 1, HEIGHT - 1), 0, 0.5);
+			MazeTestSearcher breadthFirst = new MazeTestSearcher();
+			AnytimeWeightedSearcher<MazeExplorer> anytime = new AnytimeWeightedSearcher<>(
+					n -> n.getLocation().getManhattanDist(m.getEnd()),
+					MazeExplorer::getSuccessors, MazeExplorer::achievesGoal, 5.0, 1.0);
+			ArrayList<Integer> lengths = new ArrayList<>();
+			breadthFirst.solve(new MazeExplorer(m, m.getStart()));
+			anytime.solve(new MazeExplorer(m, m.getStart()), 10000,
+					(solution, weight) -> lengths.add(solution.getCost() + 1));
+			assertTrue(anytime.isOptimal());
+			assertEquals(breadthFirst.getSolutionLength(), anytime.getSolutionLength());
+			assertEquals(anytime.getSolutionLength(), (int)lengths.get(lengths.size() - 1));
+			for (int j = 1; j < lengths.size(); j++) {
+				assertTrue(lengths.get(j) < lengths.get(j - 1));
+			}
+			assertTrue(new MazePath(anytime.getResult().get(), m).solvesMaze(m));
+		}
+	}
+
+	@Test
+	public void testExternalBreadthFirst() throws IOException {
+		for (int i = 0; i < NUM_TESTS / 10; ++i) {
+			Maze m = new Maze(WIDTH, HEIGHT);
+			m.makeMaze(new Pos(0, 0), new Pos(WIDTH - 1, HEIGHT - 1), 2, 0.5);
+			MazeTestSearcher breadthFirst = new MazeTestSearcher();
+			ExternalBreadthFirstSearcher<MazeExplorer> external = new ExternalBreadthFirstSearcher<>(
+					new MazeExplorerCodec(m), MazeExplorer::getSuccessors, MazeExplorer::achievesGoal,
+					new File(System.getProperty("java.io.tmpdir")).toPath(), 16, 2);
+			breadthFirst.solve(new MazeExplorer(m, m.getStart()));
+			external.solve(new MazeExplorer(m, m.getStart()));
+			assertTrue(external.success());
+			assertEquals(breadthFirst.getSolutionLength(), external.getSolutionLength());
+			MazePath path = new MazePath(m.getStart().getX(), m.getStart().getY());
+			external.getPath().stream().skip(1).forEach(n -> path.append(n.getLocation()));
+			assertTrue(path.solvesMaze(m));
+		}
+	}
+
+	@Test
+	public void testBoundedQueues() {
+		for (int i = 0; i < NUM_TESTS; ++i) {
+			Maze m = new Maze(WIDTH, HEIGHT);
+			m.makeMaze(new Pos(0, 0), new Pos(WIDTH - 1, HEIGHT - 1), 0, 0.5);
+			MazeTestSearcher breadthFirst = new MazeTestSearcher();
+			BeamSearcher<MazeExplorer> beam = new BeamSearcher<>(n -> n.getLocation().getManhattanDist(m.getEnd()), 16,
+					MazeExplorer::getSuccessors, MazeExplorer::achievesGoal);
+			MemoryBoundedSearcher<MazeExplorer> bounded = new MemoryBoundedSearcher<>(
+					n -> n.getLocation().getManhattanDist(m.getEnd()), 8,
+					MazeExplorer::getSuccessors, MazeExplorer::achievesGoal);
+			breadthFirst.solve(new MazeExplorer(m, m.getStart()));
+			beam.solve(new MazeExplorer(m, m.getStart()));
+			bounded.solve(new MazeExplorer(m, m.getStart()));
+			if (beam.success()) {
+				assertTrue(beam.getSolutionLength() >= breadthFirst.getSolutionLength());
+				assertTrue(new MazePath(beam.getResult().get(), m).solvesMaze(m));
+			}
+			assertTrue(bounded.success());
+			assertEquals(breadthFirst.getSolutionLength(), bounded.getSolutionLength());
+			assertTrue(new MazePath(bounded.getResult().get(), m).solvesMaze(m));
+		}
+	}
+
+	@Test
+	public void testBoundedArena() {
+		final int maxNodes = 8;
+		int mostGenerated = 0, mostKept = 0;
+		for (int seed = 0; seed < 5; seed++) {
+			Maze m = new Maze(40, 40);
+			m.makeMaze(new Pos(0, 0), new Pos(39, 39), 0, 0.5, seed);
+			MemoryBoundedSearcher<MazeExplorer> bounded = new MemoryBoundedSearcher<>(
+					n -> n.getLocation().getManhattanDist(m.getEnd()), maxNodes,
+					MazeExplorer::getSuccessors, MazeExplorer::achievesGoal);
+			ArrayList<NodeArena<MazeExplorer>> arena = new ArrayList<>();
+			int[] largest = new int[1];
+			bounded.setListener(new SearchListener<>() {
+				@Override
+				public void started(SearchNode<MazeExplorer> root) {arena.add(root.getArena());}
+
+				@Override
+				public void expanded(SearchNode<MazeExplorer> node, int numSuccessors) {
+					largest[0] = Math.max(largest[0], arena.get(0).size());
+				}
+			});
+			bounded.solve(new MazeExplorer(m, m.getStart()));
+			assertTrue(bounded.success());
+			// Only the queued nodes, the one being expanded, and their
+			// ancestors stay in the arena.
+			assertTrue(largest[0] <= (maxNodes + 2) * (bounded.getMaxDepth() + 1));
+			mostGenerated = Math.max(mostGenerated, bounded.getNumNodes());
+			mostKept = Math.max(mostKept, largest[0]);
+		}
+		assertTrue(mostGenerated > 10 * mostKept);
+	}
+
+	@Test
+	public void testFileRoundTrip() throws IOException {
+		Maze m = new Maze(WIDTH + 31, HEIGHT);
+		m.makeMaze(new Pos(0, 0), new Pos(WIDTH + 30, HEIGHT - 1), 3, 0.5, 335);
+		Maze same = new Maze(WIDTH + 31, HEIGHT);
+		same.makeMaze(new Pos(0, 0), new Pos(WIDTH + 30, HEIGHT - 1), 3, 0.5, 335);
+		assertEquals(m.toString(), same.toString());
+		assertEquals(m.getTreasures(), same.getTreasures());
+
+		File f = File.createTempFile("maze", ".maze");
+		f.deleteOnExit();
+		MazeFile.write(m, f.toPath());
+		Maze mapped = MazeFile.map(f.toPath());
+		assertEquals(m.toString(), mapped.toString());
+		assertEquals(m.getStart(), mapped.getStart());
+		assertEquals(m.getEnd(), mapped.getEnd());
+		assertEquals(m.getTreasures(), mapped.getTreasures());
+
+		MazeTestSearcher searcher = new MazeTestSearcher();
+		searcher.solve(new MazeExplorer(mapped, mapped.getStart()));
+		assertTrue(searcher.success());
+		assertTrue(new MazePath(searcher.getResult().get(), mapped).solvesMaze(m));
+
+		// A truncated file, and one whose treasure count runs past its end
+		byte[] whole = Files.readAllBytes(f.toPath());
+		Files.write(f.toPath(), Arrays.copyOf(whole, whole.length - 8));
+		assertThrows(IOException.class, () -> MazeFile.map(f.toPath()));
+		Files.write(f.toPath(), Arrays.copyOf(whole, 20));
+		assertThrows(IOException.class, () -> MazeFile.map(f.toPath()));
+		byte[] corrupt = whole.clone();
+		ByteBuffer.wrap(corrupt).order(ByteOrder.LITTLE_ENDIAN).putInt(32, Integer.MAX_VALUE);
+		Files.write(f.toPath(), corrupt);
+		assertThrows(IOException.class, () -> MazeFile.map(f.toPath()));
+		ByteBuffer.wrap(corrupt).order(ByteOrder.LITTLE_ENDIAN).putInt(32, -1);
+		Files.write(f.toPath(), corrupt);
+		assertThrows(IOException.class, () -> MazeFile.map(f.toPath()));
+	}
+
+	@Test
+	public void testParallelBreadthFirst() {
+		for (double perfection: new double[]{1.0, 0.5, 0.0}) {
+			for (int i = 0; i < NUM_TESTS; ++i) {
+				Maze m = new Maze(WIDTH, HEIGHT);
+				m.makeMaze(new Pos(0, 0), new Pos(WIDTH - 1, HEIGHT - 1), 0, perfection);
+				MazeTestSearcher breadthFirst = new MazeTestSearcher();
+				breadthFirst.solve(new MazeExplorer(m, m.getStart()));
+				MazeParallelSearcher parallel = new MazeParallelSearcher(m);
+				parallel.solve();
+				assertTrue(parallel.success());
+				assertTrue(parallel.getPath().solvesMaze(m));
+				assertEquals(breadthFirst.getSolutionLength(), parallel.getSolutionLength());
+				assertEquals(breadthFirst.getSolutionLength(), parallel.getPath().getLength());
+			}
+		}
+	}
+
+	@Test
+	public void testParallelChunks() {
+		// Chunks of 3 states split every frontier wider than that across
+		// several tasks, which claim states from the same bitset at once.
+		ForkJoinPool pool = new ForkJoinPool(4);
+		int widest = 0;
+		try {
+			for (double perfection: new double[]{1.0, 0.5, 0.0}) {
+				for (int i = 0; i < NUM_TESTS; ++i) {
+					Maze m = new Maze(WIDTH * 4, HEIGHT * 4);
+					m.makeMaze(new Pos(0, 0), new Pos(WIDTH * 4 - 1, HEIGHT * 4 - 1), 0, perfection);
+					MazeTestSearcher breadthFirst = new MazeTestSearcher();
+					breadthFirst.solve(new MazeExplorer(m, m.getStart()));
+					MazeParallelSearcher parallel = new MazeParallelSearcher(m, pool, 3);
+					parallel.solve();
+					assertTrue(parallel.success());
+					assertTrue(parallel.getPath().solvesMaze(m));
+					assertEquals(breadthFirst.getSolutionLength(), parallel.getSolutionLength());
+					widest = Math.max(widest, parallel.getNumNodes() / (parallel.getMaxDepth() + 1));
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+		// In some search the layers averaged more than three chunks
+		assertTrue(widest > 3 * 3);
+	}
 }
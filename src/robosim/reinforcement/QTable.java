@@ -1,9 +1,15 @@
 package robosim.reinforcement;
 
+import core.ModelReader;
+import core.ModelWriter;
+
 import java.awt.*;
+import java.io.IOException;
 import java.util.Arrays;
 
 public class QTable {
+    private final static int FORMAT_VERSION = 1;
+
     private double[][] q;
     private int[][] visits;
     private int targetVisits;
@@ -127,6 +133,40 @@ public class QTable {
         return result;
     }
 
+    // Post: Writes the same state as toString(), in binary, with q-values
+    //       exact rather than rounded to decimal
+    public void writeTo(ModelWriter out) {
+        out.writeSection("QTable", FORMAT_VERSION);
+        out.writeInt(targetVisits);
+        out.writeDouble(discount);
+        out.writeDouble(rateConstant);
+        out.writeInt(lastState);
+        out.writeInt(lastAction);
+        out.writeInt(q.length);
+        for (int state = 0; state < q.length; state++) {
+            out.writeDoubles(q[state]);
+            out.writeInts(visits[state]);
+        }
+    }
+
+    public static QTable readFrom(ModelReader in) throws IOException {
+        in.readSection("QTable", FORMAT_VERSION);
+        QTable result = new QTable();
+        result.targetVisits = in.readInt();
+        result.discount = in.readDouble();
+        result.rateConstant = in.readDouble();
+        result.lastState = in.readInt();
+        result.lastAction = in.readInt();
+        int numStates = in.readInt();
+        result.q = new double[numStates][];
+        result.visits = new int[numStates][];
+        for (int state = 0; state < numStates; state++) {
+            result.q[state] = in.readDoubles();
+            result.visits[state] = in.readInts();
+        }
+        return result;
+    }
+
     @Override
     public String toString() {
         StringBuilder result = new StringBuilder();
@@ -1,11 +1,18 @@
 package robosim.reinforcement;
 
+import core.ModelReader;
+import core.ModelWriter;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
 
 public class QTableTest {
     QTable testTable;
@@ -127,4 +134,31 @@ targetVisits:1;discount:0.5;rateConstant:2.0;lastState:1;lastAction:1
         testTable = QTable.from(tablesAfter[4]);
         assertEquals(0, testTable.getBestAction(0));
         assertEquals(1, testTable.getBestAction(1));
-    }}
+    }
+
+    @Test
+    public void testSaveLoad() throws IOException {
+        Path file = Files.createTempFile("qtable", ".model");
+        try {
+            testTable = QTable.from(tablesAfter[3]);
+            try (ModelWriter out = new ModelWriter(file)) {
+                testTable.writeTo(out);
+            }
+            try (ModelReader in = new ModelReader(file)) {
+                assertEquals(tablesAfter[3], QTable.readFrom(in).toString());
+            }
+            try (ModelReader in = new ModelReader(file)) {
+                assertThrows(IOException.class, () -> in.readSection("NaiveBayes", 1));
+            }
+
+            try (ModelWriter out = new ModelWriter(file)) {
+                out.writeSection("QTable", 1000);
+            }
+            try (ModelReader in = new ModelReader(file)) {
+                assertThrows(IOException.class, () -> QTable.readFrom(in));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
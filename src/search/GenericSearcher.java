@@ -6,22 +6,37 @@ import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToIntBiFunction;
 
 public class GenericSearcher<T, Q extends SearchQueue<T>> {
     private Supplier<Q> queueMaker;
     private Function<T, ArrayList<T>> successorFunc;
     private Predicate<T> achievesGoal;
+    private ToIntBiFunction<T, T> stepCost;
     private boolean searching;
     private Optional<SearchNode<T>> result;
     private int numNodes;
     private int maxDepth;
+    // Null unless someone is listening, so an unwatched search only pays
+    // for the null checks.
+    private SearchListener<T> listener;
 
     public GenericSearcher(Supplier<Q> queueMaker, Function<T, ArrayList<T>> successorFunc, Predicate<T> achievesGoal) {
+        this(queueMaker, successorFunc, achievesGoal, (parent, child) -> 1);
+    }
+
+    // stepCost gives the cost of moving from a state to one of its successors.
+    public GenericSearcher(Supplier<Q> queueMaker, Function<T, ArrayList<T>> successorFunc, Predicate<T> achievesGoal,
+                           ToIntBiFunction<T, T> stepCost) {
         this.queueMaker = queueMaker;
         this.successorFunc = successorFunc;
         this.achievesGoal = achievesGoal;
+        this.stepCost = stepCost;
     }
 
+    // Pre: listener is null to stop listening
+    public void setListener(SearchListener<T> listener) {this.listener = listener;}
+
     public boolean success() {return result.isPresent();}
 
     public Optional<SearchNode<T>> getResult() {return result;}
@@ -31,31 +46,56 @@ public class GenericSearcher<T, Q extends SearchQueue<T>> {
     public int getMaxDepth() {return maxDepth;}
 
     public int getSolutionLength() {
-        return result.map(p -> p.searchPath().size()).orElse(0);
+        return result.map(p -> p.getCost() + 1).orElse(0);
     }
 
     public void solve(T start) {
         Q openList = queueMaker.get();
-        openList.enqueue(new SearchNode<>(start, Optional.empty()));
+        NodeArena<T> arena = new NodeArena<>();
+        SearchNode<T> root = arena.addRoot(start);
+        openList.enqueue(root);
+        if (listener != null) {
+            listener.started(root);
+        }
         searching = true;
         numNodes = 1;
         maxDepth = 0;
         result = Optional.empty();
         while (searching) {
-            openList.dequeue().ifPresentOrElse(node -> updateUsing(openList, node), () -> searching = false);
+            openList.dequeue().ifPresentOrElse(node -> {
+                if (listener != null) {
+                    listener.dequeued(node);
+                }
+                updateUsing(openList, arena, node);
+            }, () -> searching = false);
         }
     }
 
-    private void updateUsing(Q openList, SearchNode<T> node) {
+    private void updateUsing(Q openList, NodeArena<T> arena, SearchNode<T> node) {
         if (achievesGoal.test(node.getValue())) {
-            result = Optional.of(node);
+            result = Optional.of(node.detach());
             searching = false;
+            if (listener != null) {
+                listener.goalFound(node);
+            }
         } else {
-            for (T successor: successorFunc.apply(node.getValue())) {
-                SearchNode<T> newNode = new SearchNode<>(successor, Optional.of(node));
-                openList.enqueue(newNode);
+            ArrayList<T> successors = successorFunc.apply(node.getValue());
+            for (T successor: successors) {
+                SearchNode<T> newNode = arena.addChild(successor, node, stepCost.applyAsInt(node.getValue(), successor));
                 numNodes += 1;
                 maxDepth = Math.max(maxDepth, newNode.getDepth());
+                // Nodes the queue turns away are never referenced again,
+                // so their slots are reused.
+                boolean kept = openList.enqueue(newNode);
+                if (listener != null) {
+                    listener.enqueued(newNode, kept);
+                }
+                if (!kept) {
+                    arena.removeLast();
+                }
+            }
+            if (listener != null) {
+                listener.expanded(node, successors.size());
             }
         }
     }
@@ -78,9 +118,10 @@ public class GenericSearcher<T, Q extends SearchQueue<T>> {
     }
 
     private double computeError(double bGuess) {
+        // bGuess + bGuess^2 + ... + bGuess^maxDepth, by Horner's rule
         double sum = 0;
         for (int d = 1; d <= maxDepth; ++d) {
-            sum += Math.pow(bGuess, d);
+            sum = (sum + 1) * bGuess;
         }
         return sum - numNodes;
     }
@@ -0,0 +1,131 @@
+package search;
+
+import java.util.Arrays;
+
+// Backing store for the SearchNodes of one search. Nodes live in parallel
+// arrays: a state reference plus ints for the parent index, depth, cost and
+// number of children, about 20 bytes per node on top of the state itself.
+// The arrays grow in fixed-size chunks, so growing never copies existing
+// nodes, and following parents is a walk over int indices rather than over
+// objects. Released slots go on a free list and are handed out again before
+// the arrays grow.
+public class NodeArena<T> {
+    public final static int NO_PARENT = -1;
+    private final static int FREE = -2;
+
+    private final static int CHUNK_BITS = 13;
+    private final static int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private final static int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private Object[][] states = new Object[1][];
+    private int[][] parents = new int[1][];
+    private int[][] depths = new int[1][];
+    private int[][] costs = new int[1][];
+    private int[][] numChildren = new int[1][];
+    // Slots ever handed out; those below numSlots not on the free list are in use
+    private int numSlots = 0;
+    private int[] free = new int[16];
+    private int numFree = 0;
+    private int lastAdded = NO_PARENT;
+
+    public SearchNode<T> addRoot(T state) {
+        return getNode(add(state, NO_PARENT, 0));
+    }
+
+    // Pre: parent belongs to this arena; stepCost >= 0
+    public SearchNode<T> addChild(T state, SearchNode<T> parent, int stepCost) {
+        return getNode(add(state, parent.getIndex(), stepCost));
+    }
+
+    int add(T state, int parent, int stepCost) {
+        int index = numFree > 0 ? free[--numFree] : newSlot();
+        int chunk = index >>> CHUNK_BITS, offset = index & CHUNK_MASK;
+        states[chunk][offset] = state;
+        parents[chunk][offset] = parent;
+        depths[chunk][offset] = parent == NO_PARENT ? 0 : 1 + getDepth(parent);
+        costs[chunk][offset] = parent == NO_PARENT ? 0 : stepCost + getCost(parent);
+        numChildren[chunk][offset] = 0;
+        if (parent != NO_PARENT) {
+            numChildren[parent >>> CHUNK_BITS][parent & CHUNK_MASK] += 1;
+        }
+        lastAdded = index;
+        return index;
+    }
+
+    private int newSlot() {
+        int chunk = numSlots >>> CHUNK_BITS;
+        if (chunk == states.length) {
+            int numChunks = 2 * states.length;
+            states = Arrays.copyOf(states, numChunks);
+            parents = Arrays.copyOf(parents, numChunks);
+            depths = Arrays.copyOf(depths, numChunks);
+            costs = Arrays.copyOf(costs, numChunks);
+            numChildren = Arrays.copyOf(numChildren, numChunks);
+        }
+        if (states[chunk] == null) {
+            states[chunk] = new Object[CHUNK_SIZE];
+            parents[chunk] = new int[CHUNK_SIZE];
+            depths[chunk] = new int[CHUNK_SIZE];
+            costs[chunk] = new int[CHUNK_SIZE];
+            numChildren[chunk] = new int[CHUNK_SIZE];
+        }
+        return numSlots++;
+    }
+
+    // Pre: No other node refers to the last node added
+    // Post: Releases the last node added, unless it was released already
+    public void removeLast() {
+        release(lastAdded);
+    }
+
+    // Pre: No node that is still in use has index as an ancestor
+    // Post: Drops the reference to the state of node index and puts its slot
+    //       on the free list, so that a queue that discards nodes lets their
+    //       states be collected and keeps the arena from growing. Releasing
+    //       a node that is already free does nothing.
+    public void release(int index) {
+        int chunk = index >>> CHUNK_BITS, offset = index & CHUNK_MASK;
+        int parent = parents[chunk][offset];
+        if (parent == FREE) {
+            return;
+        }
+        if (parent != NO_PARENT) {
+            numChildren[parent >>> CHUNK_BITS][parent & CHUNK_MASK] -= 1;
+        }
+        states[chunk][offset] = null;
+        parents[chunk][offset] = FREE;
+        if (numFree == free.length) {
+            free = Arrays.copyOf(free, 2 * numFree);
+        }
+        free[numFree++] = index;
+    }
+
+    // Post: Returns the number of nodes in use
+    public int size() {return numSlots - numFree;}
+
+    public SearchNode<T> getNode(int index) {
+        return new SearchNode<>(this, index);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getState(int index) {
+        return (T)states[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public int getParent(int index) {
+        return parents[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public int getDepth(int index) {
+        return depths[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public int getCost(int index) {
+        return costs[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    // Post: Returns the number of children of node index still in use
+    public int getNumChildren(int index) {
+        return numChildren[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+}
@@ -0,0 +1,18 @@
+package search;
+
+// Receives events from a running GenericSearcher. Every method does nothing
+// by default, so a listener only overrides what it needs. The searcher calls
+// these from its own thread.
+public interface SearchListener<T> {
+    default void started(SearchNode<T> root) {}
+
+    default void dequeued(SearchNode<T> node) {}
+
+    // Called after node's successors have all been offered to the queue
+    default void expanded(SearchNode<T> node, int numSuccessors) {}
+
+    // kept is false when the queue discarded node
+    default void enqueued(SearchNode<T> node, boolean kept) {}
+
+    default void goalFound(SearchNode<T> node) {}
+}
@@ -3,28 +3,81 @@ package search;
 import java.util.ArrayDeque;
 import java.util.Optional;
 
+// A handle on one node of a NodeArena. The node's state, parent, depth and
+// cost are kept in the arena.
 public class SearchNode<T> {
-    private T value;
-    private Optional<SearchNode<T>> parent;
-    private int depth;
+    private NodeArena<T> arena;
+    private int index;
 
     public SearchNode(T value, Optional<SearchNode<T>> parent) {
-        this.value = value;
-        this.parent = parent;
-        this.depth = parent.map(node -> 1 + node.depth).orElse(0);
+        this(value, parent, 1);
+    }
+
+    // Pre: stepCost >= 0
+    // Post: getCost() is the parent's cost plus stepCost; a root costs 0.
+    //       A child is stored in its parent's arena; a root gets a new one.
+    public SearchNode(T value, Optional<SearchNode<T>> parent, int stepCost) {
+        this.arena = parent.map(node -> node.arena).orElseGet(NodeArena::new);
+        this.index = arena.add(value, parent.map(node -> node.index).orElse(NodeArena.NO_PARENT), stepCost);
+    }
+
+    SearchNode(NodeArena<T> arena, int index) {
+        this.arena = arena;
+        this.index = index;
     }
 
     public ArrayDeque<T> searchPath() {
-        ArrayDeque<T> path = new ArrayDeque<>();
-        Optional<SearchNode<T>> current = Optional.of(this);
-        while (current.isPresent()) {
-            path.addFirst(current.get().getValue());
-            current = current.get().parent;
+        ArrayDeque<T> path = new ArrayDeque<>(getDepth() + 1);
+        for (int i: ancestry()) {
+            path.addLast(arena.getState(i));
         }
         return path;
     }
 
-    public T getValue() {return value;}
+    // Post: Returns a copy of this node whose arena holds only this node and
+    //       its ancestors, so the rest of the search can be collected.
+    public SearchNode<T> detach() {
+        NodeArena<T> copy = new NodeArena<>();
+        int previous = NodeArena.NO_PARENT, previousCost = 0;
+        for (int i: ancestry()) {
+            previous = copy.add(arena.getState(i), previous, arena.getCost(i) - previousCost);
+            previousCost = arena.getCost(i);
+        }
+        return copy.getNode(previous);
+    }
+
+    private int[] ancestry() {
+        int[] indices = new int[getDepth() + 1];
+        for (int i = index, d = indices.length - 1; i != NodeArena.NO_PARENT; i = arena.getParent(i), d--) {
+            indices[d] = i;
+        }
+        return indices;
+    }
+
+    public Optional<SearchNode<T>> getParent() {
+        int parent = arena.getParent(index);
+        return parent == NodeArena.NO_PARENT ? Optional.empty() : Optional.of(arena.getNode(parent));
+    }
+
+    public T getValue() {return arena.getState(index);}
+
+    public int getDepth() {return arena.getDepth(index);}
+
+    public int getCost() {return arena.getCost(index);}
+
+    public NodeArena<T> getArena() {return arena;}
+
+    public int getIndex() {return index;}
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof SearchNode<?> that) {
+            return this.arena == that.arena && this.index == that.index;
+        } else {
+            return false;
+        }
+    }
 
-    public int getDepth() {return depth;}
+    @Override
+    public int hashCode() {return index;}
 }
@@ -3,6 +3,7 @@ package search;
 import java.util.Optional;
 
 public interface SearchQueue<T> {
-    void enqueue(SearchNode<T> node);
+    // Post: Returns true if node was kept, false if it was discarded
+    boolean enqueue(SearchNode<T> node);
     Optional<SearchNode<T>> dequeue();
 }
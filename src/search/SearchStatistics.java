@@ -0,0 +1,154 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// A SearchListener that gathers statistics while a search runs: how many
+// nodes were generated and expanded at each depth, how large the open list
+// grew, and how fast nodes were generated over time. Every sampleInterval
+// nodes it records a throughput sample and hands itself to onSample, so a
+// long search can be watched as it goes.
+public class SearchStatistics<T> implements SearchListener<T> {
+    private int sampleInterval;
+    private Consumer<SearchStatistics<T>> onSample;
+
+    private int[] generatedAtDepth;
+    private int[] expandedAtDepth;
+    private int numGenerated, numDuplicates, numExpanded;
+    private int openSize, peakOpenSize;
+    private long startNanos, lastSampleNanos;
+    private int lastSampleGenerated;
+    private ArrayList<Double> nodesPerSecond;
+
+    // Pre: sampleInterval > 0
+    public SearchStatistics(int sampleInterval, Consumer<SearchStatistics<T>> onSample) {
+        this.sampleInterval = sampleInterval;
+        this.onSample = onSample;
+        reset();
+    }
+
+    public SearchStatistics(int sampleInterval) {
+        this(sampleInterval, stats -> {});
+    }
+
+    public SearchStatistics() {
+        this(100000);
+    }
+
+    private void reset() {
+        generatedAtDepth = new int[16];
+        expandedAtDepth = new int[16];
+        numGenerated = numDuplicates = numExpanded = 0;
+        openSize = peakOpenSize = 0;
+        nodesPerSecond = new ArrayList<>();
+        startNanos = lastSampleNanos = System.nanoTime();
+        lastSampleGenerated = 0;
+    }
+
+    @Override
+    public void started(SearchNode<T> root) {
+        reset();
+        record(root, true);
+    }
+
+    @Override
+    public void dequeued(SearchNode<T> node) {
+        openSize -= 1;
+    }
+
+    @Override
+    public void expanded(SearchNode<T> node, int numSuccessors) {
+        numExpanded += 1;
+        expandedAtDepth = count(expandedAtDepth, node.getDepth());
+    }
+
+    @Override
+    public void enqueued(SearchNode<T> node, boolean kept) {
+        record(node, kept);
+        if (numGenerated - lastSampleGenerated >= sampleInterval) {
+            long now = System.nanoTime();
+            nodesPerSecond.add((numGenerated - lastSampleGenerated) * 1e9 / Math.max(1, now - lastSampleNanos));
+            lastSampleNanos = now;
+            lastSampleGenerated = numGenerated;
+            onSample.accept(this);
+        }
+    }
+
+    private void record(SearchNode<T> node, boolean kept) {
+        numGenerated += 1;
+        generatedAtDepth = count(generatedAtDepth, node.getDepth());
+        if (kept) {
+            openSize += 1;
+            peakOpenSize = Math.max(peakOpenSize, openSize);
+        } else {
+            numDuplicates += 1;
+        }
+    }
+
+    private static int[] count(int[] histogram, int depth) {
+        if (depth >= histogram.length) {
+            histogram = Arrays.copyOf(histogram, Math.max(depth + 1, 2 * histogram.length));
+        }
+        histogram[depth] += 1;
+        return histogram;
+    }
+
+    public int getNumGenerated() {return numGenerated;}
+
+    // Nodes the queue discarded, usually because their state was seen before
+    public int getNumDuplicates() {return numDuplicates;}
+
+    public int getNumExpanded() {return numExpanded;}
+
+    public int getOpenSize() {return openSize;}
+
+    public int getPeakOpenSize() {return peakOpenSize;}
+
+    public int getMaxDepth() {
+        int depth = generatedAtDepth.length - 1;
+        while (depth > 0 && generatedAtDepth[depth] == 0) {
+            depth -= 1;
+        }
+        return depth;
+    }
+
+    public int getGeneratedAtDepth(int depth) {
+        return depth < generatedAtDepth.length ? generatedAtDepth[depth] : 0;
+    }
+
+    public int getExpandedAtDepth(int depth) {
+        return depth < expandedAtDepth.length ? expandedAtDepth[depth] : 0;
+    }
+
+    // Post: Returns the mean number of successors generated per node
+    //       expanded at depth, or 0 if none were expanded there
+    public double getBranchingFactor(int depth) {
+        int expanded = getExpandedAtDepth(depth);
+        return expanded == 0 ? 0 : (double)getGeneratedAtDepth(depth + 1) / expanded;
+    }
+
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    public double getNodesPerSecond() {
+        return numGenerated / Math.max(1e-9, getElapsedSeconds());
+    }
+
+    // Post: Returns the generation rate over each sampleInterval nodes so far
+    public ArrayList<Double> getSamples() {return nodesPerSecond;}
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append(String.format("%d generated, %d duplicates, %d expanded, peak open %d, %.0f nodes/sec%n",
+                numGenerated, numDuplicates, numExpanded, peakOpenSize, getNodesPerSecond()));
+        result.append(String.format("%6s %12s %12s %10s%n", "depth", "generated", "expanded", "branching"));
+        for (int d = 0; d <= getMaxDepth(); d++) {
+            result.append(String.format("%6d %12d %12d %10.3f%n",
+                    d, getGeneratedAtDepth(d), getExpandedAtDepth(d), getBranchingFactor(d)));
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package search.beam;
+
+import search.SearchNode;
+import search.SearchQueue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.ToIntFunction;
+
+// Beam search: the queue hands out one depth at a time and keeps only the
+// beamWidth nodes with the lowest cost + heuristic at each depth. A state
+// that has already been in the beam is not let in again, so the search
+// always ends in a finite state space and holds at most beamWidth nodes per
+// depth reached. The search is neither complete nor optimal: a path that
+// falls out of the beam is gone for good.
+public class BeamQueue<T> implements SearchQueue<T> {
+    private final ToIntFunction<T> heuristic;
+    private final int beamWidth;
+    private final int maxDepth;
+
+    // Nodes of the current depth, best first, waiting to be expanded
+    private ArrayDeque<SearchNode<T>> current = new ArrayDeque<>();
+    // States that have made it into the beam at some depth
+    private HashSet<T> visited = new HashSet<>();
+
+    // The best nodes seen so far at the next depth, worst at the head
+    private PriorityQueue<Entry<T>> next = new PriorityQueue<>(Comparator.comparingInt((Entry<T> e) -> e.estimate).reversed());
+    private HashMap<T, Entry<T>> nextFor = new HashMap<>();
+
+    // Pre: beamWidth > 0; maxDepth >= 0
+    public BeamQueue(ToIntFunction<T> heuristic, int beamWidth, int maxDepth) {
+        this.heuristic = heuristic;
+        this.beamWidth = beamWidth;
+        this.maxDepth = maxDepth;
+    }
+
+    public BeamQueue(ToIntFunction<T> heuristic, int beamWidth) {
+        this(heuristic, beamWidth, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean enqueue(SearchNode<T> node) {
+        T state = node.getValue();
+        if (node.getDepth() > maxDepth || visited.contains(state)) {
+            return false;
+        }
+        int estimate = node.getCost() + heuristic.applyAsInt(state);
+        Entry<T> rival = nextFor.get(state);
+        if (rival != null) {
+            if (rival.estimate <= estimate) {
+                return false;
+            }
+            next.remove(rival);
+            discard(rival.node);
+        } else if (next.size() == beamWidth) {
+            if (next.peek().estimate <= estimate) {
+                return false;
+            }
+            Entry<T> worst = next.poll();
+            nextFor.remove(worst.node.getValue());
+            discard(worst.node);
+        }
+        Entry<T> entry = new Entry<>(estimate, node);
+        next.add(entry);
+        nextFor.put(state, entry);
+        return true;
+    }
+
+    // Nodes at the next depth have no children yet, so nothing else needs
+    // their states.
+    private void discard(SearchNode<T> node) {
+        node.getArena().release(node.getIndex());
+    }
+
+    @Override
+    public Optional<SearchNode<T>> dequeue() {
+        if (current.isEmpty() && !next.isEmpty()) {
+            ArrayList<Entry<T>> level = new ArrayList<>(next);
+            level.sort(Comparator.comparingInt(e -> e.estimate));
+            visited.addAll(nextFor.keySet());
+            for (Entry<T> entry: level) {
+                current.addLast(entry.node);
+            }
+            next.clear();
+            nextFor.clear();
+        }
+        return Optional.ofNullable(current.pollFirst());
+    }
+
+    private static class Entry<T> {
+        private int estimate;
+        private SearchNode<T> node;
+
+        Entry(int estimate, SearchNode<T> node) {
+            this.estimate = estimate;
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package search.beam;
+
+import search.GenericSearcher;
+
+import java.util.ArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+public class BeamSearcher<T> extends GenericSearcher<T, BeamQueue<T>> {
+    public BeamSearcher(ToIntFunction<T> heuristic, int beamWidth, Function<T, ArrayList<T>> successorFunc,
+                        Predicate<T> achievesGoal) {
+        super(() -> new BeamQueue<>(heuristic, beamWidth), successorFunc, achievesGoal);
+    }
+
+    public BeamSearcher(ToIntFunction<T> heuristic, int beamWidth, int maxDepth, Function<T, ArrayList<T>> successorFunc,
+                        Predicate<T> achievesGoal) {
+        super(() -> new BeamQueue<>(heuristic, beamWidth, maxDepth), successorFunc, achievesGoal);
+    }
+}
@@ -0,0 +1,233 @@
+package search.bestfirst;
+
+import search.NodeArena;
+import search.SearchNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
+
+// Anytime weighted A*, after ARA*. The first pass orders the open list by
+// cost + weight * heuristic with a large weight, which finds a solution
+// quickly. Each later pass lowers the weight and carries on from the same
+// open and closed lists, so it only re-expands states whose cost improved.
+// Every cheaper solution is reported as it is found. The search stops when
+// the deadline passes or a pass with weight 1 proves its solution optimal.
+//
+// The bounds below assume the heuristic never overestimates.
+public class AnytimeWeightedSearcher<T> {
+    public interface SolutionListener<T> {
+        // weight is the weight of the pass that found solution
+        void improved(SearchNode<T> solution, double weight);
+    }
+
+    private ToIntFunction<T> heuristic;
+    private Function<T, ArrayList<T>> successorFunc;
+    private Predicate<T> achievesGoal;
+    private ToIntBiFunction<T, T> stepCost;
+    private double initialWeight, weightStep;
+
+    private NodeArena<T> arena;
+    // Arena index of the cheapest node found so far for each state
+    private HashMap<T, Integer> bestNode;
+    private PriorityQueue<Entry> open;
+    private HashSet<T> closed;
+    // Closed states whose cost improved during the current pass
+    private HashSet<T> inconsistent;
+    private double weight;
+
+    private Optional<SearchNode<T>> result;
+    private double bound;
+    private int numNodes;
+
+    // Pre: initialWeight >= 1; weightStep > 0
+    public AnytimeWeightedSearcher(ToIntFunction<T> heuristic, Function<T, ArrayList<T>> successorFunc,
+                                   Predicate<T> achievesGoal, ToIntBiFunction<T, T> stepCost,
+                                   double initialWeight, double weightStep) {
+        this.heuristic = heuristic;
+        this.successorFunc = successorFunc;
+        this.achievesGoal = achievesGoal;
+        this.stepCost = stepCost;
+        this.initialWeight = initialWeight;
+        this.weightStep = weightStep;
+    }
+
+    public AnytimeWeightedSearcher(ToIntFunction<T> heuristic, Function<T, ArrayList<T>> successorFunc,
+                                   Predicate<T> achievesGoal, double initialWeight, double weightStep) {
+        this(heuristic, successorFunc, achievesGoal, (parent, child) -> 1, initialWeight, weightStep);
+    }
+
+    public boolean success() {return result.isPresent();}
+
+    public Optional<SearchNode<T>> getResult() {return result;}
+
+    public int getNumNodes() {return numNodes;}
+
+    public int getSolutionLength() {
+        return result.map(p -> p.getCost() + 1).orElse(0);
+    }
+
+    // Post: The solution costs at most getBound() times the optimal cost;
+    //       infinite if no solution was found.
+    public double getBound() {return bound;}
+
+    public boolean isOptimal() {return success() && bound <= 1.0;}
+
+    public void solve(T start, long timeLimitMillis) {
+        solve(start, timeLimitMillis, (solution, weight) -> {});
+    }
+
+    public void solve(T start, long timeLimitMillis, SolutionListener<T> listener) {
+        long deadline = System.nanoTime() + timeLimitMillis * 1_000_000L;
+        arena = new NodeArena<>();
+        bestNode = new HashMap<>();
+        open = new PriorityQueue<>();
+        closed = new HashSet<>();
+        inconsistent = new HashSet<>();
+        weight = initialWeight;
+        result = Optional.empty();
+        bound = Double.POSITIVE_INFINITY;
+        numNodes = 1;
+
+        SearchNode<T> root = arena.addRoot(start);
+        bestNode.put(start, root.getIndex());
+        if (achievesGoal.test(start)) {
+            improve(root, listener);
+            bound = 1.0;
+            return;
+        }
+        open.add(entryFor(root.getIndex()));
+
+        for (;;) {
+            if (!improvePath(deadline, listener)) {
+                return;
+            }
+            bound = success() ? Math.min(weight, provenBound()) : Double.POSITIVE_INFINITY;
+            if (weight <= 1.0 || bound <= 1.0 || (open.isEmpty() && inconsistent.isEmpty())) {
+                return;
+            }
+            weight = Math.max(1.0, weight - weightStep);
+            reopen();
+        }
+    }
+
+    // Post: Expands nodes until none in the open list could lead to a
+    //       cheaper solution; returns false if the deadline passed first
+    private boolean improvePath(long deadline, SolutionListener<T> listener) {
+        while (!open.isEmpty()) {
+            Entry top = open.peek();
+            if (isStale(top)) {
+                open.poll();
+            } else if (success() && resultCost() <= top.key) {
+                return true;
+            } else if (System.nanoTime() > deadline) {
+                return false;
+            } else {
+                open.poll();
+                expand(top.index, listener);
+            }
+        }
+        return true;
+    }
+
+    private void expand(int index, SolutionListener<T> listener) {
+        T state = arena.getState(index);
+        closed.add(state);
+        for (T successor: successorFunc.apply(state)) {
+            int step = stepCost.applyAsInt(state, successor);
+            int cost = arena.getCost(index) + step;
+            Integer previous = bestNode.get(successor);
+            if (previous == null || cost < arena.getCost(previous)) {
+                SearchNode<T> node = arena.addChild(successor, arena.getNode(index), step);
+                numNodes += 1;
+                bestNode.put(successor, node.getIndex());
+                if (achievesGoal.test(successor)) {
+                    // A path through one goal to another is never cheaper,
+                    // so goal states are not expanded.
+                    if (!success() || cost < resultCost()) {
+                        improve(node, listener);
+                    }
+                } else if (closed.contains(successor)) {
+                    inconsistent.add(successor);
+                } else {
+                    open.add(entryFor(node.getIndex()));
+                }
+            }
+        }
+    }
+
+    private void improve(SearchNode<T> solution, SolutionListener<T> listener) {
+        result = Optional.of(solution.detach());
+        listener.improved(result.get(), weight);
+    }
+
+    // Post: Moves the inconsistent states back into the open list, rekeys it
+    //       for the current weight, and empties the closed list
+    private void reopen() {
+        PriorityQueue<Entry> rekeyed = new PriorityQueue<>();
+        for (Entry entry: open) {
+            if (!isStale(entry)) {
+                rekeyed.add(entryFor(entry.index));
+            }
+        }
+        for (T state: inconsistent) {
+            rekeyed.add(entryFor(bestNode.get(state)));
+        }
+        open = rekeyed;
+        closed.clear();
+        inconsistent.clear();
+    }
+
+    // Post: Returns the solution cost over the lowest unweighted estimate of
+    //       any state still waiting to be expanded, which bounds the ratio
+    //       of the solution cost to the optimal cost
+    private double provenBound() {
+        double lowest = resultCost();
+        for (Entry entry: open) {
+            if (!isStale(entry)) {
+                lowest = Math.min(lowest, estimate(entry.index));
+            }
+        }
+        for (T state: inconsistent) {
+            lowest = Math.min(lowest, estimate(bestNode.get(state)));
+        }
+        return lowest > 0 ? resultCost() / lowest : 1.0;
+    }
+
+    private int resultCost() {return result.get().getCost();}
+
+    private double estimate(int index) {
+        return arena.getCost(index) + heuristic.applyAsInt(arena.getState(index));
+    }
+
+    private Entry entryFor(int index) {
+        return new Entry(arena.getCost(index) + weight * heuristic.applyAsInt(arena.getState(index)), index);
+    }
+
+    // An entry is stale once its state has been closed or reached more cheaply.
+    private boolean isStale(Entry entry) {
+        T state = arena.getState(entry.index);
+        return bestNode.get(state) != entry.index || closed.contains(state);
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private double key;
+        private int index;
+
+        Entry(double key, int index) {
+            this.key = key;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return key != other.key ? Double.compare(key, other.key) : Integer.compare(index, other.index);
+        }
+    }
+}
@@ -1,18 +1,21 @@
 package search.bestfirst;
 
-import core.Duple;
+import search.NodeArena;
 import search.SearchNode;
 import search.SearchQueue;
 
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Optional;
-import java.util.PriorityQueue;
 import java.util.function.ToIntFunction;
 
 public class BestFirstQueue<T> implements SearchQueue<T> {
-    // Each object in the priority queue is an estimate paired with a SearchNode.
-    private final PriorityQueue<Duple<Integer, SearchNode<T>>> queue;
+    // A binary min-heap of nodes. Each entry packs the node's total estimate
+    // into the high 32 bits and its arena index into the low 32 bits, so
+    // entries order by estimate and then by age.
+    private long[] heap = new long[16];
+    private int size = 0;
+    private NodeArena<T> arena;
 
     // For each object encountered, this is the lowest total length estimate
     // encountered so far.
@@ -22,30 +25,67 @@ public class BestFirstQueue<T> implements SearchQueue<T> {
     private final ToIntFunction<T> heuristic;
 
     public BestFirstQueue(ToIntFunction<T> heuristic) {
-        // Compare duples by their first element (the integer estimate).
-        queue = new PriorityQueue<>(Comparator.comparingInt(Duple::getFirst));
         lowestEstimateFor = new HashMap<>();
         this.heuristic = heuristic;
     }
 
+    // Pre: Every node enqueued belongs to the same NodeArena
     @Override
-    public void enqueue(SearchNode<T> node) {
+    public boolean enqueue(SearchNode<T> node) {
         T state = node.getValue();
         // total estimated cost = cost so far + heuristic
-        int estimate = node.getDepth() + heuristic.applyAsInt(state);
+        int estimate = node.getCost() + heuristic.applyAsInt(state);
 
         // Only add if this is a new state or a better estimate
-        if (!lowestEstimateFor.containsKey(state) || estimate < lowestEstimateFor.get(state)) {
-            lowestEstimateFor.put(state, estimate);
-            queue.add(new Duple<>(estimate, node));
+        Integer lowest = lowestEstimateFor.get(state);
+        if (lowest != null && estimate >= lowest) {
+            return false;
         }
+        if (arena == null) {
+            arena = node.getArena();
+        } else if (arena != node.getArena()) {
+            throw new IllegalArgumentException("Node belongs to a different search");
+        }
+        lowestEstimateFor.put(state, estimate);
+        push(((long)estimate << 32) | node.getIndex());
+        return true;
     }
 
     @Override
     public Optional<SearchNode<T>> dequeue() {
-        if (queue.isEmpty()) {
+        if (size == 0) {
             return Optional.empty();
         }
-        return Optional.of(queue.poll().getSecond());
+        return Optional.of(arena.getNode((int)pop()));
+    }
+
+    private void push(long entry) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, 2 * heap.length);
+        }
+        int i = size++;
+        while (i > 0 && heap[(i - 1) / 2] > entry) {
+            heap[i] = heap[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heap[i] = entry;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--size];
+        int i = 0;
+        for (int child = 1; child < size; child = 2 * i + 1) {
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child += 1;
+            }
+            if (heap[child] >= last) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
     }
 }
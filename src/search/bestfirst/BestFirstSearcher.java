@@ -4,6 +4,7 @@ import search.GenericSearcher;
 
 import java.util.ArrayList;
 import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
 import java.util.function.ToIntFunction;
 import java.util.function.Predicate;
 
@@ -11,4 +12,9 @@ public class BestFirstSearcher<T> extends GenericSearcher<T, BestFirstQueue<T>>
     public BestFirstSearcher(ToIntFunction<T> heuristic, Function<T, ArrayList<T>> successorFunc, Predicate<T> achievesGoal) {
         super(() -> new BestFirstQueue<>(heuristic), successorFunc, achievesGoal);
     }
+
+    public BestFirstSearcher(ToIntFunction<T> heuristic, Function<T, ArrayList<T>> successorFunc, Predicate<T> achievesGoal,
+                             ToIntBiFunction<T, T> stepCost) {
+        super(() -> new BestFirstQueue<>(heuristic), successorFunc, achievesGoal, stepCost);
+    }
 }
@@ -0,0 +1,177 @@
+package search.bestfirst;
+
+import search.NodeArena;
+import search.SearchNode;
+import search.SearchQueue;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.ToIntFunction;
+
+// A best-first queue that never holds more than maxNodes nodes, after SMA*.
+// When a new node would go over the cap, the entry with the highest
+// estimate is dropped; ties go to the shallowest. The dropped node's parent
+// goes back in the queue, estimated at no less than the dropped node, so
+// the dropped branch is generated again if it turns out to be needed.
+// A node leaves the arena once it is out of the queue, is not being
+// expanded and has no children left, and its parent is checked the same
+// way, so the arena holds only the queued nodes and their ancestors.
+//
+// Duplicate states are caught against the queue, the node's own ancestors,
+// and the costs of the last maxNodes states handed out, rather than against
+// every state ever seen, so memory does not grow with the size of the
+// search. A state forgotten that way may be expanded again. With a
+// heuristic that never overestimates and a cap larger than the longest
+// solution, the solution found is optimal.
+public class MemoryBoundedQueue<T> implements SearchQueue<T> {
+    private final ToIntFunction<T> heuristic;
+    private final int maxNodes;
+
+    private final TreeSet<Entry<T>> open = new TreeSet<>();
+    private final HashMap<T, Entry<T>> entryFor = new HashMap<>();
+    // Cost of each recently expanded state, oldest first
+    private final LinkedHashMap<T, Integer> closedCost;
+    // The node handed out last, which the searcher may still be expanding
+    private SearchNode<T> current;
+    private int numDropped = 0;
+
+    // Pre: maxNodes > 0
+    public MemoryBoundedQueue(ToIntFunction<T> heuristic, int maxNodes) {
+        this.heuristic = heuristic;
+        this.maxNodes = maxNodes;
+        closedCost = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<T, Integer> eldest) {
+                return size() > maxNodes;
+            }
+        };
+    }
+
+    public int getNumDropped() {return numDropped;}
+
+    @Override
+    public boolean enqueue(SearchNode<T> node) {
+        T state = node.getValue();
+        Entry<T> rival = entryFor.get(state);
+        if (rival != null) {
+            if (rival.node.getCost() <= node.getCost()) {
+                return false;
+            }
+            remove(rival);
+            releaseIfUnused(rival.node);
+        } else if (closedCost.getOrDefault(state, Integer.MAX_VALUE) <= node.getCost() || onPathTo(node)) {
+            return false;
+        }
+        Entry<T> entry = new Entry<>(node.getCost() + heuristic.applyAsInt(state), node);
+        add(entry);
+        if (open.size() > maxNodes) {
+            Entry<T> worst = open.last();
+            dropWorst();
+            return worst != entry;
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<SearchNode<T>> dequeue() {
+        Entry<T> best = open.pollFirst();
+        SearchNode<T> previous = current;
+        current = best == null ? null : best.node;
+        if (previous != null) {
+            releaseIfUnused(previous);
+        }
+        if (best == null) {
+            return Optional.empty();
+        }
+        entryFor.remove(best.node.getValue());
+        closedCost.remove(best.node.getValue());
+        closedCost.put(best.node.getValue(), best.node.getCost());
+        return Optional.of(best.node);
+    }
+
+    // Post: Returns true if node's state repeats one of its ancestors
+    private boolean onPathTo(SearchNode<T> node) {
+        NodeArena<T> arena = node.getArena();
+        for (int i = arena.getParent(node.getIndex()); i != NodeArena.NO_PARENT; i = arena.getParent(i)) {
+            if (node.getValue().equals(arena.getState(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(Entry<T> entry) {
+        open.add(entry);
+        entryFor.put(entry.node.getValue(), entry);
+    }
+
+    private void remove(Entry<T> entry) {
+        open.remove(entry);
+        entryFor.remove(entry.node.getValue());
+    }
+
+    // Post: Releases node if nothing needs it any more, and then each of its
+    //       ancestors in turn until one that is still needed
+    private void releaseIfUnused(SearchNode<T> node) {
+        NodeArena<T> arena = node.getArena();
+        for (int i = node.getIndex(); i != NodeArena.NO_PARENT && !inUse(arena, i); ) {
+            int parent = arena.getParent(i);
+            arena.release(i);
+            i = parent;
+        }
+    }
+
+    private boolean inUse(NodeArena<T> arena, int index) {
+        if (arena.getNumChildren(index) > 0 || (current != null && current.getIndex() == index)) {
+            return true;
+        }
+        Entry<T> queued = entryFor.get(arena.getState(index));
+        return queued != null && queued.node.getIndex() == index;
+    }
+
+    private void dropWorst() {
+        Entry<T> worst = open.last();
+        remove(worst);
+        // Forget that the state was expanded, so that it can be generated
+        // again along with the branch beneath it.
+        closedCost.remove(worst.node.getValue());
+        numDropped += 1;
+        worst.node.getParent().ifPresent(parent -> {
+            Entry<T> queued = entryFor.get(parent.getValue());
+            if (queued == null) {
+                int estimate = Math.max(worst.estimate, parent.getCost() + heuristic.applyAsInt(parent.getValue()));
+                add(new Entry<>(estimate, parent));
+            } else if (queued.node.equals(parent) && queued.estimate < worst.estimate) {
+                remove(queued);
+                add(new Entry<>(worst.estimate, parent));
+            }
+        });
+        releaseIfUnused(worst.node);
+    }
+
+    // Entries are ordered by estimate, deepest first among equals, so that
+    // last() is the shallowest of the worst.
+    private static class Entry<T> implements Comparable<Entry<T>> {
+        private int estimate;
+        private SearchNode<T> node;
+
+        Entry(int estimate, SearchNode<T> node) {
+            this.estimate = estimate;
+            this.node = node;
+        }
+
+        @Override
+        public int compareTo(Entry<T> other) {
+            if (estimate != other.estimate) {
+                return Integer.compare(estimate, other.estimate);
+            } else if (node.getDepth() != other.node.getDepth()) {
+                return Integer.compare(other.node.getDepth(), node.getDepth());
+            } else {
+                return Integer.compare(node.getIndex(), other.node.getIndex());
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package search.bestfirst;
+
+import search.GenericSearcher;
+
+import java.util.ArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+public class MemoryBoundedSearcher<T> extends GenericSearcher<T, MemoryBoundedQueue<T>> {
+    public MemoryBoundedSearcher(ToIntFunction<T> heuristic, int maxNodes, Function<T, ArrayList<T>> successorFunc,
+                                 Predicate<T> achievesGoal) {
+        super(() -> new MemoryBoundedQueue<>(heuristic, maxNodes), successorFunc, achievesGoal);
+    }
+}
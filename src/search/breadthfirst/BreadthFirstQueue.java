@@ -1,30 +1,52 @@
 package search.breadthfirst;
 
+import search.NodeArena;
 import search.SearchNode;
 import search.SearchQueue;
 
-import java.util.ArrayDeque;
 import java.util.HashSet;
 import java.util.Optional;
 
 public class BreadthFirstQueue<T> implements SearchQueue<T> {
-    private ArrayDeque<SearchNode<T>> queue = new ArrayDeque<>();
+    // Arena indices of the queued nodes, in a circular buffer.
+    private NodeArena<T> arena;
+    private int[] queue = new int[16];
+    private int head = 0, size = 0;
     private HashSet<T> visited = new HashSet<>();
 
+    // Pre: Every node enqueued belongs to the same NodeArena
     @Override
-    public void enqueue(SearchNode<T> node) {
-        if (!visited.contains(node.getValue())) {
-            queue.addLast(node);
-            visited.add(node.getValue());
+    public boolean enqueue(SearchNode<T> node) {
+        if (!visited.add(node.getValue())) {
+            return false;
         }
+        if (arena == null) {
+            arena = node.getArena();
+        } else if (arena != node.getArena()) {
+            throw new IllegalArgumentException("Node belongs to a different search");
+        }
+        if (size == queue.length) {
+            int[] bigger = new int[2 * queue.length];
+            for (int i = 0; i < size; i++) {
+                bigger[i] = queue[(head + i) % queue.length];
+            }
+            queue = bigger;
+            head = 0;
+        }
+        queue[(head + size) % queue.length] = node.getIndex();
+        size += 1;
+        return true;
     }
 
     @Override
     public Optional<SearchNode<T>> dequeue() {
-        if (queue.isEmpty()) {
+        if (size == 0) {
             return Optional.empty();
         } else {
-            return Optional.of(queue.removeFirst());
+            int index = queue[head];
+            head = (head + 1) % queue.length;
+            size -= 1;
+            return Optional.of(arena.getNode(index));
         }
     }
 }
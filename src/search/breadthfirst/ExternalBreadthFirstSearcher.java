@@ -0,0 +1,315 @@
+package search.breadthfirst;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// Breadth-first search that keeps its frontier on disk rather than on the
+// heap, using delayed duplicate detection. Each layer is a file of sorted,
+// distinct state codes. To build the next layer, the successors of a layer
+// are collected in a fixed-size buffer, which is sorted and written out as a
+// run whenever it fills. The runs are then merged, dropping repeated codes
+// and codes already in the previous dedupWindow layers. Heap use is the
+// buffer plus one small read buffer per run, however many states there are.
+//
+// No parent links are stored. Once a goal is found, the path is rebuilt
+// backwards by scanning each earlier layer for a state that has the next
+// state on the path as a successor.
+//
+// In an undirected state space a state's neighbors all lie within one layer
+// of it, so a window of 2 finds every duplicate. With a smaller window than
+// the space needs, old states come back in later layers. A path found is
+// still a shortest one, but if no goal is reachable the search may never end.
+public class ExternalBreadthFirstSearcher<T> {
+    private final static int IO_BUFFER_BYTES = 1 << 16;
+
+    private LongCodec<T> codec;
+    private Function<T, ArrayList<T>> successorFunc;
+    private Predicate<T> achievesGoal;
+    private Path directory;
+    private int bufferSize;
+    private int dedupWindow;
+
+    private ArrayList<Path> layers;
+    private ArrayList<Long> layerSizes;
+    private Optional<ArrayDeque<T>> path;
+    private long numNodes;
+
+    // Pre: bufferSize > 0; dedupWindow > 0
+    public ExternalBreadthFirstSearcher(LongCodec<T> codec, Function<T, ArrayList<T>> successorFunc,
+                                        Predicate<T> achievesGoal, Path directory, int bufferSize, int dedupWindow) {
+        this.codec = codec;
+        this.successorFunc = successorFunc;
+        this.achievesGoal = achievesGoal;
+        this.directory = directory;
+        this.bufferSize = bufferSize;
+        this.dedupWindow = dedupWindow;
+    }
+
+    // Uses the system temporary directory, a buffer of 4M states (32 MB),
+    // and a window of 2 layers.
+    public ExternalBreadthFirstSearcher(LongCodec<T> codec, Function<T, ArrayList<T>> successorFunc,
+                                        Predicate<T> achievesGoal) {
+        this(codec, successorFunc, achievesGoal, Path.of(System.getProperty("java.io.tmpdir")), 1 << 22, 2);
+    }
+
+    public boolean success() {return path.isPresent();}
+
+    // Pre: success()
+    // Post: Returns the states from the start to the goal, inclusive
+    public ArrayDeque<T> getPath() {return path.get();}
+
+    public int getSolutionLength() {return path.map(ArrayDeque::size).orElse(0);}
+
+    // Number of states written to layers, including the start
+    public long getNumNodes() {return numNodes;}
+
+    public int getMaxDepth() {return layerSizes.size() - 1;}
+
+    public ArrayList<Long> getLayerSizes() {return layerSizes;}
+
+    public void solve(T start) throws IOException {
+        Path work = Files.createTempDirectory(directory, "bfs");
+        layers = new ArrayList<>();
+        layerSizes = new ArrayList<>();
+        path = Optional.empty();
+        numNodes = 0;
+        try {
+            Path first = work.resolve("layer0");
+            try (LongWriter out = new LongWriter(first)) {
+                out.write(codec.encode(start));
+            }
+            addLayer(first, 1);
+            // One run buffer serves every layer, so expanding a layer
+            // allocates nothing in proportion to bufferSize.
+            long[] buffer = new long[bufferSize];
+            Optional<T> goal = achievesGoal.test(start) ? Optional.of(start) : Optional.empty();
+            while (goal.isEmpty() && layerSizes.get(layerSizes.size() - 1) > 0) {
+                goal = expandLayer(work, buffer);
+            }
+            if (goal.isPresent()) {
+                path = Optional.of(rebuildPath(goal.get()));
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(work)) {
+                for (Path file: files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(work);
+        }
+    }
+
+    private void addLayer(Path layer, long size) {
+        layers.add(layer);
+        layerSizes.add(size);
+        numNodes += size;
+    }
+
+    // Post: Writes the layer after the last one, sorting runs in buffer;
+    //       returns a goal state in it if there is one
+    private Optional<T> expandLayer(Path work, long[] buffer) throws IOException {
+        int depth = layers.size();
+        ArrayList<Path> runs = new ArrayList<>();
+        int numBuffered = 0;
+        try (LongReader in = new LongReader(layers.get(depth - 1))) {
+            while (in.hasNext()) {
+                for (T successor: successorFunc.apply(codec.decode(in.next()))) {
+                    if (numBuffered == buffer.length) {
+                        runs.add(writeRun(work, runs.size(), buffer, numBuffered));
+                        numBuffered = 0;
+                    }
+                    buffer[numBuffered++] = codec.encode(successor);
+                }
+            }
+        }
+        runs.add(writeRun(work, runs.size(), buffer, numBuffered));
+
+        ArrayList<LongReader> readers = new ArrayList<>();
+        Path next = work.resolve("layer" + depth);
+        Optional<T> goal = Optional.empty();
+        long size = 0;
+        try (LongWriter out = new LongWriter(next)) {
+            for (Path run: runs) {
+                readers.add(new LongReader(run));
+            }
+            LongReader[] seen = new LongReader[Math.min(dedupWindow, depth)];
+            for (int i = 0; i < seen.length; i++) {
+                seen[i] = new LongReader(layers.get(depth - 1 - i));
+                readers.add(seen[i]);
+            }
+
+            long previous = 0;
+            boolean any = false;
+            for (;;) {
+                LongReader lowest = null;
+                for (int i = 0; i < runs.size(); i++) {
+                    LongReader r = readers.get(i);
+                    if (r.hasNext() && (lowest == null || r.peek() < lowest.peek())) {
+                        lowest = r;
+                    }
+                }
+                if (lowest == null) {
+                    break;
+                }
+                long code = lowest.next();
+                if ((any && code == previous) || alreadySeen(seen, code)) {
+                    continue;
+                }
+                any = true;
+                previous = code;
+                out.write(code);
+                size += 1;
+                if (goal.isEmpty()) {
+                    T state = codec.decode(code);
+                    if (achievesGoal.test(state)) {
+                        goal = Optional.of(state);
+                    }
+                }
+            }
+        } finally {
+            for (LongReader r: readers) {
+                r.close();
+            }
+            for (Path run: runs) {
+                Files.delete(run);
+            }
+        }
+        addLayer(next, size);
+        return goal;
+    }
+
+    // Pre: Each reader in seen is sorted and has been advanced past every
+    //      code lower than the previous one passed in
+    private static boolean alreadySeen(LongReader[] seen, long code) throws IOException {
+        for (LongReader r: seen) {
+            while (r.hasNext() && r.peek() < code) {
+                r.next();
+            }
+            if (r.hasNext() && r.peek() == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Path writeRun(Path work, int number, long[] buffer, int size) throws IOException {
+        Arrays.sort(buffer, 0, size);
+        Path run = work.resolve("run" + number);
+        try (LongWriter out = new LongWriter(run)) {
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || buffer[i] != buffer[i - 1]) {
+                    out.write(buffer[i]);
+                }
+            }
+        }
+        return run;
+    }
+
+    // Pre: goal is in the last layer
+    private ArrayDeque<T> rebuildPath(T goal) throws IOException {
+        ArrayDeque<T> result = new ArrayDeque<>();
+        result.addFirst(goal);
+        long target = codec.encode(goal);
+        for (int d = layers.size() - 2; d >= 0; d--) {
+            target = findParent(layers.get(d), target);
+            result.addFirst(codec.decode(target));
+        }
+        return result;
+    }
+
+    private long findParent(Path layer, long child) throws IOException {
+        try (LongReader in = new LongReader(layer)) {
+            while (in.hasNext()) {
+                long code = in.next();
+                for (T successor: successorFunc.apply(codec.decode(code))) {
+                    if (codec.encode(successor) == child) {
+                        return code;
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("No parent found for state " + child);
+    }
+
+    private static class LongWriter implements AutoCloseable {
+        private FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES);
+
+        LongWriter(Path target) throws IOException {
+            channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void write(long value) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.putLong(value);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+
+    private static class LongReader implements AutoCloseable {
+        private FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES);
+        private boolean hasNext;
+        private long next;
+
+        LongReader(Path source) throws IOException {
+            channel = FileChannel.open(source, StandardOpenOption.READ);
+            buffer.flip();
+            advance();
+        }
+
+        boolean hasNext() {return hasNext;}
+
+        long peek() {return next;}
+
+        long next() throws IOException {
+            long result = next;
+            advance();
+            return result;
+        }
+
+        private void advance() throws IOException {
+            if (buffer.remaining() < Long.BYTES) {
+                buffer.compact();
+                while (buffer.position() < Long.BYTES && channel.read(buffer) >= 0) {}
+                buffer.flip();
+            }
+            hasNext = buffer.remaining() >= Long.BYTES;
+            if (hasNext) {
+                next = buffer.getLong();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package search.breadthfirst;
+
+// Converts states to and from fixed-width longs, so that they can be
+// sorted and stored on disk.
+public interface LongCodec<T> {
+    // Post: Distinct states have distinct codes
+    long encode(T state);
+
+    // Post: decode(encode(state)) equals state
+    T decode(long code);
+}
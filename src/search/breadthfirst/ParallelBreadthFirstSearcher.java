@@ -0,0 +1,191 @@
+package search.breadthfirst;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntPredicate;
+
+// Level-synchronous breadth-first search over states numbered 0 to numStates - 1.
+// Each frontier is split into chunks that a ForkJoinPool expands in parallel.
+// Visited marks live in an AtomicLongArray bitset, so every state is claimed by
+// exactly one thread, and parent links live in an int[], which costs about
+// 4 bytes and 1 bit per state no matter how large the search gets.
+public class ParallelBreadthFirstSearcher {
+    // Writes the successors of state into out and returns how many there are.
+    public interface IntSuccessors {
+        int successors(int state, int[] out);
+    }
+
+    public final static int DEFAULT_CHUNK_SIZE = 2048;
+    private final static int NO_STATE = -1;
+
+    private int numStates;
+    private int chunkSize;
+    private int maxSuccessors;
+    private IntSuccessors successorFunc;
+    private IntPredicate achievesGoal;
+    private ForkJoinPool pool;
+
+    private AtomicLongArray visited;
+    private int[] parents;
+    private AtomicInteger goal;
+    private int start;
+    private int numNodes;
+    private int maxDepth;
+
+    // Pre: successorFunc never yields more than maxSuccessors states; chunkSize > 0
+    // A frontier is split into chunks of chunkSize states.
+    public ParallelBreadthFirstSearcher(int numStates, int maxSuccessors, IntSuccessors successorFunc,
+                                        IntPredicate achievesGoal, ForkJoinPool pool, int chunkSize) {
+        this.numStates = numStates;
+        this.chunkSize = chunkSize;
+        this.maxSuccessors = maxSuccessors;
+        this.successorFunc = successorFunc;
+        this.achievesGoal = achievesGoal;
+        this.pool = pool;
+    }
+
+    public ParallelBreadthFirstSearcher(int numStates, int maxSuccessors, IntSuccessors successorFunc,
+                                        IntPredicate achievesGoal, ForkJoinPool pool) {
+        this(numStates, maxSuccessors, successorFunc, achievesGoal, pool, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelBreadthFirstSearcher(int numStates, int maxSuccessors, IntSuccessors successorFunc,
+                                        IntPredicate achievesGoal) {
+        this(numStates, maxSuccessors, successorFunc, achievesGoal, ForkJoinPool.commonPool());
+    }
+
+    public boolean success() {return goal.get() != NO_STATE;}
+
+    // Number of distinct states reached, including the start
+    public int getNumNodes() {return numNodes;}
+
+    public int getMaxDepth() {return maxDepth;}
+
+    public int getSolutionLength() {
+        return success() ? getPath().length : 0;
+    }
+
+    // Pre: success()
+    // Post: Returns the states from the start to the goal, inclusive
+    public int[] getPath() {
+        int length = 1;
+        for (int s = goal.get(); s != start; s = parents[s]) {
+            length += 1;
+        }
+        int[] path = new int[length];
+        for (int s = goal.get(), i = length - 1; i >= 0; s = parents[s], i--) {
+            path[i] = s;
+        }
+        return path;
+    }
+
+    public void solve(int start) {
+        this.start = start;
+        visited = new AtomicLongArray((numStates + 63) / 64);
+        parents = new int[numStates];
+        goal = new AtomicInteger(NO_STATE);
+        numNodes = 1;
+        maxDepth = 0;
+        tryVisit(start);
+        parents[start] = start;
+        if (achievesGoal.test(start)) {
+            goal.set(start);
+            return;
+        }
+
+        int[] frontier = new int[]{start};
+        while (frontier.length > 0 && !success()) {
+            int numChunks = (frontier.length + chunkSize - 1) / chunkSize;
+            int[][] found = new int[numChunks][];
+            pool.invoke(new LevelTask(frontier, found, 0, numChunks));
+            frontier = concatenate(found);
+            numNodes += frontier.length;
+            if (frontier.length > 0) {
+                maxDepth += 1;
+            }
+        }
+    }
+
+    private boolean tryVisit(int state) {
+        int word = state >>> 6;
+        long bit = 1L << state;
+        for (;;) {
+            long old = visited.get(word);
+            if ((old & bit) != 0) {
+                return false;
+            }
+            if (visited.compareAndSet(word, old, old | bit)) {
+                return true;
+            }
+        }
+    }
+
+    private static int[] concatenate(int[][] parts) {
+        int total = 0;
+        for (int[] part: parts) {
+            total += part.length;
+        }
+        int[] result = new int[total];
+        int i = 0;
+        for (int[] part: parts) {
+            System.arraycopy(part, 0, result, i, part.length);
+            i += part.length;
+        }
+        return result;
+    }
+
+    // Expands chunks [firstChunk, lastChunk) of the frontier, storing the
+    // newly claimed states of chunk c in found[c].
+    private class LevelTask extends RecursiveAction {
+        private final static long serialVersionUID = 1L;
+
+        private int[] frontier;
+        private int[][] found;
+        private int firstChunk, lastChunk;
+
+        LevelTask(int[] frontier, int[][] found, int firstChunk, int lastChunk) {
+            this.frontier = frontier;
+            this.found = found;
+            this.firstChunk = firstChunk;
+            this.lastChunk = lastChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (lastChunk - firstChunk > 1) {
+                int middle = (firstChunk + lastChunk) / 2;
+                invokeAll(new LevelTask(frontier, found, firstChunk, middle),
+                        new LevelTask(frontier, found, middle, lastChunk));
+            } else {
+                found[firstChunk] = expand(firstChunk * chunkSize, Math.min(frontier.length, (firstChunk + 1) * chunkSize));
+            }
+        }
+
+        private int[] expand(int from, int to) {
+            int[] out = new int[maxSuccessors];
+            int[] next = new int[Math.max(16, to - from)];
+            int numNext = 0;
+            for (int i = from; i < to; i++) {
+                int state = frontier[i];
+                int n = successorFunc.successors(state, out);
+                for (int j = 0; j < n; j++) {
+                    int child = out[j];
+                    if (tryVisit(child)) {
+                        parents[child] = state;
+                        if (numNext == next.length) {
+                            next = Arrays.copyOf(next, 2 * next.length);
+                        }
+                        next[numNext++] = child;
+                        if (achievesGoal.test(child)) {
+                            goal.compareAndSet(NO_STATE, child);
+                        }
+                    }
+                }
+            }
+            return Arrays.copyOf(next, numNext);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package search.example;
 
 import core.Pos;
 import org.junit.Test;
+import search.SearchStatistics;
 
 import java.util.ArrayDeque;
 
@@ -21,6 +22,27 @@ public class BreadthFirstDemoTest {
         validatePath(path, new Pos(0, 0), new Pos(2, 3));
     }
 
+    @Test
+    public void testStatistics() {
+        BreadthFirstDemo bfd = new BreadthFirstDemo(new Pos(2, 3));
+        SearchStatistics<Pos> stats = new SearchStatistics<>(10);
+        bfd.setListener(stats);
+        bfd.solve(new Pos(0, 0));
+        assertEquals(bfd.getNumNodes(), stats.getNumGenerated());
+        assertEquals(bfd.getMaxDepth(), stats.getMaxDepth());
+        int total = 0;
+        for (int d = 0; d <= stats.getMaxDepth(); d++) {
+            total += stats.getGeneratedAtDepth(d);
+        }
+        assertEquals(stats.getNumGenerated(), total);
+        assertEquals(stats.getNumGenerated() - stats.getNumDuplicates() - stats.getNumExpanded() - 1,
+                stats.getOpenSize());
+        assertEquals(4.0, stats.getBranchingFactor(0), 0.0);
+        assertTrue(stats.getPeakOpenSize() >= stats.getOpenSize());
+        assertEquals(stats.getNumGenerated() / 10, stats.getSamples().size());
+        System.out.print(stats);
+    }
+
     public static void validatePath(ArrayDeque<Pos> path, Pos start, Pos end) {
         assertEquals(start, path.getFirst());
         assertEquals(end, path.getLast());